@@ -0,0 +1,72 @@
+package Benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed puzzle corpora bundled with the benchmarks, one per difficulty reported by the rule engine without search.
+ * Each corpus holds exactly {@link #SIZE} puzzles, so benchmarks can report the time per puzzle.
+ */
+public enum Corpus {
+    EASY,
+    MEDIUM,
+    HARD,
+    IMPOSSIBLE;
+
+    public static final int SIZE = 32; // Number of puzzles in every corpus
+
+    /**
+     * Loads the puzzles of the corpus.
+     *
+     * @return The puzzles, as arrays of 81 integers with -1 for empty cells.
+     * @throws UncheckedIOException If the corpus cannot be read.
+     * @throws IllegalStateException If the corpus does not hold exactly SIZE puzzles.
+     */
+    public int[][] load() {
+        String resource = "/corpora/" + name().toLowerCase() + ".txt";
+        List<int[]> puzzles = new ArrayList<>();
+        try (InputStream stream = Corpus.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing corpus " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    puzzles.add(parse(line.strip()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read corpus " + resource, e);
+        }
+
+        if (puzzles.size() != SIZE) {
+            throw new IllegalStateException("Corpus " + resource + " holds " + puzzles.size() + " puzzles");
+        }
+        return puzzles.toArray(new int[0][]);
+    }
+
+    /**
+     * Parses a puzzle line of 81 digits, with '.' or '0' for empty cells.
+     *
+     * @param line The line.
+     * @return The puzzle, -1 for empty cells.
+     */
+    private static int[] parse(String line) {
+        if (line.length() != 81) {
+            throw new IllegalStateException("Invalid puzzle line: " + line);
+        }
+        int[] values = new int[81];
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            char c = line.charAt(cellIndex);
+            values[cellIndex] = c == '.' || c == '0' ? -1 : c - '0';
+        }
+        return values;
+    }
+}
@@ -0,0 +1,130 @@
+package Benchmarks;
+
+import Engines.DancingLinksEngine;
+import Utils.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the basic Grid operations, on the grids of the loaded puzzles of a corpus.
+ * Every operation is repeated on each grid of the corpus, and the time is reported per grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    @Param({"EASY", "HARD"})
+    private Corpus corpus;
+
+    private Grid[] grids; // Grids of the puzzles
+    private Grid[] solvedGrids; // Grids of the solutions
+    private int[] cells; // First empty cell of each puzzle
+    private int[] values; // A candidate of that cell
+
+    /**
+     * Loads the puzzles of the corpus and their solutions.
+     */
+    @Setup
+    public void setUp() {
+        int[][] puzzles = corpus.load();
+        DancingLinksEngine engine = new DancingLinksEngine();
+        int[] solution = new int[81];
+        grids = new Grid[Corpus.SIZE];
+        solvedGrids = new Grid[Corpus.SIZE];
+        cells = new int[Corpus.SIZE];
+        values = new int[Corpus.SIZE];
+
+        for (int i = 0; i < Corpus.SIZE; i++) {
+            grids[i] = new Grid();
+            grids[i].load(puzzles[i]);
+            if (!engine.solve(puzzles[i], solution)) {
+                throw new IllegalStateException("Puzzle " + i + " of " + corpus + " has no solution");
+            }
+            solvedGrids[i] = new Grid();
+            solvedGrids[i].load(solution);
+
+            int cellIndex = 0;
+            while (!grids[i].isCellEmpty(cellIndex)) {
+                cellIndex++;
+            }
+            cells[i] = cellIndex;
+            values[i] = solution[cellIndex];
+        }
+    }
+
+    /**
+     * Places a value in an empty cell, then undoes the placement through the undo trail,
+     * which reverts the same candidate removals and leaves the grid unchanged for the next call.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void setValueAndUndo(Blackhole blackhole) {
+        for (int i = 0; i < Corpus.SIZE; i++) {
+            Grid grid = grids[i];
+            int mark = grid.getTrailMark();
+            grid.setValue(cells[i], values[i]);
+            blackhole.consume(grid.hasContradiction());
+            grid.undo(mark);
+        }
+    }
+
+    /**
+     * Gets the candidates of all 81 cells of a grid.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void getPossibleValues(Blackhole blackhole) {
+        for (Grid grid : grids) {
+            for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+                blackhole.consume(grid.getPossibleValues(cellIndex));
+            }
+        }
+    }
+
+    /**
+     * Checks whether an unfinished grid is solved, which stops at the number of filled cells.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void isSolvedUnfinished(Blackhole blackhole) {
+        for (Grid grid : grids) {
+            blackhole.consume(grid.isSolved());
+        }
+    }
+
+    /**
+     * Checks whether a complete grid is solved, which validates every row, column and box.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void isSolvedComplete(Blackhole blackhole) {
+        for (Grid grid : solvedGrids) {
+            blackhole.consume(grid.isSolved());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package Benchmarks;
+
+import Rules.DeductionRule;
+import Rules.DeductionRuleFactory;
+import Rules.DeductionRuleFactory.RuleType;
+import Rules.RulePropagator;
+import Utils.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full pass of each deduction rule over prepared grids.
+ * <p>
+ * The grids are those of the corpus matching the difficulty of the rule (EASY for DR1, MEDIUM for DR2,
+ * HARD for DR3), propagated with the easier rules until they are stuck, so the rule under test is the one
+ * the solver would run next and has deductions to make. Each pass is undone through the undo trail,
+ * so every call starts from the same grids.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RuleBenchmark {
+
+    @Param({"NAKED_SINGLE", "HIDDEN_SINGLE", "POINTING_PAIR"})
+    private RuleType ruleType;
+
+    private DeductionRule rule;
+    private Grid[] grids;
+
+    /**
+     * Prepares the grids of the rule.
+     */
+    @Setup
+    public void setUp() {
+        rule = DeductionRuleFactory.getDeductionRule(ruleType);
+        Corpus corpus = Corpus.values()[ruleType.ordinal()];
+        RulePropagator easierRules = new RulePropagator(
+                DeductionRuleFactory.getDeductionRules().subList(0, ruleType.ordinal()));
+
+        int[][] puzzles = corpus.load();
+        grids = new Grid[Corpus.SIZE];
+        for (int i = 0; i < Corpus.SIZE; i++) {
+            grids[i] = new Grid();
+            grids[i].load(puzzles[i]);
+            easierRules.propagate(grids[i]);
+            easierRules.reset();
+            grids[i].getChanges().clear();
+        }
+    }
+
+    /**
+     * Applies the rule to every cell of a grid, then undoes its deductions.
+     *
+     * @return The number of grids changed by the rule.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public int apply() {
+        int changed = 0;
+        for (Grid grid : grids) {
+            int mark = grid.getTrailMark();
+            if (rule.apply(grid)) {
+                changed++;
+            }
+            grid.undo(mark);
+            grid.getChanges().clear();
+        }
+        return changed;
+    }
+}
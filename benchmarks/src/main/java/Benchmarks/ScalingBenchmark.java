@@ -0,0 +1,113 @@
+package Benchmarks;
+
+import Utils.Geometry;
+import Utils.SolverResult;
+import Utils.SudokuHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of end-to-end solves with search on 9x9, 16x16 and 25x25 boards, reported per puzzle.
+ * Each board size has a corpus of {@link Corpus#SIZE} puzzles generated from a shuffled pattern solution
+ * with 45% of its cells removed, so the time per cell shows how the solver scales with the board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ScalingBenchmark {
+
+    @Param({"9", "16", "25"})
+    private int boardSize;
+
+    private SudokuHandler handler;
+    private int[][] puzzles;
+
+    /**
+     * Loads the corpus of the board size and creates the handler.
+     */
+    @Setup
+    public void setUp() {
+        Geometry geometry = Geometry.ofSize(boardSize);
+        puzzles = load(geometry);
+        handler = new SudokuHandler(false, true, geometry);
+    }
+
+    /**
+     * Solves every puzzle of the corpus.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void solve(Blackhole blackhole) {
+        for (int[] puzzle : puzzles) {
+            SolverResult result = handler.solve(puzzle);
+            blackhole.consume(result.difficulty());
+        }
+    }
+
+    /**
+     * Loads the scaling corpus of a board size, one puzzle per line written with the symbols of the board.
+     *
+     * @param geometry The shape of the board.
+     * @return The puzzles, -1 for empty cells.
+     * @throws UncheckedIOException If the corpus cannot be read.
+     * @throws IllegalStateException If the corpus does not hold exactly Corpus.SIZE valid puzzle lines.
+     */
+    private static int[][] load(Geometry geometry) {
+        String resource = "/corpora/scaling-" + geometry.getSize() + ".txt";
+        List<int[]> puzzles = new ArrayList<>();
+        try (InputStream stream = ScalingBenchmark.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing corpus " + resource);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                byte[] symbols = line.strip().getBytes(StandardCharsets.US_ASCII);
+                if (symbols.length != geometry.getCellCount()) {
+                    throw new IllegalStateException("Invalid puzzle line: " + line);
+                }
+                int[] values = new int[symbols.length];
+                for (int cellIndex = 0; cellIndex < symbols.length; cellIndex++) {
+                    values[cellIndex] = geometry.getSymbolValue(symbols[cellIndex]);
+                }
+                puzzles.add(values);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read corpus " + resource, e);
+        }
+
+        if (puzzles.size() != Corpus.SIZE) {
+            throw new IllegalStateException("Corpus " + resource + " holds " + puzzles.size() + " puzzles");
+        }
+        return puzzles.toArray(new int[0][]);
+    }
+}
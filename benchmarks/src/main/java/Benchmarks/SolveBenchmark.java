@@ -0,0 +1,65 @@
+package Benchmarks;
+
+import Utils.SolverResult;
+import Utils.SudokuHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of end-to-end solves with SudokuHandler.solve on the fixed corpora, reported per puzzle.
+ * Without search, the IMPOSSIBLE corpus measures how long the rules take to get stuck; with search,
+ * those puzzles are finished by the backtracking search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SolveBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "IMPOSSIBLE"})
+    private Corpus corpus;
+
+    @Param({"false", "true"})
+    private boolean searchEnabled;
+
+    private SudokuHandler handler;
+    private int[][] puzzles;
+
+    /**
+     * Loads the corpus and creates the handler.
+     */
+    @Setup
+    public void setUp() {
+        puzzles = corpus.load();
+        handler = new SudokuHandler(false, searchEnabled);
+    }
+
+    /**
+     * Solves every puzzle of the corpus.
+     *
+     * @param blackhole Sink of the results.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public void solve(Blackhole blackhole) {
+        for (int[] puzzle : puzzles) {
+            SolverResult result = handler.solve(puzzle);
+            blackhole.consume(result.difficulty());
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package App;
+
+import Engines.SudokuEngineFactory.EngineType;
+import IO.AsyncLogSink;
+import IO.LogLevel;
+import IO.OutputFormat;
+import IO.PuzzleSourceFactory;
+import Metrics.MetricsRegistry;
+import Utils.Difficulty;
+import Utils.Geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Arguments of a non-interactive run, parsed from the command line.
+ * Options take their value either as the next argument or after an equals sign ("--threads=4").
+ * A first argument of "bench" selects the benchmark command instead of solving the file,
+ * and "generate" the puzzle generator, which reads no file.
+ */
+public class CommandLine {
+
+    public static final int EXIT_SUCCESS = 0; // Every puzzle was solved
+    public static final int EXIT_UNSOLVED = 1; // Some puzzles were not solved
+    public static final int EXIT_USAGE = 2; // Invalid arguments
+    public static final int EXIT_FAILURE = 3; // The input could not be read or the output written
+
+    private static final String USAGE = """
+            Usage: java -jar SudokuSolver.jar [options] [--input] FILE
+                   java -jar SudokuSolver.jar bench [bench options] [--input] FILE
+                   java -jar SudokuSolver.jar generate [generate options]
+            Solves the puzzles of FILE, one per line, without asking anything. Use '-' for the standard
+            input or output, e.g. to run as a filter: ... | java -jar SudokuSolver.jar -i - -o - | ...
+              -i, --input FILE        Puzzle file, text or binary ('-' reads text from the standard input)
+              -o, --output FILE       Write the result of each puzzle, in input order ('-' for the standard output)
+              -f, --format FORMAT     Output format: text (default) or csv
+              -t, --threads N         Number of worker threads (default: number of processors)
+              -e, --engine ENGINE     rules (default), dancing_links or bitboard
+                  --fallback ENGINE   Engine for the puzzles the main engine does not solve
+              -s, --search            Let the rule engine guess when its rules are stuck
+                  --search-threads N  Split the search of each puzzle across N threads (implies --search)
+                  --count-solutions N Count the solutions of each puzzle up to N (2 checks uniqueness),
+                                      appended to each output line and to the statistics
+                  --rate              Also rate each puzzle on a numeric scale, one simplest step at a time,
+                                      appended to each output line and to the statistics
+                  --size N            Board size: 4, 9 (default), 16 or 25; only the rule engine solves other
+                                      sizes than 9, with values written 1-9 then A, B, ... (e.g. G for 16)
+                  --cache N           Cache up to N results by canonical form
+                  --store FILE        Reuse and record results in a persistent result store
+              -l, --log-level LEVEL   trace, debug, info (default), success, warn or error
+                  --log-file FILE     Write the log to FILE from a background thread, so logging does not slow
+                                      down the solver
+                  --log-overflow P    When the background log buffer is full: block (default), drop or sample;
+                                      without --log-file, the console log is also written in the background
+                  --stats FORMAT      End-of-run statistics: text (default, in the log), json or none
+                  --metrics FILE      Record rule, state and solve metrics and write them to FILE at the end
+                  --metrics-format F  Format of the metrics: prometheus (default) or json
+              -h, --help              Print this help
+            Bench loads FILE into memory, rates its puzzles with the rule engine, then times every engine on it
+            and prints the throughput and latency percentiles of each engine by difficulty. Bench options:
+              -t, --threads N         Number of worker threads (default: number of processors)
+              -e, --engine ENGINE     Engine to benchmark, may be repeated (default: every engine)
+              -s, --search            Let the rule engine guess when its rules are stuck
+                  --warmup N          Untimed passes over the puzzles before measuring (default: 2)
+                  --passes N          Timed passes over the puzzles (default: 3)
+                  --json FILE         Also write the results as JSON, e.g. for trend tracking
+              -l, --log-level LEVEL   trace, debug, info (default), success, warn or error
+                  --log-file FILE     Write the log to FILE from a background thread
+                  --log-overflow P    When the background log buffer is full: block (default), drop or sample
+            Generate writes random puzzles with a unique solution, rated by the rule engine, one per line followed
+            by its difficulty; the lines can be solved as a puzzle file. Generate options:
+                  --difficulty LEVEL  easy, medium or hard (default: medium)
+                  --count N           Number of puzzles to generate (default: 100)
+                  --seed N            Seed of the random generators, giving the same puzzles with any number
+                                      of threads (default: random)
+              -o, --output FILE       Write the puzzles to FILE ('-', the default, for the standard output)
+              -t, --threads N         Number of worker threads (default: number of processors)
+              -l, --log-level LEVEL   trace, debug, info (default), success, warn or error
+                  --log-file FILE     Write the log to FILE from a background thread
+                  --log-overflow P    When the background log buffer is full: block (default), drop or sample
+            Exit status: 0 if every puzzle was solved, 1 if some were not, 2 for invalid arguments,
+            3 if the input could not be read or the output written. Bench exits with 0, or 3 if the input could not
+            be read or the JSON file written. Generate exits with 0, or 3 if the output could not be written.""";
+
+    // Options only valid when solving a file, only valid with bench, only valid with generate, and also valid with it
+    private static final List<String> SOLVE_OPTIONS =
+            List.of("-o", "--output", "-f", "--format", "--fallback", "--cache", "--store", "--stats", "--metrics",
+                    "--metrics-format", "--size",
+                    "--search-threads", "--count-solutions", "--rate");
+    private static final List<String> BENCH_OPTIONS = List.of("--warmup", "--passes", "--json");
+    private static final List<String> GENERATE_OPTIONS = List.of("--difficulty", "--count", "--seed");
+    private static final List<String> GENERATE_SHARED_OPTIONS =
+            List.of("-o", "--output", "-t", "--threads", "-l", "--log-level", "--log-file", "--log-overflow", "-h",
+                    "--help");
+
+    private final ProcessorOptions options = new ProcessorOptions()
+            .threads(Runtime.getRuntime().availableProcessors());
+    private final List<EngineType> benchmarkEngines = new ArrayList<>();
+    private Command command = Command.SOLVE;
+    private String input;
+    private LogLevel logLevel = LogLevel.INFO;
+    private String logFile;
+    private AsyncLogSink.OverflowPolicy logOverflowPolicy;
+    private StatisticsFormat statisticsFormat = StatisticsFormat.TEXT;
+    private boolean help;
+    private int warmupPasses = 2;
+    private int passes = 3;
+    private String jsonReport;
+    private Difficulty generatedDifficulty = Difficulty.MEDIUM;
+    private long generatedCount = 100;
+    private Long seed;
+    private String metricsFile;
+    private MetricsRegistry.Format metricsFormat = MetricsRegistry.Format.PROMETHEUS;
+
+    // Private constructor: instances are created by parse
+    private CommandLine() {
+    }
+
+    /**
+     * Parses the command-line arguments.
+     *
+     * @param args The arguments.
+     * @return The parsed command line.
+     * @throws IllegalArgumentException If an argument is unknown, misses its value or has an invalid value.
+     */
+    public static CommandLine parse(String[] args) {
+        CommandLine commandLine = new CommandLine();
+        int first = 0;
+        if (args.length > 0 && args[0].equals("bench")) {
+            commandLine.command = Command.BENCH;
+            first = 1;
+        } else if (args.length > 0 && args[0].equals("generate")) {
+            commandLine.command = Command.GENERATE;
+            first = 1;
+        }
+        boolean bench = commandLine.command == Command.BENCH;
+        boolean generate = commandLine.command == Command.GENERATE;
+
+        for (int i = first; i < args.length; i++) {
+            String arg = args[i];
+            String value = null;
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 0) {
+                value = arg.substring(equals + 1);
+                arg = arg.substring(0, equals);
+            }
+
+            if (generate ? arg.startsWith("-") && !arg.equals("-") && !GENERATE_OPTIONS.contains(arg)
+                    && !GENERATE_SHARED_OPTIONS.contains(arg) : GENERATE_OPTIONS.contains(arg)) {
+                throw new IllegalArgumentException("Option " + arg + " is not valid "
+                        + (generate ? "with generate" : "without generate"));
+            }
+            if (!generate && (bench ? SOLVE_OPTIONS.contains(arg) : BENCH_OPTIONS.contains(arg))) {
+                throw new IllegalArgumentException("Option " + arg + " is not valid "
+                        + (bench ? "with bench" : "without bench"));
+            }
+
+            switch (arg) {
+                case "-h", "--help" -> commandLine.help = true;
+                case "-s", "--search" -> commandLine.options.searchEnabled(true);
+                case "-i", "--input" -> commandLine.input = value != null ? value : nextValue(args, ++i, arg);
+                case "-o", "--output" -> commandLine.options.output(value != null ? value : nextValue(args, ++i, arg));
+                case "-f", "--format" -> commandLine.options.outputFormat(
+                        parseEnum(OutputFormat.class, value != null ? value : nextValue(args, ++i, arg), arg));
+                case "-t", "--threads" -> commandLine.options.threads(
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg));
+                case "-e", "--engine" -> {
+                    EngineType engineType =
+                            parseEnum(EngineType.class, value != null ? value : nextValue(args, ++i, arg), arg);
+                    if (bench) {
+                        commandLine.benchmarkEngines.add(engineType);
+                    } else {
+                        commandLine.options.engine(engineType);
+                    }
+                }
+                case "--fallback" -> commandLine.options.fallbackEngine(
+                        parseEnum(EngineType.class, value != null ? value : nextValue(args, ++i, arg), arg));
+                case "--cache" -> commandLine.options.cacheSize(
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg));
+                case "--store" -> commandLine.options.resultStore(value != null ? value : nextValue(args, ++i, arg));
+                case "--search-threads" -> commandLine.options.searchEnabled(true).searchThreads(
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg));
+                case "--rate" -> commandLine.options.numericRating(true);
+                case "--count-solutions" -> commandLine.options.solutionLimit(
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg));
+                case "--size" -> commandLine.options.geometry(
+                        Geometry.ofSize(parseInt(value != null ? value : nextValue(args, ++i, arg), arg)));
+                case "-l", "--log-level" -> commandLine.logLevel =
+                        parseEnum(LogLevel.class, value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--log-file" -> commandLine.logFile = value != null ? value : nextValue(args, ++i, arg);
+                case "--log-overflow" -> commandLine.logOverflowPolicy =
+                        parseEnum(AsyncLogSink.OverflowPolicy.class, value != null ? value : nextValue(args, ++i, arg),
+                                arg);
+                case "--stats" -> commandLine.statisticsFormat =
+                        parseEnum(StatisticsFormat.class, value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--metrics" -> commandLine.metricsFile = value != null ? value : nextValue(args, ++i, arg);
+                case "--metrics-format" -> commandLine.metricsFormat = parseEnum(MetricsRegistry.Format.class,
+                        value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--warmup" -> commandLine.warmupPasses =
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--passes" -> commandLine.passes =
+                        parseInt(value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--json" -> commandLine.jsonReport = value != null ? value : nextValue(args, ++i, arg);
+                case "--difficulty" -> commandLine.generatedDifficulty =
+                        parseEnum(Difficulty.class, value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--count" -> commandLine.generatedCount =
+                        parseLong(value != null ? value : nextValue(args, ++i, arg), arg);
+                case "--seed" -> commandLine.seed = parseLong(value != null ? value : nextValue(args, ++i, arg), arg);
+                default -> {
+                    if (arg.startsWith("-") && !arg.equals("-")) {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                    if (generate) {
+                        throw new IllegalArgumentException("Generate reads no input file");
+                    }
+                    if (commandLine.input != null) {
+                        throw new IllegalArgumentException("Only one input file can be given");
+                    }
+                    commandLine.input = arg;
+                }
+            }
+        }
+
+        if (commandLine.input == null && !commandLine.help && !generate) {
+            throw new IllegalArgumentException("No input file given");
+        }
+        if (generate) {
+            Difficulty difficulty = commandLine.generatedDifficulty;
+            if (difficulty != Difficulty.EASY && difficulty != Difficulty.MEDIUM && difficulty != Difficulty.HARD) {
+                throw new IllegalArgumentException("Only easy, medium and hard puzzles can be generated");
+            }
+            if (commandLine.generatedCount < 1) {
+                throw new IllegalArgumentException("Generate needs at least one puzzle");
+            }
+            if (commandLine.options.getOutputFile() == null) {
+                commandLine.options.output(PuzzleSourceFactory.STANDARD_STREAM);
+            }
+        }
+        if (commandLine.warmupPasses < 0 || commandLine.passes < 1) {
+            throw new IllegalArgumentException("Bench needs at least one pass and no negative warm-up passes");
+        }
+        Geometry geometry = commandLine.options.getGeometry();
+        EngineType fallback = commandLine.options.getFallbackEngineType();
+        if (!commandLine.options.getEngineType().supports(geometry) || fallback != null && !fallback.supports(geometry)) {
+            throw new IllegalArgumentException("Only the rule engine solves " + geometry + " puzzles");
+        }
+        if (bench && commandLine.benchmarkEngines.isEmpty()) {
+            commandLine.benchmarkEngines.addAll(Arrays.asList(EngineType.values()));
+        }
+        commandLine.options.logStatistics(commandLine.statisticsFormat == StatisticsFormat.TEXT);
+        return commandLine;
+    }
+
+    /**
+     * Gets the value of an option.
+     *
+     * @param args   The arguments.
+     * @param index  The index of the value.
+     * @param option The option.
+     * @return The value.
+     * @throws IllegalArgumentException If the arguments end before the value.
+     */
+    private static String nextValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * Parses the integer value of an option.
+     *
+     * @param value  The value.
+     * @param option The option.
+     * @return The integer.
+     * @throws IllegalArgumentException If the value is not an integer.
+     */
+    private static int parseInt(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Parses the long integer value of an option.
+     *
+     * @param value  The value.
+     * @param option The option.
+     * @return The long integer.
+     * @throws IllegalArgumentException If the value is not an integer.
+     */
+    private static long parseLong(String value, String option) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Parses the value of an option naming an enum constant, ignoring case.
+     *
+     * @param type   The enum class.
+     * @param value  The value.
+     * @param option The option.
+     * @param <E>    The enum type.
+     * @return The enum constant.
+     * @throws IllegalArgumentException If the value names no constant.
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String option) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Gets the help text of the command line.
+     *
+     * @return The usage.
+     */
+    public static String getUsage() {
+        return USAGE;
+    }
+
+    public Command getCommand() {
+        return command;
+    }
+
+    public ProcessorOptions getOptions() {
+        return options;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    public String getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Gets what logging threads do when the buffer of the background log writer is full.
+     *
+     * @return The policy given on the command line, or null if none was given.
+     */
+    public AsyncLogSink.OverflowPolicy getLogOverflowPolicy() {
+        return logOverflowPolicy;
+    }
+
+    /**
+     * Checks if the log is written by a background thread, which is the case when it goes to a file
+     * or an overflow policy was given.
+     *
+     * @return True if the log is written asynchronously; false otherwise.
+     */
+    public boolean isAsyncLog() {
+        return logFile != null || logOverflowPolicy != null;
+    }
+
+    public StatisticsFormat getStatisticsFormat() {
+        return statisticsFormat;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    public MetricsRegistry.Format getMetricsFormat() {
+        return metricsFormat;
+    }
+
+    public List<EngineType> getBenchmarkEngines() {
+        return benchmarkEngines;
+    }
+
+    public int getWarmupPasses() {
+        return warmupPasses;
+    }
+
+    public int getPasses() {
+        return passes;
+    }
+
+    public String getJsonReport() {
+        return jsonReport;
+    }
+
+    public Difficulty getGeneratedDifficulty() {
+        return generatedDifficulty;
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount;
+    }
+
+    /**
+     * Gets the seed of the random generators of the puzzle generator.
+     *
+     * @return The seed given on the command line, or a random seed if none was given.
+     */
+    public long getSeed() {
+        return seed != null ? seed : System.nanoTime();
+    }
+
+    /**
+     * Commands of the command line.
+     */
+    public enum Command {
+        SOLVE, // Solve the puzzles of a file
+        BENCH, // Benchmark the engines on the puzzles of a file
+        GENERATE // Generate puzzles of a difficulty
+    }
+
+    /**
+     * Formats of the end-of-run statistics.
+     */
+    public enum StatisticsFormat {
+        NONE,
+        TEXT,
+        JSON
+    }
+}
@@ -0,0 +1,258 @@
+package App;
+
+import Engines.SudokuEngineFactory.EngineType;
+import IO.OutputFormat;
+import Utils.Geometry;
+
+/**
+ * Options controlling how a SudokuFileProcessor solves the puzzles of a file.
+ * Setters return the options themselves so they can be chained.
+ */
+public class ProcessorOptions {
+
+    private boolean userHelp;
+    private boolean searchEnabled;
+    private Geometry geometry = Geometry.STANDARD;
+    private EngineType engineType = EngineType.RULES;
+    private EngineType fallbackEngineType;
+    private int threads = 1;
+    private int searchThreads = 1;
+    private int solutionLimit;
+    private boolean numericRating;
+    private String outputFile;
+    private OutputFormat outputFormat = OutputFormat.TEXT;
+    private int cacheSize;
+    private String resultStore;
+    private boolean logStatistics = true;
+
+    /**
+     * Sets whether the rule engine asks the user for help when its rules are stuck.
+     *
+     * @param userHelp True to ask the user for help.
+     * @return These options.
+     */
+    public ProcessorOptions userHelp(boolean userHelp) {
+        this.userHelp = userHelp;
+        return this;
+    }
+
+    /**
+     * Sets whether the rule engine falls back to a backtracking search when its rules are stuck.
+     *
+     * @param searchEnabled True to enable the search.
+     * @return These options.
+     */
+    public ProcessorOptions searchEnabled(boolean searchEnabled) {
+        this.searchEnabled = searchEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the shape of the puzzles of the file. Puzzles of other shapes than 9x9 are only solved by the rule
+     * engine, and are not cached or stored.
+     *
+     * @param geometry The shape of the puzzles (9x9 by default).
+     * @return These options.
+     */
+    public ProcessorOptions geometry(Geometry geometry) {
+        this.geometry = geometry;
+        return this;
+    }
+
+    /**
+     * Sets the engine used to solve the puzzles.
+     *
+     * @param engineType The engine type (RULES by default).
+     * @return These options.
+     */
+    public ProcessorOptions engine(EngineType engineType) {
+        this.engineType = engineType;
+        return this;
+    }
+
+    /**
+     * Sets an engine to which the puzzles the main engine cannot solve are handed.
+     *
+     * @param fallbackEngineType The fallback engine type, or null for none (the default).
+     * @return These options.
+     */
+    public ProcessorOptions fallbackEngine(EngineType fallbackEngineType) {
+        this.fallbackEngineType = fallbackEngineType;
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads solving puzzles concurrently.
+     * User help always runs on a single thread.
+     *
+     * @param threads The number of threads (1 by default).
+     * @return These options.
+     */
+    public ProcessorOptions threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads splitting the search of each puzzle the rule engine's search solves.
+     * Above 1, the searches of all worker threads share a fork-join pool of that many threads,
+     * which cuts the latency of hard puzzles rather than raising the throughput.
+     *
+     * @param searchThreads The number of search threads (1 by default, searching on the worker thread).
+     * @return These options.
+     */
+    public ProcessorOptions searchThreads(int searchThreads) {
+        if (searchThreads < 1) {
+            throw new IllegalArgumentException("The number of search threads must be at least 1");
+        }
+        this.searchThreads = searchThreads;
+        return this;
+    }
+
+    /**
+     * Sets the number of solutions up to which the solutions of each puzzle are counted after it is solved,
+     * e.g. 2 to check that every puzzle has a unique solution. Counting searches the whole tree of the puzzle
+     * whatever the engine configuration, and its result is added to each output line and to the statistics.
+     *
+     * @param solutionLimit The maximum number of solutions to count, or 0 not to count them (the default).
+     * @return These options.
+     */
+    public ProcessorOptions solutionLimit(int solutionLimit) {
+        if (solutionLimit < 0) {
+            throw new IllegalArgumentException("The solution limit cannot be negative");
+        }
+        this.solutionLimit = solutionLimit;
+        return this;
+    }
+
+    /**
+     * Sets whether each puzzle is also given a numeric rating by a DifficultyRater, which takes the simplest
+     * step at a time. The rating is added to each output line and to the statistics.
+     *
+     * @param numericRating True to rate the puzzles.
+     * @return These options.
+     */
+    public ProcessorOptions numericRating(boolean numericRating) {
+        this.numericRating = numericRating;
+        return this;
+    }
+
+    /**
+     * Sets the file receiving the result of each puzzle, in input order.
+     *
+     * @param outputFile The output file name, "-" for the standard output, or null to write no results (the default).
+     * @return These options.
+     */
+    public ProcessorOptions output(String outputFile) {
+        this.outputFile = outputFile;
+        return this;
+    }
+
+    /**
+     * Sets the format of the output file.
+     *
+     * @param outputFormat The output format (TEXT by default).
+     * @return These options.
+     */
+    public ProcessorOptions outputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of results cached by canonical form, so that puzzles equivalent up to symmetry
+     * are solved once. The cache is not used with user help.
+     *
+     * @param cacheSize The maximum number of cached results, or 0 to disable the cache (the default).
+     * @return These options.
+     */
+    public ProcessorOptions cacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative");
+        }
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    /**
+     * Sets a file storing the results across runs, so that the puzzles solved by a previous run with the same
+     * engine configuration are not solved again. The store is not used with user help.
+     *
+     * @param resultStore The file of the result store, created if needed, or null for none (the default).
+     * @return These options.
+     */
+    public ProcessorOptions resultStore(String resultStore) {
+        this.resultStore = resultStore;
+        return this;
+    }
+
+    /**
+     * Sets whether the statistics of the run are logged when the file is processed.
+     *
+     * @param logStatistics True to log the statistics (the default).
+     * @return These options.
+     */
+    public ProcessorOptions logStatistics(boolean logStatistics) {
+        this.logStatistics = logStatistics;
+        return this;
+    }
+
+    public boolean isUserHelp() {
+        return userHelp;
+    }
+
+    public boolean isSearchEnabled() {
+        return searchEnabled;
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    public EngineType getEngineType() {
+        return engineType;
+    }
+
+    public EngineType getFallbackEngineType() {
+        return fallbackEngineType;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    public int getSolutionLimit() {
+        return solutionLimit;
+    }
+
+    public boolean isNumericRating() {
+        return numericRating;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public String getResultStore() {
+        return resultStore;
+    }
+
+    public boolean isLogStatistics() {
+        return logStatistics;
+    }
+}
@@ -0,0 +1,234 @@
+package App;
+
+import Rules.Rating;
+import Utils.Difficulty;
+import Utils.SolverResult;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity batch of consecutive puzzles and their results, stored in flat arrays.
+ * Batches are the unit of work handed to the solving threads and are recycled once their results are consumed.
+ * A batch grows beyond its initial capacity if needed, so it can hold every puzzle of an input chunk.
+ */
+public class PuzzleBatch {
+
+    private final int cellCount; // Number of values per puzzle
+    private int capacity;
+    private int[] puzzles; // One value per cell of each puzzle, -1 for empty cells
+    private int[] solutions; // One value per cell of each puzzle, as left by the engine
+    private Difficulty[] difficulties;
+    private boolean[] solved;
+    private int[] solutionCounts; // -1 when the solutions are not counted
+    private Rating[] ratings; // Null when the puzzles are not rated
+    private ByteBuffer output; // Encoded results, allocated on first use
+    private int size;
+
+    /**
+     * Constructs an empty PuzzleBatch of 9x9 puzzles.
+     *
+     * @param capacity The maximum number of puzzles in the batch.
+     */
+    public PuzzleBatch(int capacity) {
+        this(capacity, 81);
+    }
+
+    /**
+     * Constructs an empty PuzzleBatch.
+     *
+     * @param capacity  The maximum number of puzzles in the batch.
+     * @param cellCount The number of cells of each puzzle.
+     */
+    public PuzzleBatch(int capacity, int cellCount) {
+        this.cellCount = cellCount;
+        this.capacity = capacity;
+        this.puzzles = new int[capacity * cellCount];
+        this.solutions = new int[capacity * cellCount];
+        this.difficulties = new Difficulty[capacity];
+        this.solved = new boolean[capacity];
+        this.solutionCounts = new int[capacity];
+        this.ratings = new Rating[capacity];
+    }
+
+    /**
+     * Empties the batch so it can be reused.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of values of each puzzle, which is also the stride of the puzzle and solution arrays.
+     *
+     * @return The number of cells of a puzzle, 81 for 9x9 puzzles.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Appends a puzzle slot to the batch, to be filled through {@link #getPuzzles()}.
+     * The batch doubles its capacity when it is full, so the puzzle array must be fetched after this call.
+     *
+     * @return The offset of the new puzzle's values in the puzzle array.
+     */
+    public int addPuzzle() {
+        if (size == capacity) {
+            grow();
+        }
+        return size++ * cellCount;
+    }
+
+    /**
+     * Removes the last puzzle slot, e.g. when no puzzle could be read into it.
+     */
+    public void removeLastPuzzle() {
+        size--;
+    }
+
+    /**
+     * Doubles the capacity of the batch, keeping its content.
+     */
+    private void grow() {
+        capacity *= 2;
+        puzzles = Arrays.copyOf(puzzles, capacity * cellCount);
+        solutions = Arrays.copyOf(solutions, capacity * cellCount);
+        difficulties = Arrays.copyOf(difficulties, capacity);
+        solved = Arrays.copyOf(solved, capacity);
+        solutionCounts = Arrays.copyOf(solutionCounts, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+    }
+
+    /**
+     * Gets the flat array of puzzle values, {@link #getCellCount()} per puzzle.
+     *
+     * @return The puzzle array.
+     */
+    public int[] getPuzzles() {
+        return puzzles;
+    }
+
+    /**
+     * Copies the values of a puzzle into an array of one integer per cell.
+     *
+     * @param index       The index of the puzzle in the batch.
+     * @param destination The array receiving the values.
+     */
+    public void copyPuzzle(int index, int[] destination) {
+        System.arraycopy(puzzles, index * cellCount, destination, 0, cellCount);
+    }
+
+    /**
+     * Stores the result of a puzzle.
+     *
+     * @param index  The index of the puzzle in the batch.
+     * @param result The result returned by the engine.
+     */
+    public void setResult(int index, SolverResult result) {
+        result.grid().copyValues(solutions, index * cellCount);
+        difficulties[index] = result.difficulty();
+        solved[index] = result.isSolved();
+        solutionCounts[index] = -1;
+        ratings[index] = null;
+    }
+
+    /**
+     * Stores the number of solutions of a puzzle, once its result is stored.
+     *
+     * @param index         The index of the puzzle in the batch.
+     * @param solutionCount The number of solutions found, up to the solution limit.
+     */
+    public void setSolutionCount(int index, int solutionCount) {
+        solutionCounts[index] = solutionCount;
+    }
+
+    /**
+     * Copies the final grid values of a puzzle into an array of one integer per cell.
+     *
+     * @param index       The index of the puzzle in the batch.
+     * @param destination The array receiving the values.
+     */
+    public void copySolution(int index, int[] destination) {
+        System.arraycopy(solutions, index * cellCount, destination, 0, cellCount);
+    }
+
+    /**
+     * Gets the buffer receiving the encoded results of the batch, cleared and large enough for the given size.
+     * The buffer is kept with the batch and reused when the batch is recycled.
+     *
+     * @param capacity The minimum capacity in bytes.
+     * @return The cleared output buffer.
+     */
+    public ByteBuffer prepareOutput(int capacity) {
+        if (output == null || output.capacity() < capacity) {
+            output = ByteBuffer.allocateDirect(capacity);
+        }
+        output.clear();
+        return output;
+    }
+
+    /**
+     * Gets the buffer holding the encoded results of the batch, as left by the encoder.
+     *
+     * @return The output buffer.
+     */
+    public ByteBuffer getOutput() {
+        return output;
+    }
+
+    /**
+     * Gets the flat array of final grid values, {@link #getCellCount()} per puzzle.
+     *
+     * @return The solution array.
+     */
+    public int[] getSolutions() {
+        return solutions;
+    }
+
+    public Difficulty getDifficulty(int index) {
+        return difficulties[index];
+    }
+
+    public boolean isSolved(int index) {
+        return solved[index];
+    }
+
+    /**
+     * Stores the numeric rating of a puzzle, once its result is stored.
+     *
+     * @param index  The index of the puzzle in the batch.
+     * @param rating The rating of the puzzle.
+     */
+    public void setRating(int index, Rating rating) {
+        ratings[index] = rating;
+    }
+
+    /**
+     * Gets the numeric rating of a puzzle.
+     *
+     * @param index The index of the puzzle in the batch.
+     * @return The rating, or null if the puzzle was not rated.
+     */
+    public Rating getRating(int index) {
+        return ratings[index];
+    }
+
+    /**
+     * Gets the number of solutions of a puzzle.
+     *
+     * @param index The index of the puzzle in the batch.
+     * @return The number of solutions found, up to the solution limit, or -1 if they were not counted.
+     */
+    public int getSolutionCount(int index) {
+        return solutionCounts[index];
+    }
+}
@@ -0,0 +1,275 @@
+package App;
+
+import Engines.BitboardEngine;
+import Engines.SudokuEngine;
+import Engines.SudokuEngineFactory;
+import Engines.SudokuEngineFactory.EngineType;
+import IO.Logger;
+import IO.SolutionWriter;
+import Utils.Difficulty;
+import Utils.Geometry;
+import Utils.SolverResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates random 9x9 puzzles of a target difficulty, rated by the deduction rules of the rule engine.
+ * <p>
+ * Each attempt fills the three diagonal boxes with random permutations, which never conflict, and completes
+ * the grid with the bitboard engine. It then removes the clues in a random order, keeping a clue removed only if
+ * the rule engine, without search, still solves the puzzle at the target difficulty or below. Deduction rules only
+ * place values every solution shares, so a puzzle they solve has a unique solution, and the rating doubles as the
+ * uniqueness check. A clue whose cell is left a naked single by the other clues is removed without rating,
+ * which skips most of the solves while the grid is still full. Clues are removed until none can be, so most attempts
+ * end at the target, the hardest difficulty allowed; the final puzzle is rated once more, and attempts rated
+ * below the target are rejected and a new grid is drawn.
+ * <p>
+ * Each puzzle draws from its own random generator, seeded from the seed of the generator and the number of the
+ * puzzle, so the same seed always generates the same puzzles whatever the number of threads. Worker threads
+ * generate blocks of consecutive puzzles, which are written in order, one line per puzzle: its 81 cells, '.' for
+ * empty ones, then its difficulty. The lines are read back as puzzles by SudokuFileProcessor, which ignores
+ * everything after the last cell.
+ */
+public class PuzzleGenerator {
+
+    private static final int BLOCK_SIZE = 256; // Puzzles generated at once by a worker thread
+    private static final int CELL_COUNT = 81;
+    private static final int LINE_SIZE = CELL_COUNT + 1 + 6 + 1; // Cells, space, difficulty name and line break
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final byte[][] DIFFICULTY_NAMES = new byte[Difficulty.values().length][];
+
+    static {
+        for (Difficulty difficulty : Difficulty.values()) {
+            DIFFICULTY_NAMES[difficulty.ordinal()] = difficulty.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Difficulty target;
+    private final int threads;
+    private final long seed;
+    private final LongAdder attempts = new LongAdder();
+
+    /**
+     * Constructs a PuzzleGenerator.
+     *
+     * @param target  The difficulty of the puzzles: EASY, MEDIUM or HARD.
+     * @param threads The number of worker threads.
+     * @param seed    The seed of the random generators; the same seed always generates the same puzzles.
+     * @throws IllegalArgumentException If the difficulty is not a rule difficulty or the number of threads is
+     *                                  below 1.
+     */
+    public PuzzleGenerator(Difficulty target, int threads, long seed) {
+        if (target != Difficulty.EASY && target != Difficulty.MEDIUM && target != Difficulty.HARD) {
+            throw new IllegalArgumentException("Only easy, medium and hard puzzles can be generated");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.target = target;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates puzzles and writes them in order, the same puzzles for the same seed whatever the number of
+     * threads.
+     *
+     * @param count  The number of puzzles to generate.
+     * @param writer The writer receiving the puzzles, one line per puzzle.
+     * @return The number of puzzles generated.
+     * @throws IOException If the puzzles cannot be written.
+     */
+    public long generate(long count, SolutionWriter writer) throws IOException {
+        Logger.info("Generating %d %s puzzles on %d thread(s)...", count, target, threads);
+        long startTime = System.currentTimeMillis();
+        long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        if (threads == 1) {
+            Worker worker = new Worker();
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE * LINE_SIZE);
+            for (long block = 0; block < blocks; block++) {
+                writer.write(worker.generateBlock(block, count, buffer));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+                ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+                ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+                int maxPending = threads * 2;
+                for (long block = 0; block < blocks; block++) {
+                    ByteBuffer buffer = freeBuffers.isEmpty()
+                            ? ByteBuffer.allocate(BLOCK_SIZE * LINE_SIZE) : freeBuffers.poll();
+                    long blockIndex = block;
+                    pending.add(executor.submit(() -> workers.get().generateBlock(blockIndex, count, buffer)));
+                    if (pending.size() >= maxPending) {
+                        ByteBuffer done = pending.poll().get();
+                        writer.write(done);
+                        freeBuffers.add(done);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    writer.write(pending.poll().get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Generation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Generation failed", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+        Logger.success("Generated %d %s puzzles in %d ms (%.0f puzzles/s, %.1f%% of %d attempts accepted).",
+                count, target, elapsedTime, count * 1000.0 / elapsedTime,
+                count * 100.0 / Math.max(1, getAttempts()), getAttempts());
+        return count;
+    }
+
+    /**
+     * Gets the seed of the random generator of a puzzle, mixing the seed of the generator with the number
+     * of the puzzle so that the generators of consecutive puzzles are unrelated.
+     *
+     * @param index The number of the puzzle, from 0.
+     * @return The seed of the puzzle.
+     */
+    private long getPuzzleSeed(long index) {
+        long z = seed + (index + 1) * GOLDEN_GAMMA;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Gets the number of grids drawn so far, accepted or rejected.
+     *
+     * @return The number of attempts.
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * The engines, random generator and buffers of one worker thread.
+     */
+    private final class Worker {
+
+        private SplittableRandom random; // The generator of the current puzzle
+        private final BitboardEngine filler = new BitboardEngine();
+        private final SudokuEngine rater = SudokuEngineFactory.createEngine(EngineType.RULES, false, false);
+        private final int[] grid = new int[CELL_COUNT]; // The complete grid of the attempt
+        private final int[] puzzle = new int[CELL_COUNT]; // The puzzle being reduced
+        private final int[] order = new int[CELL_COUNT]; // The cells in removal order
+        private final int[] digits = new int[9];
+
+        /**
+         * Generates a block of consecutive puzzles.
+         *
+         * @param block  The number of the block, from 0.
+         * @param count  The number of puzzles to generate over all the blocks.
+         * @param buffer The buffer receiving the lines of the puzzles, with room for a whole block.
+         * @return The buffer, flipped for writing.
+         */
+        ByteBuffer generateBlock(long block, long count, ByteBuffer buffer) {
+            buffer.clear();
+            long end = Math.min(count, (block + 1) * BLOCK_SIZE);
+            for (long index = block * BLOCK_SIZE; index < end; index++) {
+                random = new SplittableRandom(getPuzzleSeed(index));
+                Difficulty difficulty;
+                do {
+                    difficulty = generatePuzzle();
+                } while (difficulty != target);
+
+                for (int value : puzzle) {
+                    buffer.put(value > 0 ? (byte) Geometry.getSymbol(value) : (byte) '.');
+                }
+                buffer.put((byte) ' ').put(DIFFICULTY_NAMES[difficulty.ordinal()]).put((byte) '\n');
+            }
+            return buffer.flip();
+        }
+
+        /**
+         * Draws a complete grid and removes as many clues as the target difficulty allows.
+         *
+         * @return The difficulty of the puzzle left in the puzzle array, at most the target.
+         */
+        private Difficulty generatePuzzle() {
+            attempts.increment();
+            fillGrid();
+            System.arraycopy(grid, 0, puzzle, 0, CELL_COUNT);
+            shuffle(order, CELL_COUNT);
+
+            for (int cellIndex : order) {
+                puzzle[cellIndex] = -1;
+                if (isNakedSingle(cellIndex)) {
+                    continue; // The cell is forced, so the puzzle keeps its solutions and its hardest step
+                }
+                SolverResult result = rater.solve(puzzle);
+                if (!result.isSolved() || result.difficulty().ordinal() > target.ordinal()) {
+                    puzzle[cellIndex] = grid[cellIndex];
+                }
+            }
+            SolverResult result = rater.solve(puzzle);
+            return result.isSolved() ? result.difficulty() : Difficulty.IMPOSSIBLE;
+        }
+
+        /**
+         * Checks if the clues of the puzzle in the row, column and box of a cell hold every value but one.
+         *
+         * @param cellIndex The index of the empty cell.
+         * @return True if the cell has a single candidate; false otherwise.
+         */
+        private boolean isNakedSingle(int cellIndex) {
+            int row = cellIndex / 9;
+            int column = cellIndex % 9;
+            int boxStart = row / 3 * 27 + column / 3 * 3;
+            int seen = 0;
+            for (int i = 0; i < 9; i++) {
+                seen |= 1 << puzzle[row * 9 + i];
+                seen |= 1 << puzzle[i * 9 + column];
+                seen |= 1 << puzzle[boxStart + i / 3 * 9 + i % 3];
+            }
+            return Integer.bitCount(seen & 0x3FE) == 8; // Bits 1-9; empty cells set the sign bit
+        }
+
+        /**
+         * Fills the grid array with a random complete grid.
+         */
+        private void fillGrid() {
+            Arrays.fill(puzzle, -1);
+            for (int box = 0; box < 3; box++) {
+                shuffle(digits, 9);
+                for (int i = 0; i < 9; i++) {
+                    puzzle[(box * 3 + i / 3) * 9 + box * 3 + i % 3] = digits[i] + 1;
+                }
+            }
+            filler.solve(puzzle, grid);
+        }
+
+        /**
+         * Fills an array with a random permutation of 0 to length - 1.
+         *
+         * @param values The array receiving the permutation.
+         * @param length The number of values to permute.
+         */
+        private void shuffle(int[] values, int length) {
+            for (int i = 0; i < length; i++) {
+                int j = random.nextInt(i + 1);
+                values[i] = values[j];
+                values[j] = i;
+            }
+        }
+    }
+}
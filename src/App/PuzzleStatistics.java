@@ -0,0 +1,268 @@
+package App;
+
+import Rules.Rating;
+import Rules.StepType;
+import Utils.Difficulty;
+import Utils.SolverResult;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the puzzles processed, solved and found at each difficulty level, and, when their solutions are counted,
+ * the puzzles with no solution, a unique solution or several solutions. When the puzzles are rated, it also keeps
+ * the distribution of the ratings and the number of steps of each type.
+ * Counters are LongAdders, so worker threads can record results concurrently without contention.
+ */
+public class PuzzleStatistics {
+
+    private final LongAdder totalPuzzles = new LongAdder();
+    private final LongAdder solvedPuzzles = new LongAdder();
+    private final LongAdder[] difficultyCounts = new LongAdder[Difficulty.values().length];
+    private final LongAdder countedPuzzles = new LongAdder();
+    private final LongAdder noSolutionPuzzles = new LongAdder();
+    private final LongAdder uniqueSolutionPuzzles = new LongAdder();
+    private final LongAdder ratedPuzzles = new LongAdder();
+    private final LongAdder incompleteRatings = new LongAdder();
+    private final LongAdder ratingTenthsSum = new LongAdder(); // Sum of the complete ratings, in tenths
+    private final LongAccumulator maxRatingTenths = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] hardestStepCounts = new LongAdder[StepType.values().length];
+    private final LongAdder[] stepCounts = new LongAdder[StepType.values().length];
+
+    public PuzzleStatistics() {
+        for (int i = 0; i < difficultyCounts.length; i++) {
+            difficultyCounts[i] = new LongAdder();
+        }
+        for (int i = 0; i < stepCounts.length; i++) {
+            hardestStepCounts[i] = new LongAdder();
+            stepCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the result of a puzzle.
+     *
+     * @param result The result of solving the puzzle.
+     */
+    public void record(SolverResult result) {
+        totalPuzzles.increment();
+        if (result.isSolved()) {
+            solvedPuzzles.increment();
+        }
+        difficultyCounts[result.difficulty().ordinal()].increment();
+    }
+
+    /**
+     * Records the number of solutions of a puzzle.
+     *
+     * @param solutionCount The number of solutions found, up to the solution limit.
+     */
+    public void recordSolutionCount(int solutionCount) {
+        countedPuzzles.increment();
+        if (solutionCount == 0) {
+            noSolutionPuzzles.increment();
+        } else if (solutionCount == 1) {
+            uniqueSolutionPuzzles.increment();
+        }
+    }
+
+    /**
+     * Records the numeric rating of a puzzle.
+     *
+     * @param rating The rating of the puzzle.
+     */
+    public void recordRating(Rating rating) {
+        ratedPuzzles.increment();
+        for (StepType stepType : StepType.values()) {
+            int count = rating.getStepCount(stepType);
+            if (count > 0) {
+                stepCounts[stepType.ordinal()].add(count);
+            }
+        }
+        if (!rating.isComplete()) {
+            incompleteRatings.increment();
+            return;
+        }
+        ratingTenthsSum.add(rating.scoreTenths());
+        maxRatingTenths.accumulate(rating.scoreTenths());
+        if (rating.hardestStep() != null) {
+            hardestStepCounts[rating.hardestStep().ordinal()].increment();
+        }
+    }
+
+    /**
+     * Gets the number of puzzles processed.
+     *
+     * @return The total number of puzzles.
+     */
+    public long getTotalPuzzles() {
+        return totalPuzzles.sum();
+    }
+
+    /**
+     * Gets the number of puzzles solved.
+     *
+     * @return The number of solved puzzles.
+     */
+    public long getSolvedPuzzles() {
+        return solvedPuzzles.sum();
+    }
+
+    /**
+     * Gets the number of puzzles found at a difficulty level.
+     *
+     * @param difficulty The difficulty level.
+     * @return The number of puzzles with that difficulty.
+     */
+    public long getCount(Difficulty difficulty) {
+        return difficultyCounts[difficulty.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of puzzles whose solutions were counted and found to be none.
+     *
+     * @return The number of puzzles with no solution.
+     */
+    public long getNoSolutionPuzzles() {
+        return noSolutionPuzzles.sum();
+    }
+
+    /**
+     * Gets the number of puzzles whose solutions were counted and found to be exactly one.
+     * With a solution limit of 1, these puzzles have at least one solution.
+     *
+     * @return The number of puzzles with a unique solution.
+     */
+    public long getUniqueSolutionPuzzles() {
+        return uniqueSolutionPuzzles.sum();
+    }
+
+    /**
+     * Gets the number of puzzles whose solutions were counted and found to be several.
+     *
+     * @return The number of puzzles with more than one solution.
+     */
+    public long getMultipleSolutionPuzzles() {
+        return countedPuzzles.sum() - noSolutionPuzzles.sum() - uniqueSolutionPuzzles.sum();
+    }
+
+    /**
+     * Checks if the solutions of any puzzle were counted.
+     *
+     * @return True if solution counts were recorded; false otherwise.
+     */
+    public boolean hasSolutionCounts() {
+        return countedPuzzles.sum() > 0;
+    }
+
+    /**
+     * Gets the number of puzzles given a numeric rating, including those the deduction rules could not solve.
+     *
+     * @return The number of rated puzzles.
+     */
+    public long getRatedPuzzles() {
+        return ratedPuzzles.sum();
+    }
+
+    /**
+     * Gets the number of rated puzzles the deduction rules could not solve, whose rating is only a lower bound.
+     *
+     * @return The number of incomplete ratings.
+     */
+    public long getIncompleteRatings() {
+        return incompleteRatings.sum();
+    }
+
+    /**
+     * Gets the mean rating of the puzzles the deduction rules solved.
+     *
+     * @return The mean rating, or 0 if no puzzle was fully rated.
+     */
+    public double getMeanRating() {
+        long complete = getRatedPuzzles() - getIncompleteRatings();
+        return complete == 0 ? 0 : ratingTenthsSum.sum() / 10.0 / complete;
+    }
+
+    /**
+     * Gets the highest rating of the puzzles the deduction rules solved.
+     *
+     * @return The highest rating, or 0 if no puzzle was fully rated.
+     */
+    public double getMaxRating() {
+        return maxRatingTenths.get() / 10.0;
+    }
+
+    /**
+     * Gets the number of fully rated puzzles whose hardest step is of a type, i.e. the histogram of the ratings.
+     *
+     * @param stepType The type of step.
+     * @return The number of puzzles rated with the score of that step type.
+     */
+    public long getHardestStepCount(StepType stepType) {
+        return hardestStepCounts[stepType.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of steps of a type taken over all the rated puzzles.
+     *
+     * @param stepType The type of step.
+     * @return The number of steps.
+     */
+    public long getStepCount(StepType stepType) {
+        return stepCounts[stepType.ordinal()].sum();
+    }
+
+    /**
+     * Formats the statistics as a single-line JSON object, for scripts.
+     *
+     * @param elapsedMillis The duration of the run in milliseconds.
+     * @return The JSON object.
+     */
+    public String toJson(long elapsedMillis) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"puzzles\":").append(getTotalPuzzles())
+                .append(",\"solved\":").append(getSolvedPuzzles())
+                .append(",\"difficulties\":{");
+        for (Difficulty difficulty : Difficulty.values()) {
+            if (difficulty.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(difficulty).append("\":").append(getCount(difficulty));
+        }
+        json.append('}');
+        if (hasSolutionCounts()) {
+            json.append(",\"solutions\":{\"none\":").append(getNoSolutionPuzzles())
+                    .append(",\"unique\":").append(getUniqueSolutionPuzzles())
+                    .append(",\"multiple\":").append(getMultipleSolutionPuzzles()).append('}');
+        }
+        if (getRatedPuzzles() > 0) {
+            json.append(",\"ratings\":{\"rated\":").append(getRatedPuzzles())
+                    .append(",\"incomplete\":").append(getIncompleteRatings())
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.2f", getMeanRating()))
+                    .append(",\"max\":").append(getMaxRating())
+                    .append(",\"hardestSteps\":{");
+            appendStepCounts(json, true);
+            json.append("},\"steps\":{");
+            appendStepCounts(json, false);
+            json.append("}}");
+        }
+        return json.append(",\"elapsedMillis\":").append(elapsedMillis).append('}').toString();
+    }
+
+    /**
+     * Appends the count of each step type as JSON members.
+     *
+     * @param json    The JSON being built.
+     * @param hardest True for the number of puzzles whose hardest step is of each type; false for the steps.
+     */
+    private void appendStepCounts(StringBuilder json, boolean hardest) {
+        for (StepType stepType : StepType.values()) {
+            if (stepType.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(stepType).append("\":")
+                    .append(hardest ? getHardestStepCount(stepType) : getStepCount(stepType));
+        }
+    }
+}
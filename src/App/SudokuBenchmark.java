@@ -0,0 +1,441 @@
+package App;
+
+import Engines.SudokuEngine;
+import Engines.SudokuEngineFactory;
+import Engines.SudokuEngineFactory.EngineType;
+import IO.Logger;
+import IO.PuzzleChunk;
+import IO.PuzzleSource;
+import IO.PuzzleSourceFactory;
+import Utils.Difficulty;
+import Utils.SolverResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks the engines on a corpus of puzzles loaded once into memory.
+ * <p>
+ * The puzzles are first rated by the rule engine, so the latencies of every engine are broken down by the same
+ * difficulty levels. Each engine then solves the whole corpus in warm-up passes, which let the JIT compile its
+ * hot paths, and in measured passes timing every puzzle. Worker threads take blocks of puzzles from a shared
+ * counter and write the latency of each puzzle to its own slot, so the measurement does not synchronize them.
+ */
+public class SudokuBenchmark {
+
+    private static final int BLOCK_SIZE = 64; // Puzzles taken at once by a worker thread
+    private static final int CHUNK_SIZE = 1024; // Puzzles per chunk when loading the corpus
+
+    private final int warmupPasses;
+    private final int passes;
+    private final int threads;
+    private final boolean searchEnabled;
+    private String corpus;
+    private int[] puzzles = new int[0]; // 81 values per puzzle
+    private int size;
+    private Difficulty[] ratings; // Difficulty of each puzzle according to the rule engine
+
+    /**
+     * Constructs a SudokuBenchmark.
+     *
+     * @param warmupPasses  The number of untimed passes over the corpus before measuring each engine.
+     * @param passes        The number of timed passes over the corpus for each engine.
+     * @param threads       The number of worker threads.
+     * @param searchEnabled Whether the rule engine falls back to a backtracking search when its rules are stuck.
+     */
+    public SudokuBenchmark(int warmupPasses, int passes, int threads, boolean searchEnabled) {
+        if (warmupPasses < 0 || passes < 1 || threads < 1) {
+            throw new IllegalArgumentException("Invalid number of passes or threads");
+        }
+        this.warmupPasses = warmupPasses;
+        this.passes = passes;
+        this.threads = threads;
+        this.searchEnabled = searchEnabled;
+    }
+
+    /**
+     * Loads the puzzles of a file into memory, then rates each of them with the rule engine.
+     *
+     * @param filename The name of the text or binary puzzle file, or "-" for the standard input.
+     * @return The number of puzzles loaded.
+     * @throws IOException If the file cannot be read.
+     */
+    public int loadCorpus(String filename) throws IOException {
+        Logger.info("Loading Sudoku puzzles from %s...", filename);
+        corpus = filename;
+        size = 0;
+        try (PuzzleSource source = PuzzleSourceFactory.openSource(filename, CHUNK_SIZE)) {
+            PuzzleChunk chunk;
+            while ((chunk = source.nextChunk()) != null) {
+                while (true) {
+                    if ((size + 1) * 81 > puzzles.length) {
+                        puzzles = Arrays.copyOf(puzzles, Math.max(puzzles.length * 2, CHUNK_SIZE * 81));
+                    }
+                    if (!chunk.nextPuzzle(puzzles, size * 81)) {
+                        break;
+                    }
+                    size++;
+                }
+            }
+        }
+
+        Logger.info("Rating %d puzzles with the rule engine...", size);
+        ratings = new Difficulty[size];
+        ExecutorService executor = createExecutor();
+        try {
+            runPass(executor, createEngines(EngineType.RULES), null, 0, ratings);
+        } finally {
+            shutdown(executor);
+        }
+        return size;
+    }
+
+    /**
+     * Benchmarks engines on the loaded corpus, one after the other.
+     *
+     * @param engineTypes The engines to benchmark.
+     * @return The report of each engine, in the same order.
+     */
+    public List<EngineReport> run(List<EngineType> engineTypes) {
+        List<EngineReport> reports = new ArrayList<>();
+        for (EngineType engineType : engineTypes) {
+            reports.add(run(engineType));
+        }
+        return reports;
+    }
+
+    /**
+     * Benchmarks an engine on the loaded corpus.
+     *
+     * @param engineType The engine to benchmark.
+     * @return The report of the engine.
+     */
+    public EngineReport run(EngineType engineType) {
+        Logger.info("Benchmarking %s: %d warm-up and %d measured passes over %d puzzles on %d thread(s)...",
+                engineType, warmupPasses, passes, size, threads);
+        SudokuEngine[] engines = createEngines(engineType);
+        Difficulty[] difficulties = new Difficulty[size];
+        long[] latencies = new long[size * passes];
+        long elapsedNanos = 0;
+        ExecutorService executor = createExecutor();
+        try {
+            for (int pass = 0; pass < warmupPasses; pass++) {
+                runPass(executor, engines, null, 0, difficulties);
+            }
+            for (int pass = 0; pass < passes; pass++) {
+                elapsedNanos += runPass(executor, engines, latencies, pass * size, difficulties);
+            }
+        } finally {
+            shutdown(executor);
+        }
+
+        int solved = 0;
+        for (Difficulty difficulty : difficulties) {
+            if (difficulty != Difficulty.IMPOSSIBLE) {
+                solved++;
+            }
+        }
+        double puzzlesPerSecond = elapsedNanos == 0 ? 0 : (double) size * passes * 1e9 / elapsedNanos;
+
+        // Group the latencies by rating before the array is sorted for the overall percentiles
+        int[] counts = new int[Difficulty.values().length];
+        for (Difficulty rating : ratings) {
+            counts[rating.ordinal()] += passes;
+        }
+        List<LatencySummary> byDifficulty = new ArrayList<>();
+        for (Difficulty difficulty : Difficulty.values()) {
+            if (counts[difficulty.ordinal()] == 0) {
+                continue;
+            }
+            long[] selected = new long[counts[difficulty.ordinal()]];
+            int count = 0;
+            for (int index = 0; index < latencies.length; index++) {
+                if (ratings[index % size] == difficulty) {
+                    selected[count++] = latencies[index];
+                }
+            }
+            byDifficulty.add(LatencySummary.of(difficulty, selected, passes));
+        }
+        return new EngineReport(engineType, solved, elapsedNanos, puzzlesPerSecond,
+                LatencySummary.of(null, latencies, passes), byDifficulty);
+    }
+
+    /**
+     * Creates one engine per worker thread, since engines must not be shared between threads.
+     *
+     * @param engineType The type of the engines.
+     * @return The engines.
+     */
+    private SudokuEngine[] createEngines(EngineType engineType) {
+        SudokuEngine[] engines = new SudokuEngine[threads];
+        for (int i = 0; i < threads; i++) {
+            engines[i] = SudokuEngineFactory.createEngine(engineType, false, searchEnabled);
+        }
+        return engines;
+    }
+
+    /**
+     * Creates the worker threads, kept for all the passes of an engine so that the threads and their
+     * per-thread solve state are not created again for every pass.
+     *
+     * @return The worker threads, or null to solve on the calling thread.
+     */
+    private ExecutorService createExecutor() {
+        return threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    /**
+     * Stops the worker threads.
+     *
+     * @param executor The worker threads, or null if there are none.
+     */
+    private static void shutdown(ExecutorService executor) {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Solves every puzzle of the corpus once.
+     *
+     * @param executor     The worker threads, or null to solve on the calling thread.
+     * @param engines      The engine of each worker thread.
+     * @param latencies    The array receiving the time taken by each puzzle in nanoseconds, or null.
+     * @param offset       The position in the latency array of the first puzzle.
+     * @param difficulties The array receiving the difficulty of each puzzle, IMPOSSIBLE if it is not solved.
+     * @return The duration of the pass in nanoseconds.
+     */
+    private long runPass(ExecutorService executor, SudokuEngine[] engines, long[] latencies, int offset,
+                         Difficulty[] difficulties) {
+        AtomicInteger next = new AtomicInteger();
+        long startTime = System.nanoTime();
+        if (executor == null) {
+            solvePuzzles(engines[0], next, latencies, offset, difficulties);
+            return System.nanoTime() - startTime;
+        }
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (SudokuEngine engine : engines) {
+                workers.add(executor.submit(() -> solvePuzzles(engine, next, latencies, offset, difficulties)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return System.nanoTime() - startTime;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Benchmark interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Benchmark failed", e.getCause());
+        }
+    }
+
+    /**
+     * Solves blocks of puzzles taken from a shared counter until the corpus is exhausted.
+     *
+     * @param engine       The engine of the current thread.
+     * @param next         The index of the next block of puzzles.
+     * @param latencies    The array receiving the time taken by each puzzle in nanoseconds, or null.
+     * @param offset       The position in the latency array of the first puzzle.
+     * @param difficulties The array receiving the difficulty of each puzzle, IMPOSSIBLE if it is not solved.
+     */
+    private void solvePuzzles(SudokuEngine engine, AtomicInteger next, long[] latencies, int offset,
+                              Difficulty[] difficulties) {
+        int[] values = new int[81];
+        int start;
+        while ((start = next.getAndAdd(BLOCK_SIZE)) < size) {
+            int end = Math.min(start + BLOCK_SIZE, size);
+            for (int index = start; index < end; index++) {
+                System.arraycopy(puzzles, index * 81, values, 0, 81);
+                long solveStart = System.nanoTime();
+                SolverResult result = engine.solve(values);
+                long solveTime = System.nanoTime() - solveStart;
+                if (latencies != null) {
+                    latencies[offset + index] = solveTime;
+                }
+                difficulties[index] = result.isSolved() ? result.difficulty() : Difficulty.IMPOSSIBLE;
+            }
+        }
+    }
+
+    /**
+     * Formats reports as a comparison table, one row per engine and difficulty, latencies in microseconds.
+     *
+     * @param reports The reports of the engines.
+     * @return The table.
+     */
+    public static String toTable(List<EngineReport> reports) {
+        StringBuilder table = new StringBuilder(1024);
+        String format = "%-14s %-11s %9s %9s %12s %10s %10s %10s %10s%n";
+        table.append(String.format(Locale.ROOT, format,
+                "Engine", "Difficulty", "Puzzles", "Solved", "Puzzles/s", "p50 us", "p90 us", "p99 us", "max us"));
+        for (EngineReport report : reports) {
+            appendRow(table, format, report.engine().toString(), report.total(),
+                    Integer.toString(report.solved()), String.format(Locale.ROOT, "%.0f", report.puzzlesPerSecond()));
+            for (LatencySummary summary : report.byDifficulty()) {
+                appendRow(table, format, "", summary, "", "");
+            }
+        }
+        return table.toString();
+    }
+
+    /**
+     * Appends a row of the comparison table.
+     *
+     * @param table      The table.
+     * @param format     The format of the rows.
+     * @param engine     The engine column.
+     * @param summary    The latencies of the row.
+     * @param solved     The solved column.
+     * @param throughput The throughput column.
+     */
+    private static void appendRow(StringBuilder table, String format, String engine, LatencySummary summary,
+                                  String solved, String throughput) {
+        table.append(String.format(Locale.ROOT, format, engine,
+                summary.difficulty() == null ? "ALL" : summary.difficulty().toString(),
+                summary.puzzles(), solved, throughput,
+                toMicros(summary.p50()), toMicros(summary.p90()), toMicros(summary.p99()), toMicros(summary.max())));
+    }
+
+    /**
+     * Formats a duration in nanoseconds as microseconds.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @return The duration in microseconds, with one decimal.
+     */
+    private static String toMicros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * Writes reports to a JSON file, with the settings of the run, so the results of builds can be compared.
+     *
+     * @param filename The name of the file.
+     * @param reports  The reports of the engines.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeJson(String filename, List<EngineReport> reports) throws IOException {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"timestamp\":\"").append(Instant.now())
+                .append("\",\"corpus\":\"").append(corpus.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\",\"puzzles\":").append(size)
+                .append(",\"threads\":").append(threads)
+                .append(",\"warmupPasses\":").append(warmupPasses)
+                .append(",\"passes\":").append(passes)
+                .append(",\"searchEnabled\":").append(searchEnabled)
+                .append(",\"javaVersion\":\"").append(System.getProperty("java.version"))
+                .append("\",\"engines\":[");
+        for (int i = 0; i < reports.size(); i++) {
+            EngineReport report = reports.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"engine\":\"").append(report.engine())
+                    .append("\",\"solved\":").append(report.solved())
+                    .append(",\"elapsedNanos\":").append(report.elapsedNanos())
+                    .append(",\"puzzlesPerSecond\":")
+                    .append(String.format(Locale.ROOT, "%.1f", report.puzzlesPerSecond()))
+                    .append(",\"latencies\":{");
+            appendJson(json, report.total());
+            for (LatencySummary summary : report.byDifficulty()) {
+                json.append(',');
+                appendJson(json, summary);
+            }
+            json.append("}}");
+        }
+        json.append("]}\n");
+        Files.writeString(Path.of(filename), json);
+    }
+
+    /**
+     * Appends latencies as a JSON member named after their difficulty.
+     *
+     * @param json    The JSON being built.
+     * @param summary The latencies.
+     */
+    private static void appendJson(StringBuilder json, LatencySummary summary) {
+        json.append('"').append(summary.difficulty() == null ? "ALL" : summary.difficulty().toString())
+                .append("\":{\"puzzles\":").append(summary.puzzles())
+                .append(",\"meanNanos\":").append(summary.mean())
+                .append(",\"p50Nanos\":").append(summary.p50())
+                .append(",\"p90Nanos\":").append(summary.p90())
+                .append(",\"p99Nanos\":").append(summary.p99())
+                .append(",\"maxNanos\":").append(summary.max())
+                .append('}');
+    }
+
+    /**
+     * Results of an engine on the corpus.
+     *
+     * @param engine           The engine.
+     * @param solved           The number of puzzles the engine solved.
+     * @param elapsedNanos     The total duration of the measured passes in nanoseconds.
+     * @param puzzlesPerSecond The number of puzzles solved per second during the measured passes.
+     * @param total            The latencies of all the puzzles.
+     * @param byDifficulty     The latencies of the puzzles of each difficulty rated by the rule engine.
+     */
+    public record EngineReport(EngineType engine, int solved, long elapsedNanos,
+                               double puzzlesPerSecond, LatencySummary total, List<LatencySummary> byDifficulty) {
+    }
+
+    /**
+     * Latency percentiles of a set of solves, in nanoseconds.
+     *
+     * @param difficulty The difficulty of the puzzles, or null for all of them.
+     * @param puzzles    The number of puzzles.
+     * @param mean       The mean latency.
+     * @param p50        The median latency.
+     * @param p90        The 90th percentile.
+     * @param p99        The 99th percentile.
+     * @param max        The highest latency.
+     */
+    public record LatencySummary(Difficulty difficulty, int puzzles, long mean, long p50, long p90, long p99,
+                                 long max) {
+
+        /**
+         * Summarizes latencies, using the nearest-rank percentiles.
+         *
+         * @param difficulty The difficulty of the puzzles, or null for all of them.
+         * @param latencies  The latencies of every measured pass in nanoseconds, sorted in place.
+         * @param passes     The number of measured passes.
+         * @return The summary, all zeros if there is no latency.
+         */
+        static LatencySummary of(Difficulty difficulty, long[] latencies, int passes) {
+            if (latencies.length == 0) {
+                return new LatencySummary(difficulty, 0, 0, 0, 0, 0, 0);
+            }
+            Arrays.sort(latencies);
+            long sum = 0;
+            for (long latency : latencies) {
+                sum += latency;
+            }
+            return new LatencySummary(difficulty, latencies.length / passes, sum / latencies.length,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1]);
+        }
+
+        /**
+         * Gets a percentile of sorted latencies.
+         *
+         * @param latencies The sorted latencies.
+         * @param fraction  The fraction of the latencies at or below the percentile (0-1).
+         * @return The smallest latency such that the fraction of the latencies are at or below it.
+         */
+        private static long percentile(long[] latencies, double fraction) {
+            int rank = (int) Math.ceil(fraction * latencies.length);
+            return latencies[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -1,115 +1,500 @@
 package App;
 
+import Engines.CachingEngine;
+import Engines.FallbackEngine;
+import Engines.StoredResultEngine;
+import Engines.SudokuEngine;
+import Engines.SudokuEngineFactory;
+import Events.ChunkParseEvent;
+import Events.ChunkReadEvent;
+import Events.SolveEvent;
 import IO.Logger;
 import IO.MessageBuilder;
+import IO.OutputFormat;
+import IO.PuzzleChunk;
+import IO.PuzzleSource;
+import IO.PuzzleSourceFactory;
+import IO.ResultStore;
+import IO.SolutionWriter;
+import Rules.DifficultyRater;
+import Rules.Rating;
+import Rules.StepType;
 import Utils.Difficulty;
+import Utils.Geometry;
+import Utils.Grid;
+import Utils.SolutionCache;
 import Utils.SolverResult;
-import Utils.SudokuHandler;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Processes Sudoku puzzles from a file and manages the solving process.
+ * <p>
+ * The file, either text or binary, is memory-mapped and cut into chunks of about one batch. Each chunk is
+ * decoded into a batch and solved by one of a configurable number of worker threads, each with its own engine,
+ * so parsing runs in parallel with no per-puzzle allocation. When an output file is set, each worker also encodes
+ * the results of its batch. Batches are consumed in input order, and the consuming thread only writes the encoded
+ * blocks, so the output keeps the order of the file. Chunk reads, chunk decoding and puzzle solves are recorded
+ * as Flight Recorder events.
+ * <p>
+ * The {@link ProcessorOptions} add optional stages:
+ * <ul>
+ *     <li>a cache shared by the workers answers the puzzles equivalent up to symmetry to an already solved one;</li>
+ *     <li>a result store answers the puzzles solved by previous runs;</li>
+ *     <li>a solution limit makes the workers count the solutions of each puzzle, validating files for uniqueness;</li>
+ *     <li>numeric ratings make each worker rate the puzzles with its own DifficultyRater.</li>
+ * </ul>
+ * Files of 4x4, 16x16 and 25x25 puzzles are solved by the rule engine, without cache or result store.
  */
 public class SudokuFileProcessor {
-    private int totalPuzzles;
-    private int solvedPuzzles;
-    private int impossiblePuzzles;
-    private int easyPuzzles;
-    private int mediumPuzzles;
-    private int hardPuzzles;
-    private int userPuzzles;
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final PuzzleStatistics statistics = new PuzzleStatistics();
 
     /**
      * Processes a file containing Sudoku puzzles.
      *
      * @param filename The name of the file to process.
+     * @param userHelp Whether to ask the user for help when the deduction rules are stuck.
      */
     public void processFile(String filename, boolean userHelp) {
+        processFile(filename, userHelp, false);
+    }
+
+    /**
+     * Processes a file containing Sudoku puzzles.
+     *
+     * @param filename      The name of the file to process.
+     * @param userHelp      Whether to ask the user for help when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck.
+     */
+    public void processFile(String filename, boolean userHelp, boolean searchEnabled) {
+        processFile(filename, new ProcessorOptions().userHelp(userHelp).searchEnabled(searchEnabled));
+    }
+
+    /**
+     * Processes a file containing Sudoku puzzles.
+     *
+     * @param filename The name of the file to process, or "-" for the standard input.
+     * @param options  The options selecting the engine, its behavior and the number of threads.
+     * @return True if the whole file was processed; false if it could not be read or the results written.
+     */
+    public boolean processFile(String filename, ProcessorOptions options) {
         Logger.info("Loading Sudoku puzzles from %s...", filename);
         long startTime = System.currentTimeMillis();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            SudokuHandler sudokuHandler = new SudokuHandler(userHelp);
+        Geometry geometry = options.getGeometry();
+        if (!options.getEngineType().supports(geometry)
+                || options.getFallbackEngineType() != null && !options.getFallbackEngineType().supports(geometry)) {
+            Logger.error("Only the rule engine solves %s puzzles", geometry);
+            return false;
+        }
+        boolean standard = geometry == Geometry.STANDARD;
+        if (!standard && (options.getCacheSize() > 0 || options.getResultStore() != null)) {
+            Logger.warn("The cache and the result store only hold 9x9 puzzles; ignoring them.");
+        }
 
-            while ((line = reader.readLine()) != null) {
-                int[] gridValues = parseLine(line);
-                sudokuHandler.initGrid(gridValues);
+        int threads = options.getThreads();
+        if (threads > 1 && options.isUserHelp()) {
+            Logger.warn("User help requires a single thread; ignoring the %d requested threads.", threads);
+            threads = 1;
+        }
 
-                SolverResult result = sudokuHandler.solve();
-                Logger.debug(result.grid());
+        SolutionCache cache = options.getCacheSize() > 0 && !options.isUserHelp() && standard
+                ? new SolutionCache(options.getCacheSize()) : null;
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        ForkJoinPool searchPool = options.getSearchThreads() > 1 && options.isSearchEnabled() && !options.isUserHelp()
+                ? new ForkJoinPool(options.getSearchThreads()) : null;
+        try (PuzzleSource source = PuzzleSourceFactory.openSource(filename, BATCH_SIZE, geometry);
+             SolutionWriter writer = openWriter(options);
+             ResultStore store = openStore(options)) {
+            ThreadLocal<SudokuEngine> engines =
+                    ThreadLocal.withInitial(() -> createEngine(options, cache, store, searchPool));
+            ThreadLocal<DifficultyRater> raters = options.isNumericRating()
+                    ? ThreadLocal.withInitial(() -> new DifficultyRater(geometry)) : null;
+            ArrayDeque<CompletableFuture<PuzzleBatch>> pending = new ArrayDeque<>();
+            ArrayDeque<PuzzleBatch> freeBatches = new ArrayDeque<>();
+            int maxPending = Math.max(1, threads * 2);
+            Grid display = new Grid(geometry);
+            String engineName = options.getEngineType().name();
 
-                totalPuzzles++;
-                if (result.isSolved()) {
-                    solvedPuzzles++;
+            PuzzleChunk chunk;
+            int chunkIndex = 0;
+            while ((chunk = readChunk(source, filename, chunkIndex)) != null) {
+                PuzzleBatch batch = freeBatches.isEmpty()
+                        ? new PuzzleBatch(BATCH_SIZE, geometry.getCellCount()) : freeBatches.poll();
+                pending.add(submit(chunk, chunkIndex++, batch, engines, raters, engineName,
+                        options.getSolutionLimit(), writer, executor));
+                if (pending.size() >= maxPending) {
+                    freeBatches.add(consume(pending.poll().join(), writer, display));
                 }
-
-                categorizePuzzle(result);
+            }
+            while (!pending.isEmpty()) {
+                consume(pending.poll().join(), writer, display);
             }
 
-            displayStatistics();
-            logExecutionTime(startTime);
+            if (options.isLogStatistics()) {
+                displayStatistics(cache, store);
+                logExecutionTime(startTime);
+            }
+            return true;
 
         } catch (IOException e) {
             Logger.error("Failed to process file %s", filename);
             Logger.error(e);
+            return false;
+        } catch (UncheckedIOException | CompletionException e) {
+            Logger.error("Failed to process file %s", filename);
+            Logger.error(e.getCause());
+            return false;
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (searchPool != null) {
+                searchPool.shutdown();
+            }
         }
     }
 
     /**
-     * Parses a line from the input file into a Sudoku grid.
+     * Gets the statistics of the puzzles processed so far.
      *
-     * @param line The line to parse.
-     * @return An array representing the Sudoku grid.
+     * @return The statistics.
      */
-    private int[] parseLine(String line) {
-        int[] values = new int[81];
-        int index = 0;
-        for (char c : line.toCharArray()) {
-            if (isDelimiter(c)) {
-                continue;
-            }
-            values[index++] = isEmptyCell(c) ? -1 : Character.getNumericValue(c);
-            if (index >= 81) {
+    public PuzzleStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Reads the next chunk of the input.
+     *
+     * @param source     The source of the puzzles.
+     * @param filename   The name of the file, recorded in the event of the read.
+     * @param chunkIndex The sequence number of the chunk.
+     * @return The chunk, or null at the end of the input.
+     * @throws IOException If the input cannot be read.
+     */
+    private PuzzleChunk readChunk(PuzzleSource source, String filename, int chunkIndex) throws IOException {
+        ChunkReadEvent event = new ChunkReadEvent();
+        event.begin();
+        PuzzleChunk chunk = source.nextChunk();
+        event.end();
+        if (chunk != null && event.shouldCommit()) {
+            event.file = filename;
+            event.chunk = chunkIndex;
+            event.commit();
+        }
+        return chunk;
+    }
+
+    /**
+     * Decodes and solves a chunk on the executor, or directly on the calling thread when there is no executor.
+     *
+     * @param chunk      The chunk of the input to solve.
+     * @param chunkIndex The sequence number of the chunk.
+     * @param batch      An empty batch receiving the puzzles of the chunk and their results.
+     * @param engines       The engine of each thread.
+     * @param raters        The rater of each thread, or null if the puzzles are not rated.
+     * @param engineName    The name of the engine, recorded in the events of the solves.
+     * @param solutionLimit The number of solutions up to which the solutions are counted, or 0 not to count them.
+     * @param writer        The writer of the results, or null if they are not written.
+     * @param executor      The worker threads, or null to solve on the calling thread.
+     * @return A future completed with the solved batch.
+     */
+    private CompletableFuture<PuzzleBatch> submit(PuzzleChunk chunk, int chunkIndex, PuzzleBatch batch,
+                                                  ThreadLocal<SudokuEngine> engines,
+                                                  ThreadLocal<DifficultyRater> raters, String engineName,
+                                                  int solutionLimit, SolutionWriter writer,
+                                                  ExecutorService executor) {
+        if (executor == null) {
+            processChunk(chunk, chunkIndex, batch, engines.get(), raters == null ? null : raters.get(), engineName,
+                    solutionLimit, writer);
+            return CompletableFuture.completedFuture(batch);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            processChunk(chunk, chunkIndex, batch, engines.get(), raters == null ? null : raters.get(), engineName,
+                    solutionLimit, writer);
+            return batch;
+        }, executor);
+    }
+
+    /**
+     * Decodes, solves and encodes the results of a chunk on the current thread.
+     *
+     * @param chunk      The chunk of the input to solve.
+     * @param chunkIndex The sequence number of the chunk.
+     * @param batch      An empty batch receiving the puzzles of the chunk and their results.
+     * @param engine        The engine of the current thread.
+     * @param rater         The rater of the current thread, or null if the puzzles are not rated.
+     * @param engineName    The name of the engine, recorded in the events of the solves.
+     * @param solutionLimit The number of solutions up to which the solutions are counted, or 0 not to count them.
+     * @param writer        The writer of the results, or null if they are not written.
+     */
+    private void processChunk(PuzzleChunk chunk, int chunkIndex, PuzzleBatch batch, SudokuEngine engine,
+                              DifficultyRater rater, String engineName, int solutionLimit, SolutionWriter writer) {
+        parseChunk(chunk, chunkIndex, batch);
+        solveBatch(batch, chunkIndex, engine, rater, engineName, solutionLimit);
+        if (writer != null) {
+            encodeBatch(batch, writer.getFormat());
+        }
+    }
+
+    /**
+     * Decodes every puzzle of a chunk into a batch.
+     *
+     * @param chunk      The chunk of the input.
+     * @param chunkIndex The sequence number of the chunk.
+     * @param batch      The batch receiving the puzzles.
+     */
+    private void parseChunk(PuzzleChunk chunk, int chunkIndex, PuzzleBatch batch) {
+        ChunkParseEvent event = new ChunkParseEvent();
+        event.begin();
+        while (true) {
+            int offset = batch.addPuzzle();
+            if (!chunk.nextPuzzle(batch.getPuzzles(), offset)) {
+                batch.removeLastPuzzle();
                 break;
             }
         }
-        return values;
+        event.end();
+        if (event.shouldCommit()) {
+            event.chunk = chunkIndex;
+            event.puzzles = batch.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Solves every puzzle of a batch and records the results, counting the solutions of each puzzle
+     * and rating it if needed.
+     *
+     * @param batch         The batch to solve.
+     * @param chunkIndex    The sequence number of the chunk of the batch.
+     * @param engine        The engine of the current thread.
+     * @param rater         The rater of the current thread, or null if the puzzles are not rated.
+     * @param engineName    The name of the engine, recorded in the events of the solves.
+     * @param solutionLimit The number of solutions up to which the solutions are counted, or 0 not to count them.
+     */
+    private void solveBatch(PuzzleBatch batch, int chunkIndex, SudokuEngine engine, DifficultyRater rater,
+                            String engineName, int solutionLimit) {
+        int[] values = new int[batch.getCellCount()];
+        for (int index = 0; index < batch.size(); index++) {
+            batch.copyPuzzle(index, values);
+            SolveEvent event = new SolveEvent();
+            event.begin();
+            SolverResult result = engine.solve(values);
+            event.end();
+            if (event.shouldCommit()) {
+                event.engine = engineName;
+                event.chunk = chunkIndex;
+                event.puzzle = SolveEvent.encode(batch.getPuzzles(), index * values.length, values.length);
+                event.difficulty = result.difficulty().name();
+                event.solved = result.isSolved();
+                event.commit();
+            }
+            batch.setResult(index, result);
+            statistics.record(result);
+            if (solutionLimit > 0) {
+                int solutionCount = engine.countSolutions(values, solutionLimit);
+                batch.setSolutionCount(index, solutionCount);
+                statistics.recordSolutionCount(solutionCount);
+            }
+            if (rater != null) {
+                Rating rating = rater.rate(values);
+                batch.setRating(index, rating);
+                statistics.recordRating(rating);
+            }
+        }
+    }
+
+    /**
+     * Encodes the results of a solved batch into its output buffer, ready to be written.
+     *
+     * @param batch  The solved batch.
+     * @param format The format of the output.
+     */
+    private void encodeBatch(PuzzleBatch batch, OutputFormat format) {
+        int cellCount = batch.getCellCount();
+        ByteBuffer output = batch.prepareOutput(batch.size() * format.getMaxRecordSize(cellCount));
+        int[] puzzles = batch.getPuzzles();
+        int[] solutions = batch.getSolutions();
+        for (int index = 0; index < batch.size(); index++) {
+            format.encode(output, cellCount, puzzles, index * cellCount, solutions, index * cellCount,
+                    batch.getDifficulty(index), batch.isSolved(index), batch.getSolutionCount(index),
+                    batch.getRating(index));
+        }
+        output.flip();
+    }
+
+    /**
+     * Produces the per-puzzle output of a solved batch, in input order.
+     *
+     * @param batch   The solved batch.
+     * @param writer  The writer of the results, or null if they are not written.
+     * @param display A grid used to display the results.
+     * @return The batch, emptied so it can be reused.
+     * @throws IOException If the results cannot be written.
+     */
+    private PuzzleBatch consume(PuzzleBatch batch, SolutionWriter writer, Grid display) throws IOException {
+        if (writer != null) {
+            writer.write(batch.getOutput());
+        }
+        if (Logger.isDebugEnabled()) {
+            int[] values = new int[batch.getCellCount()];
+            for (int index = 0; index < batch.size(); index++) {
+                batch.copySolution(index, values);
+                display.reset();
+                for (int cellIndex = 0; cellIndex < values.length; cellIndex++) {
+                    if (values[cellIndex] != -1) {
+                        display.setValue(cellIndex, values[cellIndex]);
+                    }
+                }
+                Logger.debug(display);
+            }
+        }
+        batch.clear();
+        return batch;
     }
 
     /**
-     * Categorizes the puzzle based on its difficulty level.
+     * Opens the writer of the output file selected by the options.
      *
-     * @param result The result of solving the puzzle.
+     * @param options The processing options.
+     * @return The writer, or null if no output file is set.
+     * @throws IOException If the output file cannot be opened.
      */
-    private void categorizePuzzle(SolverResult result) {
-        switch (result.difficulty()) {
-            case EASY -> easyPuzzles++;
-            case MEDIUM -> mediumPuzzles++;
-            case HARD -> hardPuzzles++;
-            case IMPOSSIBLE -> impossiblePuzzles++;
-            case USER -> userPuzzles++;
-            default -> Logger.warn("Unknown difficulty level: %s", result.difficulty());
+    private SolutionWriter openWriter(ProcessorOptions options) throws IOException {
+        if (options.getOutputFile() == null) {
+            return null;
+        }
+        if (PuzzleSourceFactory.STANDARD_STREAM.equals(options.getOutputFile())) {
+            return SolutionWriter.toStandardOutput(options.getOutputFormat(), options.getSolutionLimit() > 0,
+                    options.isNumericRating());
+        }
+        return SolutionWriter.toFile(options.getOutputFile(), options.getOutputFormat(),
+                options.getSolutionLimit() > 0, options.isNumericRating());
+    }
+
+    /**
+     * Opens the result store selected by the options.
+     *
+     * @param options The processing options.
+     * @return The store, or null if no store is set, user help is enabled or the puzzles are not 9x9 puzzles.
+     * @throws IOException If the store cannot be opened.
+     */
+    private ResultStore openStore(ProcessorOptions options) throws IOException {
+        if (options.getResultStore() == null || options.isUserHelp() || options.getGeometry() != Geometry.STANDARD) {
+            return null;
+        }
+        return new ResultStore(options.getResultStore());
+    }
+
+    /**
+     * Creates the engine selected by the options, wrapped with the fallback engine if one is set,
+     * then with the cache and the result store if there are some.
+     *
+     * @param options    The processing options.
+     * @param cache      The cache shared by the engines of all threads, or null if results are not cached.
+     * @param store      The result store shared by the engines of all threads, or null if results are not stored.
+     * @param searchPool The pool shared by the searches of all threads, or null to search on each worker thread.
+     * @return The engine to solve the puzzles with.
+     */
+    private SudokuEngine createEngine(ProcessorOptions options, SolutionCache cache, ResultStore store,
+                                      ForkJoinPool searchPool) {
+        SudokuEngine engine = SudokuEngineFactory.createEngine(options.getEngineType(), options.isUserHelp(),
+                options.isSearchEnabled(), options.getGeometry(), searchPool);
+        if (options.getFallbackEngineType() != null) {
+            SudokuEngine fallback = SudokuEngineFactory.createEngine(options.getFallbackEngineType(),
+                    options.isUserHelp(), options.isSearchEnabled(), options.getGeometry(), searchPool);
+            engine = new FallbackEngine(engine, fallback);
+        }
+        if (cache != null) {
+            engine = new CachingEngine(engine, cache);
+        }
+        if (store != null) {
+            engine = new StoredResultEngine(engine, store, getConfigurationTag(options));
         }
+        return engine;
+    }
+
+    /**
+     * Gets a tag identifying the engine configuration, under which its results are stored.
+     *
+     * @param options The processing options.
+     * @return The tag (0-255).
+     */
+    private int getConfigurationTag(ProcessorOptions options) {
+        int fallback = options.getFallbackEngineType() == null ? 0 : options.getFallbackEngineType().ordinal() + 1;
+        return options.getEngineType().ordinal() | fallback << 3 | (options.isSearchEnabled() ? 1 << 6 : 0);
     }
 
     /**
      * Displays statistics about the puzzles processed.
+     *
+     * @param cache The cache of results, or null if results were not cached.
+     * @param store The result store, or null if results were not stored.
      */
-    private void displayStatistics() {
+    private void displayStatistics(SolutionCache cache, ResultStore store) {
+        long unknownPuzzles = statistics.getCount(Difficulty.UNKNOWN);
+        if (unknownPuzzles > 0) {
+            Logger.warn("Unknown difficulty level for %d puzzles", unknownPuzzles);
+        }
+
         String statisticsMessage = new MessageBuilder()
                 .info().text("Easy: %d\n")
                 .warn().text("Medium: %d\n")
                 .error().text("Hard: %d\n")
+                .color("\u001B[36m").text("Search: %d\n")
                 .color("\u001B[35m").text("Impossible: %d\n")
-                .text("User Hint: %d")
-                .args(easyPuzzles, mediumPuzzles, hardPuzzles, impossiblePuzzles, userPuzzles)
+                .text("User Hint: %d\n")
+                .text("Unrated: %d")
+                .args(statistics.getCount(Difficulty.EASY), statistics.getCount(Difficulty.MEDIUM),
+                        statistics.getCount(Difficulty.HARD), statistics.getCount(Difficulty.SEARCH),
+                        statistics.getCount(Difficulty.IMPOSSIBLE), statistics.getCount(Difficulty.USER),
+                        statistics.getCount(Difficulty.SOLVED))
                 .build();
 
         Logger.info(statisticsMessage);
+
+        if (statistics.hasSolutionCounts()) {
+            Logger.info("Solutions: %d with none, %d unique, %d with several",
+                    statistics.getNoSolutionPuzzles(), statistics.getUniqueSolutionPuzzles(),
+                    statistics.getMultipleSolutionPuzzles());
+        }
+        if (statistics.getRatedPuzzles() > 0) {
+            displayRatings();
+        }
+        if (cache != null) {
+            Logger.info("Cache: %d hits out of %d lookups (%.1f%% hit rate)",
+                    cache.getHits(), cache.getHits() + cache.getMisses(), cache.getHitRate() * 100);
+        }
+        if (store != null) {
+            Logger.info("Result store: %d hits out of %d lookups, %d results stored",
+                    store.getHits(), store.getHits() + store.getMisses(), store.size());
+        }
+    }
+
+    /**
+     * Displays the distribution of the numeric ratings and the number of steps of each type.
+     */
+    private void displayRatings() {
+        Logger.info("Ratings: mean %.2f, max %.1f over %d puzzles; %d need more than the deduction rules",
+                statistics.getMeanRating(), statistics.getMaxRating(),
+                statistics.getRatedPuzzles() - statistics.getIncompleteRatings(), statistics.getIncompleteRatings());
+        for (StepType stepType : StepType.values()) {
+            Logger.info("  %.1f %-33s %d puzzles, %d steps", stepType.getScore(), stepType.getDescription(),
+                    statistics.getHardestStepCount(stepType), statistics.getStepCount(stepType));
+        }
     }
 
     /**
@@ -119,29 +504,14 @@ public class SudokuFileProcessor {
      */
     private void logExecutionTime(long startTime) {
         long elapsedTime = System.currentTimeMillis() - startTime;
+        long totalPuzzles = statistics.getTotalPuzzles();
+        if (totalPuzzles == 0) {
+            Logger.warn("No puzzle found in the input (%d ms).", elapsedTime);
+            return;
+        }
         double timePerPuzzle = (double) elapsedTime / totalPuzzles;
 
         Logger.success("Successfully solved %d/%d puzzles in %d ms (%.2f ms per puzzle).",
-                solvedPuzzles, totalPuzzles, elapsedTime, timePerPuzzle);
-    }
-
-    /**
-     * Checks if the character is a delimiter.
-     *
-     * @param c The character to check.
-     * @return True if the character is a delimiter, false otherwise.
-     */
-    private boolean isDelimiter(char c) {
-        return c == ',' || c == ' ';
-    }
-
-    /**
-     * Checks if the cell is empty based on the character.
-     *
-     * @param c The character to check.
-     * @return True if the cell is empty, false otherwise.
-     */
-    private boolean isEmptyCell(char c) {
-        return c == '.' || c == '0';
+                statistics.getSolvedPuzzles(), totalPuzzles, elapsedTime, timePerPuzzle);
     }
 }
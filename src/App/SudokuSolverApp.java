@@ -1,41 +1,252 @@
 package App;
 
+import IO.AsyncLogSink;
+import IO.ConsoleSink;
+import IO.LogSink;
 import IO.Logger;
 import IO.LogLevel;
+import IO.OutputFormat;
+import IO.PuzzleSourceFactory;
+import IO.SolutionWriter;
+import Metrics.SolverMetrics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
 
 /**
  * Facade class for the Sudoku Solver application.
- * Manages the overall process of solving Sudoku puzzles from files.
+ * Manages the overall process of solving Sudoku puzzles from files, either interactively
+ * or from command-line arguments without any prompt.
  */
 public class SudokuSolverApp {
 
+    private static final int LOG_BUFFER_SIZE = 8192; // Messages held by the background log writer
+
     /**
      * Starts the Sudoku Solver application.
+     *
+     * @return The exit status, one of the EXIT_ constants of {@link CommandLine}.
      */
-    public void start() {
+    public int start() {
         Logger.setLogLevel(LogLevel.INFO);
         Logger.info("Welcome to Sudoku Solver!");
 
         // Ask the user if he wants to help the solver while solving the puzzle.
         boolean userHelp = IO.Input.askYesNo("Do you want to help the solver while solving the puzzle? (y/n)");
 
+        // Otherwise, ask if the solver may guess values when the deduction rules are not enough.
+        boolean searchEnabled = !userHelp
+                && IO.Input.askYesNo("Do you want the solver to guess values when the rules are stuck? (y/n)");
+
         // Ask the user for a file path to load a Sudoku puzzle from.
         String filePath = IO.Input.askFilePath("Enter the path to the Sudoku puzzle file:");
         if (filePath == null) {
             Logger.error("No file path provided. Exiting...");
-            return;
+            Logger.flush();
+            return CommandLine.EXIT_USAGE;
         }
 
+        ProcessorOptions options = new ProcessorOptions()
+                .userHelp(userHelp)
+                .searchEnabled(searchEnabled)
+                .threads(userHelp ? 1 : Runtime.getRuntime().availableProcessors());
+
         SudokuFileProcessor processor = new SudokuFileProcessor();
-        processor.processFile(filePath, userHelp);
+        boolean processed = processor.processFile(filePath, options);
+        Logger.flush();
+        if (!processed) {
+            return CommandLine.EXIT_FAILURE;
+        }
+        PuzzleStatistics statistics = processor.getStatistics();
+        return statistics.getSolvedPuzzles() == statistics.getTotalPuzzles()
+                ? CommandLine.EXIT_SUCCESS : CommandLine.EXIT_UNSOLVED;
+    }
+
+    /**
+     * Runs the application non-interactively with command-line arguments. Nothing is ever read from the console,
+     * so the application can run in scripts, under a job scheduler, or as a filter in a shell pipeline.
+     * When the results go to the standard output, the log goes to the standard error.
+     *
+     * @param args The command-line arguments (see {@link CommandLine#getUsage()}).
+     * @return The exit status, one of the EXIT_ constants of {@link CommandLine}.
+     */
+    public int run(String[] args) {
+        CommandLine commandLine;
+        try {
+            commandLine = CommandLine.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CommandLine.getUsage());
+            return CommandLine.EXIT_USAGE;
+        }
+        if (commandLine.isHelp()) {
+            System.out.println(CommandLine.getUsage());
+            return CommandLine.EXIT_SUCCESS;
+        }
+
+        boolean resultsOnStandardOutput =
+                PuzzleSourceFactory.STANDARD_STREAM.equals(commandLine.getOptions().getOutputFile());
+        PrintStream reportStream = resultsOnStandardOutput ? System.err : System.out;
+        LogSink sink;
+        try {
+            sink = createLogSink(commandLine, reportStream);
+        } catch (IOException e) {
+            System.err.println("Failed to open the log file " + commandLine.getLogFile() + ": " + e.getMessage());
+            return CommandLine.EXIT_FAILURE;
+        }
+        Logger.setSink(sink);
+        Logger.setLogLevel(commandLine.getLogLevel());
+        try {
+            return runCommand(commandLine, reportStream);
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Creates the sink of the log: a background writer to the log file, or to the report stream when only
+     * an overflow policy was given, and a synchronous console sink otherwise.
+     *
+     * @param commandLine  The parsed command line.
+     * @param reportStream The stream receiving the log when no log file is given.
+     * @return The sink, already running.
+     * @throws IOException If the log file cannot be opened.
+     */
+    private LogSink createLogSink(CommandLine commandLine, PrintStream reportStream) throws IOException {
+        boolean colored = System.console() != null;
+        if (!commandLine.isAsyncLog()) {
+            return new ConsoleSink(reportStream, colored);
+        }
+        AsyncLogSink.OverflowPolicy policy = commandLine.getLogOverflowPolicy() != null
+                ? commandLine.getLogOverflowPolicy() : AsyncLogSink.OverflowPolicy.BLOCK;
+        return commandLine.getLogFile() != null
+                ? AsyncLogSink.toFile(commandLine.getLogFile(), LOG_BUFFER_SIZE, policy)
+                : new AsyncLogSink(reportStream, false, colored, LOG_BUFFER_SIZE, policy);
+    }
+
+    /**
+     * Runs the command of the command line once the log is set up.
+     *
+     * @param commandLine  The parsed command line.
+     * @param reportStream The stream receiving the reports.
+     * @return The exit status, one of the EXIT_ constants of {@link CommandLine}.
+     */
+    private int runCommand(CommandLine commandLine, PrintStream reportStream) {
+        if (commandLine.getCommand() == CommandLine.Command.BENCH) {
+            return runBenchmark(commandLine, reportStream);
+        }
+        if (commandLine.getCommand() == CommandLine.Command.GENERATE) {
+            return runGenerator(commandLine);
+        }
+
+        SolverMetrics.setEnabled(commandLine.getMetricsFile() != null);
+        long startTime = System.currentTimeMillis();
+        SudokuFileProcessor processor = new SudokuFileProcessor();
+        boolean processed = processor.processFile(commandLine.getInput(), commandLine.getOptions());
+        if (processed && commandLine.getMetricsFile() != null) {
+            processed = writeMetrics(commandLine);
+        }
+        Logger.flush();
+        if (!processed) {
+            return CommandLine.EXIT_FAILURE;
+        }
+
+        PuzzleStatistics statistics = processor.getStatistics();
+        if (commandLine.getStatisticsFormat() == CommandLine.StatisticsFormat.JSON) {
+            reportStream.println(statistics.toJson(System.currentTimeMillis() - startTime));
+            reportStream.flush();
+        }
+        return statistics.getSolvedPuzzles() == statistics.getTotalPuzzles()
+                ? CommandLine.EXIT_SUCCESS : CommandLine.EXIT_UNSOLVED;
+    }
+
+    /**
+     * Writes the metrics recorded during the run to the file given on the command line.
+     *
+     * @param commandLine The parsed command line.
+     * @return True if the metrics were written; false otherwise.
+     */
+    private boolean writeMetrics(CommandLine commandLine) {
+        try {
+            SolverMetrics.getRegistry().write(commandLine.getMetricsFile(), commandLine.getMetricsFormat());
+            Logger.info("Metrics written to %s", commandLine.getMetricsFile());
+            return true;
+        } catch (IOException e) {
+            Logger.error("Failed to write the metrics to %s", commandLine.getMetricsFile());
+            Logger.error(e);
+            return false;
+        }
+    }
+
+    /**
+     * Runs the bench command: benchmarks the selected engines on the puzzles of the input file
+     * and prints a comparison table, also written as JSON if requested.
+     *
+     * @param commandLine  The parsed command line.
+     * @param reportStream The stream receiving the table.
+     * @return The exit status, one of the EXIT_ constants of {@link CommandLine}.
+     */
+    private int runBenchmark(CommandLine commandLine, PrintStream reportStream) {
+        ProcessorOptions options = commandLine.getOptions();
+        SudokuBenchmark benchmark = new SudokuBenchmark(commandLine.getWarmupPasses(), commandLine.getPasses(),
+                options.getThreads(), options.isSearchEnabled());
+        try {
+            if (benchmark.loadCorpus(commandLine.getInput()) == 0) {
+                Logger.error("No puzzle found in %s", commandLine.getInput());
+                Logger.flush();
+                return CommandLine.EXIT_FAILURE;
+            }
+            List<SudokuBenchmark.EngineReport> reports = benchmark.run(commandLine.getBenchmarkEngines());
+            Logger.flush();
+            reportStream.print(SudokuBenchmark.toTable(reports));
+            reportStream.flush();
+            if (commandLine.getJsonReport() != null) {
+                benchmark.writeJson(commandLine.getJsonReport(), reports);
+                Logger.info("Benchmark results written to %s", commandLine.getJsonReport());
+            }
+            Logger.flush();
+            return CommandLine.EXIT_SUCCESS;
+        } catch (IOException e) {
+            Logger.error("Benchmark failed");
+            Logger.error(e);
+            Logger.flush();
+            return CommandLine.EXIT_FAILURE;
+        }
+    }
+
+    /**
+     * Runs the generate command: generates puzzles of the requested difficulty and writes them to the output.
+     *
+     * @param commandLine The parsed command line.
+     * @return The exit status, one of the EXIT_ constants of {@link CommandLine}.
+     */
+    private int runGenerator(CommandLine commandLine) {
+        ProcessorOptions options = commandLine.getOptions();
+        PuzzleGenerator generator = new PuzzleGenerator(commandLine.getGeneratedDifficulty(), options.getThreads(),
+                commandLine.getSeed());
+        String output = options.getOutputFile();
+        try (SolutionWriter writer = PuzzleSourceFactory.STANDARD_STREAM.equals(output)
+                ? SolutionWriter.toStandardOutput(OutputFormat.TEXT) : SolutionWriter.toFile(output, OutputFormat.TEXT)) {
+            generator.generate(commandLine.getGeneratedCount(), writer);
+            Logger.flush();
+            return CommandLine.EXIT_SUCCESS;
+        } catch (IOException e) {
+            Logger.error("Failed to write the puzzles to %s", output);
+            Logger.error(e);
+            Logger.flush();
+            return CommandLine.EXIT_FAILURE;
+        }
     }
 
     /**
-     * Main method to launch the application.
+     * Main method to launch the application: interactively without arguments,
+     * and non-interactively otherwise.
      *
      * @param args Command-line arguments.
      */
     public static void main(String[] args) {
-        new SudokuSolverApp().start();
+        SudokuSolverApp app = new SudokuSolverApp();
+        System.exit(args.length == 0 ? app.start() : app.run(args));
     }
 }
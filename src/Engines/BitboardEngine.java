@@ -0,0 +1,411 @@
+package Engines;
+
+import Utils.Difficulty;
+import Utils.Grid;
+import Utils.SolverResult;
+
+/**
+ * Engine solving puzzles with band-oriented bitboards, for raw throughput when no difficulty rating is needed.
+ * <p>
+ * The grid is split into three bands of three rows. For each value and band, a 27-bit word holds the cells
+ * of the band where the value is still a candidate (bit {@code rowInBand * 9 + column}), so a whole row,
+ * box or column of a band is tested or cleared with a single mask. Propagation applies naked singles,
+ * hidden singles and locked candidates (pointing and claiming) on these words, and the engine only
+ * guesses when propagation stalls, saving the 57-word state on a preallocated stack at each guess.
+ * <p>
+ * Solved puzzles are reported with the SOLVED difficulty.
+ */
+public class BitboardEngine implements SudokuEngine {
+
+    private static final int BAND = (1 << 27) - 1;
+    private static final int[] ROW = {0x1FF, 0x1FF << 9, 0x1FF << 18}; // Rows of a band
+    private static final int[] BOX = new int[3]; // Boxes of a band
+    private static final int[] COLUMN = new int[9]; // Columns of a band
+    private static final int[] PEERS = new int[81 * 3]; // Peers of each cell, as one word per band
+
+    // Layout of the state: candidate words (value * 3 + band), placed words (value * 3 + band), unsolved words
+    private static final int CANDIDATES = 0;
+    private static final int PLACED = 27;
+    private static final int UNSOLVED = 54;
+    private static final int STATE_SIZE = 57;
+
+    static {
+        for (int column = 0; column < 9; column++) {
+            COLUMN[column] = (1 << column) | (1 << (9 + column)) | (1 << (18 + column));
+        }
+        for (int box = 0; box < 3; box++) {
+            BOX[box] = (COLUMN[box * 3] | COLUMN[box * 3 + 1] | COLUMN[box * 3 + 2]);
+        }
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            int band = cellIndex / 27;
+            int rowInBand = (cellIndex % 27) / 9;
+            int column = cellIndex % 9;
+            for (int other = 0; other < 3; other++) {
+                int peers = COLUMN[column];
+                if (other == band) {
+                    peers |= ROW[rowInBand] | BOX[column / 3];
+                    peers &= ~(1 << (cellIndex % 27));
+                }
+                PEERS[cellIndex * 3 + other] = peers;
+            }
+        }
+    }
+
+    private final int[] state = new int[STATE_SIZE];
+    private final int[] stack = new int[STATE_SIZE * 82]; // Saved state at each guess depth
+    private final int[] values = new int[81]; // Values placed so far; complete once the grid is solved
+    private final int[] solution = new int[81];
+    private final Grid grid = new Grid();
+    private int[] firstSolution;
+
+    @Override
+    public SolverResult solve(int[] values) {
+        boolean solved = solve(values, solution);
+        grid.reset();
+        int[] result = solved ? solution : values;
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            if (result[cellIndex] != -1) {
+                grid.setValue(cellIndex, result[cellIndex]);
+            }
+        }
+        return new SolverResult(grid, solved ? Difficulty.SOLVED : Difficulty.IMPOSSIBLE, solved);
+    }
+
+    /**
+     * Solves a puzzle into the given array.
+     *
+     * @param givens   An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param solution An array of 81 integers receiving the first solution found.
+     * @return True if a solution was found; false if the puzzle has none.
+     */
+    public boolean solve(int[] givens, int[] solution) {
+        firstSolution = solution;
+        return load(givens) && search(0, 1) > 0;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is reached.
+     *
+     * @param givens An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for.
+     * @return The number of solutions found, at most the limit.
+     */
+    @Override
+    public int countSolutions(int[] givens, int limit) {
+        firstSolution = null;
+        return load(givens) ? search(0, limit) : 0;
+    }
+
+    /**
+     * Initializes the state with every candidate possible and places the given values.
+     *
+     * @param givens An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @return False if two given values conflict; true otherwise.
+     */
+    private boolean load(int[] givens) {
+        for (int i = 0; i < 27; i++) {
+            state[CANDIDATES + i] = BAND;
+            state[PLACED + i] = 0;
+        }
+        state[UNSOLVED] = BAND;
+        state[UNSOLVED + 1] = BAND;
+        state[UNSOLVED + 2] = BAND;
+
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            int value = givens[cellIndex];
+            if (value == -1) {
+                continue;
+            }
+            if ((state[CANDIDATES + (value - 1) * 3 + cellIndex / 27] & (1 << (cellIndex % 27))) == 0) {
+                return false; // Removed by a conflicting given
+            }
+            place(cellIndex, value - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Propagates, then guesses on the unsolved cell with the fewest candidates.
+     *
+     * @param depth The guess depth, used to index the state stack.
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found from the current state, at most the limit.
+     */
+    private int search(int depth, int limit) {
+        if (!propagate()) {
+            return 0;
+        }
+        if ((state[UNSOLVED] | state[UNSOLVED + 1] | state[UNSOLVED + 2]) == 0) {
+            if (firstSolution != null) {
+                System.arraycopy(values, 0, firstSolution, 0, 81);
+                firstSolution = null;
+            }
+            return 1;
+        }
+
+        int cellIndex = selectCell();
+        int band = cellIndex / 27;
+        int cellBit = 1 << (cellIndex % 27);
+        int savedAt = depth * STATE_SIZE;
+        System.arraycopy(state, 0, stack, savedAt, STATE_SIZE);
+
+        int count = 0;
+        for (int digit = 0; digit < 9 && count < limit; digit++) {
+            if ((stack[savedAt + CANDIDATES + digit * 3 + band] & cellBit) == 0) {
+                continue;
+            }
+            System.arraycopy(stack, savedAt, state, 0, STATE_SIZE);
+            place(cellIndex, digit);
+            count += search(depth + 1, limit - count);
+        }
+        return count;
+    }
+
+    /**
+     * Selects the unsolved cell with the fewest candidates.
+     *
+     * @return The index of the selected cell.
+     */
+    private int selectCell() {
+        int bestCell = -1;
+        int bestCount = 10;
+        for (int band = 0; band < 3; band++) {
+            int unsolved = state[UNSOLVED + band];
+            while (unsolved != 0) {
+                int bit = Integer.numberOfTrailingZeros(unsolved);
+                unsolved &= unsolved - 1;
+                int count = 0;
+                for (int digit = 0; digit < 9; digit++) {
+                    count += (state[CANDIDATES + digit * 3 + band] >>> bit) & 1;
+                }
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestCell = band * 27 + bit;
+                    if (count == 2) {
+                        return bestCell;
+                    }
+                }
+            }
+        }
+        return bestCell;
+    }
+
+    /**
+     * Places a value: clears the cell from every candidate word and the value from the cell's peers.
+     *
+     * @param cellIndex The cell index (0-80).
+     * @param digit     The value minus one (0-8).
+     */
+    private void place(int cellIndex, int digit) {
+        int band = cellIndex / 27;
+        int cellBit = 1 << (cellIndex % 27);
+        for (int other = 0; other < 9; other++) {
+            state[CANDIDATES + other * 3 + band] &= ~cellBit;
+        }
+        int word = CANDIDATES + digit * 3;
+        state[word] &= ~PEERS[cellIndex * 3];
+        state[word + 1] &= ~PEERS[cellIndex * 3 + 1];
+        state[word + 2] &= ~PEERS[cellIndex * 3 + 2];
+        state[PLACED + digit * 3 + band] |= cellBit;
+        state[UNSOLVED + band] &= ~cellBit;
+        values[cellIndex] = digit + 1;
+    }
+
+    /**
+     * Applies naked singles, hidden singles and locked candidates until none of them makes progress,
+     * always going back to the cheaper techniques after a change.
+     *
+     * @return False if a contradiction was found; true otherwise.
+     */
+    private boolean propagate() {
+        while (true) {
+            int placed = placeNakedSingles();
+            if (placed < 0) {
+                return false;
+            }
+            if (placed > 0) {
+                continue;
+            }
+            placed = placeHiddenSingles();
+            if (placed < 0) {
+                return false;
+            }
+            if (placed > 0) {
+                continue;
+            }
+            if (!eliminateLockedCandidates()) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Places every unsolved cell having a single candidate. The cells with exactly one candidate are found
+     * for a whole band at once by accumulating the candidate words into "at least one" and "at least two" words.
+     *
+     * @return The number of values placed, or -1 on a contradiction.
+     */
+    private int placeNakedSingles() {
+        int placed = 0;
+        for (int band = 0; band < 3; band++) {
+            int unsolved = state[UNSOLVED + band];
+            if (unsolved == 0) {
+                continue;
+            }
+            int ones = 0;
+            int twos = 0;
+            for (int digit = 0; digit < 9; digit++) {
+                int word = state[CANDIDATES + digit * 3 + band];
+                twos |= ones & word;
+                ones |= word;
+            }
+            if ((unsolved & ~ones) != 0) {
+                return -1; // An unsolved cell has no candidate left
+            }
+
+            int singles = unsolved & ~twos;
+            while (singles != 0) {
+                int bit = Integer.numberOfTrailingZeros(singles);
+                singles &= singles - 1;
+                int digit = 0;
+                while (digit < 9 && (state[CANDIDATES + digit * 3 + band] & (1 << bit)) == 0) {
+                    digit++;
+                }
+                if (digit == 9) {
+                    return -1; // The last candidate was removed by a single placed just before
+                }
+                place(band * 27 + bit, digit);
+                placed++;
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Places every value that has a single possible position in a row, column or box.
+     *
+     * @return The number of values placed, or -1 if a value has no position left in some unit.
+     */
+    private int placeHiddenSingles() {
+        int placed = 0;
+        for (int digit = 0; digit < 9; digit++) {
+            int word = CANDIDATES + digit * 3;
+            int placedWord = PLACED + digit * 3;
+
+            for (int band = 0; band < 3; band++) {
+                for (int i = 0; i < 3; i++) {
+                    int result = placeHiddenSingle(digit, band, ROW[i], state[placedWord + band]);
+                    if (result < 0) {
+                        return -1;
+                    }
+                    placed += result;
+                    result = placeHiddenSingle(digit, band, BOX[i], state[placedWord + band]);
+                    if (result < 0) {
+                        return -1;
+                    }
+                    placed += result;
+                }
+            }
+
+            for (int column = 0; column < 9; column++) {
+                int mask = COLUMN[column];
+                int band0 = state[word] & mask;
+                int band1 = state[word + 1] & mask;
+                int band2 = state[word + 2] & mask;
+                int count = Integer.bitCount(band0) + Integer.bitCount(band1) + Integer.bitCount(band2);
+                if (count == 0) {
+                    int placedInColumn = (state[placedWord] | state[placedWord + 1] | state[placedWord + 2]) & mask;
+                    if (placedInColumn == 0) {
+                        return -1;
+                    }
+                } else if (count == 1) {
+                    int band = band0 != 0 ? 0 : band1 != 0 ? 1 : 2;
+                    int bits = band0 | band1 | band2;
+                    place(band * 27 + Integer.numberOfTrailingZeros(bits), digit);
+                    placed++;
+                }
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Places a value if it has a single position within a row or box of a band.
+     *
+     * @param digit  The value minus one (0-8).
+     * @param band   The band (0-2).
+     * @param unit   The mask of the row or box within the band.
+     * @param placed The placed word of the value for the band.
+     * @return 1 if the value was placed, 0 if not, or -1 if it has no position left in the unit.
+     */
+    private int placeHiddenSingle(int digit, int band, int unit, int placed) {
+        int positions = state[CANDIDATES + digit * 3 + band] & unit;
+        if (positions == 0) {
+            return (placed & unit) == 0 ? -1 : 0;
+        }
+        if ((positions & (positions - 1)) == 0) {
+            place(band * 27 + Integer.numberOfTrailingZeros(positions), digit);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes candidates with locked candidates: a value confined to one line within a box is removed from
+     * the rest of that line (pointing), and a value confined to one box within a line is removed from
+     * the rest of that box (claiming).
+     *
+     * @return True if any candidate was removed; false otherwise.
+     */
+    private boolean eliminateLockedCandidates() {
+        boolean changed = false;
+        for (int digit = 0; digit < 9; digit++) {
+            int word = CANDIDATES + digit * 3;
+            for (int band = 0; band < 3; band++) {
+                for (int box = 0; box < 3; box++) {
+                    int inBox = state[word + band] & BOX[box];
+                    if (inBox == 0) {
+                        continue;
+                    }
+
+                    for (int row = 0; row < 3; row++) {
+                        int rowMask = ROW[row];
+                        int inRow = state[word + band] & rowMask;
+                        if ((inBox & ~rowMask) == 0) {
+                            // Pointing: the value is confined to this row within the box
+                            if ((inRow & ~BOX[box]) != 0) {
+                                state[word + band] &= ~(rowMask & ~BOX[box]);
+                                changed = true;
+                            }
+                        } else if (inRow != 0 && (inRow & ~BOX[box]) == 0) {
+                            // Claiming: the value is confined to this box within the row
+                            state[word + band] &= ~(BOX[box] & ~rowMask);
+                            changed = true;
+                        }
+                        inBox = state[word + band] & BOX[box];
+                    }
+
+                    for (int column = box * 3; column < box * 3 + 3; column++) {
+                        int columnMask = COLUMN[column];
+                        int inColumn = inBox & columnMask;
+                        int otherBands = (state[word + (band + 1) % 3] | state[word + (band + 2) % 3]) & columnMask;
+                        if ((inBox & ~columnMask) == 0) {
+                            // Pointing: the value is confined to this column within the box
+                            if (otherBands != 0) {
+                                state[word + (band + 1) % 3] &= ~columnMask;
+                                state[word + (band + 2) % 3] &= ~columnMask;
+                                changed = true;
+                            }
+                        } else if (inColumn != 0 && otherBands == 0) {
+                            // Claiming: the value is confined to this box within the column
+                            state[word + band] &= ~(BOX[box] & ~columnMask);
+                            changed = true;
+                        }
+                        inBox = state[word + band] & BOX[box];
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+}
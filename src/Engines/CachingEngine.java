@@ -0,0 +1,79 @@
+package Engines;
+
+import Utils.Canonicalizer;
+import Utils.Grid;
+import Utils.SolutionCache;
+import Utils.SolutionCache.CachedSolution;
+import Utils.SolverResult;
+
+/**
+ * Engine looking puzzles up in a SolutionCache before handing them to another engine.
+ * <p>
+ * Puzzles are cached under their canonical form, so a puzzle equivalent to a cached one up to symmetry
+ * (transposition, band, stack, row and column permutations, digit relabeling) is answered by mapping the cached
+ * result back through the inverse transform. The rules and the difficulty ratings are invariant under these
+ * symmetries. Canonicalizing costs about 25 to 110 microseconds per puzzle once the JIT has warmed up, about
+ * 200 on sparse puzzles, and up to 500 on a first pass. That is as much as a rule-engine solve or more, so the
+ * cache only pays off on inputs where most puzzles are equivalent to an earlier one, or with a slow engine such
+ * as the rule engine with search; the bitboard engine always solves faster than that.
+ * <p>
+ * The cache can be shared by the engines of several threads, but each CachingEngine must be used by one thread.
+ */
+public class CachingEngine implements SudokuEngine {
+
+    private final SudokuEngine delegate;
+    private final SolutionCache cache;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final int[] canonicalValues = new int[81];
+    private final int[] values = new int[81];
+    private final Grid grid = new Grid();
+
+    /**
+     * Constructs a CachingEngine.
+     *
+     * @param delegate The engine solving the puzzles that are not cached.
+     * @param cache    The cache of results, possibly shared with other engines.
+     */
+    public CachingEngine(SudokuEngine delegate, SolutionCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public SolverResult solve(int[] puzzle) {
+        canonicalizer.canonicalize(puzzle);
+        String key = canonicalizer.getCanonicalKey();
+        CachedSolution cached = cache.get(key);
+        if (cached != null) {
+            byte[] cachedValues = cached.values();
+            for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+                canonicalValues[cellIndex] = cachedValues[cellIndex] == 0 ? -1 : cachedValues[cellIndex];
+            }
+            canonicalizer.fromCanonical(canonicalValues, values);
+            grid.load(values);
+            return new SolverResult(grid, cached.difficulty(), cached.solved());
+        }
+
+        SolverResult result = delegate.solve(puzzle);
+        result.grid().copyValues(values, 0);
+        canonicalizer.toCanonical(values, canonicalValues);
+        byte[] cachedValues = new byte[81];
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            cachedValues[cellIndex] = (byte) Math.max(canonicalValues[cellIndex], 0);
+        }
+        cache.put(key, new CachedSolution(cachedValues, result.difficulty(), result.isSolved()));
+        return result;
+    }
+
+    /**
+     * Counts the solutions of a puzzle with the wrapped engine; counts are not cached.
+     *
+     * @param puzzle An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for.
+     * @return The number of solutions found, at most the limit.
+     */
+    @Override
+    public int countSolutions(int[] puzzle, int limit) {
+        return delegate.countSolutions(puzzle, limit);
+    }
+}
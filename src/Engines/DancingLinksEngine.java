@@ -0,0 +1,238 @@
+package Engines;
+
+import Utils.Difficulty;
+import Utils.Grid;
+import Utils.SolverResult;
+
+import static Utils.Utilities.getBoxIndex;
+
+/**
+ * Engine solving puzzles as an exact-cover problem with Knuth's Algorithm X and Dancing Links.
+ * <p>
+ * The 324 constraints (each cell filled once, each value once per row, column and box) are the columns
+ * of the matrix, and the 729 candidates (a value in a cell) are its rows, each covering four columns.
+ * The matrix is stored in flat int arrays. It is built once as a static template, and each engine
+ * copies the template into its own preallocated arrays before every puzzle instead of rebuilding it.
+ * <p>
+ * This engine does not rate puzzles: solved puzzles are reported with the SOLVED difficulty.
+ * It is fully independent of the deduction rules, so it can serve as a reference oracle for them.
+ */
+public class DancingLinksEngine implements SudokuEngine {
+
+    private static final int COLUMNS = 324;
+    private static final int ROWS = 729;
+    private static final int ROOT = 0;
+    private static final int FIRST_NODE = COLUMNS + 1; // Nodes follow the root and the column headers
+    private static final int NODES = FIRST_NODE + ROWS * 4;
+
+    private static final int[] TEMPLATE_LEFT = new int[NODES];
+    private static final int[] TEMPLATE_RIGHT = new int[NODES];
+    private static final int[] TEMPLATE_UP = new int[NODES];
+    private static final int[] TEMPLATE_DOWN = new int[NODES];
+    private static final int[] TEMPLATE_SIZE = new int[COLUMNS + 1];
+    private static final int[] COLUMN_OF = new int[NODES]; // Never modified, so shared by all engines
+
+    static {
+        // Header list: the root followed by the 324 column headers, each column initially empty
+        for (int header = 0; header <= COLUMNS; header++) {
+            TEMPLATE_LEFT[header] = header == 0 ? COLUMNS : header - 1;
+            TEMPLATE_RIGHT[header] = header == COLUMNS ? 0 : header + 1;
+            TEMPLATE_UP[header] = header;
+            TEMPLATE_DOWN[header] = header;
+            COLUMN_OF[header] = header;
+        }
+
+        for (int row = 0; row < ROWS; row++) {
+            int cellIndex = row / 9;
+            int digit = row % 9;
+            int cellRow = cellIndex / 9;
+            int cellColumn = cellIndex % 9;
+            int[] columns = {
+                    1 + cellIndex,
+                    1 + 81 + cellRow * 9 + digit,
+                    1 + 162 + cellColumn * 9 + digit,
+                    1 + 243 + getBoxIndex(cellRow, cellColumn) * 9 + digit
+            };
+
+            int first = FIRST_NODE + row * 4;
+            for (int k = 0; k < 4; k++) {
+                int node = first + k;
+                int column = columns[k];
+                TEMPLATE_LEFT[node] = first + (k + 3) % 4;
+                TEMPLATE_RIGHT[node] = first + (k + 1) % 4;
+
+                // Append the node at the bottom of its column
+                TEMPLATE_UP[node] = TEMPLATE_UP[column];
+                TEMPLATE_DOWN[node] = column;
+                TEMPLATE_DOWN[TEMPLATE_UP[column]] = node;
+                TEMPLATE_UP[column] = node;
+                TEMPLATE_SIZE[column]++;
+                COLUMN_OF[node] = column;
+            }
+        }
+    }
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] size = new int[COLUMNS + 1];
+    private final int[] choices = new int[81]; // Row node chosen at each search depth
+    private final int[] solution = new int[81];
+    private final Grid grid = new Grid();
+
+    @Override
+    public SolverResult solve(int[] values) {
+        boolean solved = solve(values, solution);
+        grid.reset();
+        int[] result = solved ? solution : values;
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            if (result[cellIndex] != -1) {
+                grid.setValue(cellIndex, result[cellIndex]);
+            }
+        }
+        return new SolverResult(grid, solved ? Difficulty.SOLVED : Difficulty.IMPOSSIBLE, solved);
+    }
+
+    /**
+     * Solves a puzzle into the given array.
+     *
+     * @param values   An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param solution An array of 81 integers receiving the first solution found.
+     * @return True if a solution was found; false if the puzzle has none.
+     */
+    public boolean solve(int[] values, int[] solution) {
+        if (!load(values)) {
+            return false;
+        }
+        System.arraycopy(values, 0, solution, 0, 81);
+        return search(0, 1, solution) > 0;
+    }
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is reached.
+     *
+     * @param values An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for.
+     * @return The number of solutions found, at most the limit.
+     */
+    @Override
+    public int countSolutions(int[] values, int limit) {
+        if (!load(values)) {
+            return 0;
+        }
+        return search(0, limit, null);
+    }
+
+    /**
+     * Resets the matrix from the template and selects the rows of the given values.
+     *
+     * @param values An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @return False if two given values conflict; true otherwise.
+     */
+    private boolean load(int[] values) {
+        System.arraycopy(TEMPLATE_LEFT, 0, left, 0, NODES);
+        System.arraycopy(TEMPLATE_RIGHT, 0, right, 0, NODES);
+        System.arraycopy(TEMPLATE_UP, 0, up, 0, NODES);
+        System.arraycopy(TEMPLATE_DOWN, 0, down, 0, NODES);
+        System.arraycopy(TEMPLATE_SIZE, 0, size, 0, COLUMNS + 1);
+
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            if (values[cellIndex] == -1) {
+                continue;
+            }
+            int first = FIRST_NODE + (cellIndex * 9 + values[cellIndex] - 1) * 4;
+
+            // A column already covered means another given satisfies the same constraint
+            for (int k = 0; k < 4; k++) {
+                int column = COLUMN_OF[first + k];
+                if (right[left[column]] != column) {
+                    return false;
+                }
+            }
+            for (int k = 0; k < 4; k++) {
+                cover(COLUMN_OF[first + k]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs Algorithm X, always branching on the column with the fewest rows.
+     *
+     * @param depth    The current search depth.
+     * @param limit    The number of solutions after which the search stops.
+     * @param solution The array receiving the first solution, or null when only counting.
+     * @return The number of solutions found in this subtree, at most the limit.
+     */
+    private int search(int depth, int limit, int[] solution) {
+        if (right[ROOT] == ROOT) {
+            if (solution != null) {
+                for (int i = 0; i < depth; i++) {
+                    int row = (choices[i] - FIRST_NODE) / 4;
+                    solution[row / 9] = row % 9 + 1;
+                }
+            }
+            return 1;
+        }
+
+        int column = right[ROOT];
+        for (int header = right[column]; header != ROOT && size[column] > 1; header = right[header]) {
+            if (size[header] < size[column]) {
+                column = header;
+            }
+        }
+        if (size[column] == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        cover(column);
+        for (int node = down[column]; node != column && count < limit; node = down[node]) {
+            choices[depth] = node;
+            for (int other = right[node]; other != node; other = right[other]) {
+                cover(COLUMN_OF[other]);
+            }
+            count += search(depth + 1, limit - count, solution);
+            for (int other = left[node]; other != node; other = left[other]) {
+                uncover(COLUMN_OF[other]);
+            }
+        }
+        uncover(column);
+        return count;
+    }
+
+    /**
+     * Removes a column from the header list and all rows intersecting it from the other columns.
+     *
+     * @param column The column header.
+     */
+    private void cover(int column) {
+        right[left[column]] = right[column];
+        left[right[column]] = left[column];
+        for (int row = down[column]; row != column; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                size[COLUMN_OF[node]]--;
+            }
+        }
+    }
+
+    /**
+     * Reverts {@link #cover(int)}, relinking the nodes in the reverse order.
+     *
+     * @param column The column header.
+     */
+    private void uncover(int column) {
+        for (int row = up[column]; row != column; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                size[COLUMN_OF[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+        right[left[column]] = column;
+        left[right[column]] = column;
+    }
+}
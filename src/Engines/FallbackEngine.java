@@ -0,0 +1,45 @@
+package Engines;
+
+import Utils.SolverResult;
+
+/**
+ * Engine trying a primary engine first and handing the puzzles it cannot solve to a fallback engine,
+ * e.g. the deduction rules backed by Dancing Links for the puzzles the rules cannot finish.
+ */
+public class FallbackEngine implements SudokuEngine {
+
+    private final SudokuEngine primary;
+    private final SudokuEngine fallback;
+
+    /**
+     * Constructs a FallbackEngine.
+     *
+     * @param primary  The engine tried first.
+     * @param fallback The engine used for the puzzles the primary engine does not solve.
+     */
+    public FallbackEngine(SudokuEngine primary, SudokuEngine fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public SolverResult solve(int[] values) {
+        SolverResult result = primary.solve(values);
+        if (result.isSolved()) {
+            return result;
+        }
+        return fallback.solve(values);
+    }
+
+    /**
+     * Counts the solutions of a puzzle with the primary engine, since every engine finds the same count.
+     *
+     * @param values An array of one integer per cell representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for.
+     * @return The number of solutions found, at most the limit.
+     */
+    @Override
+    public int countSolutions(int[] values, int limit) {
+        return primary.countSolutions(values, limit);
+    }
+}
@@ -0,0 +1,59 @@
+package Engines;
+
+import Utils.Geometry;
+import Utils.SolverResult;
+import Utils.SudokuHandler;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Engine solving puzzles with the deduction rules through a SudokuHandler,
+ * which also rates their difficulty.
+ */
+public class RuleEngine implements SudokuEngine {
+
+    private final SudokuHandler sudokuHandler;
+
+    /**
+     * Constructs a RuleEngine for 9x9 puzzles.
+     *
+     * @param userHelp      Whether to ask the user for help when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck.
+     */
+    public RuleEngine(boolean userHelp, boolean searchEnabled) {
+        this(userHelp, searchEnabled, Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a RuleEngine for puzzles of the given shape.
+     *
+     * @param userHelp      Whether to ask the user for help when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck.
+     * @param geometry      The shape of the puzzles.
+     */
+    public RuleEngine(boolean userHelp, boolean searchEnabled, Geometry geometry) {
+        this(userHelp, searchEnabled, geometry, null);
+    }
+
+    /**
+     * Constructs a RuleEngine for puzzles of the given shape whose search runs on a fork-join pool.
+     *
+     * @param userHelp      Whether to ask the user for help when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck.
+     * @param geometry      The shape of the puzzles.
+     * @param searchPool    The pool splitting the search of each puzzle, or null to search on the calling thread.
+     */
+    public RuleEngine(boolean userHelp, boolean searchEnabled, Geometry geometry, ForkJoinPool searchPool) {
+        this.sudokuHandler = new SudokuHandler(userHelp, searchEnabled, geometry, searchPool);
+    }
+
+    @Override
+    public SolverResult solve(int[] values) {
+        return sudokuHandler.solve(values);
+    }
+
+    @Override
+    public int countSolutions(int[] values, int limit) {
+        return sudokuHandler.countSolutions(values, limit);
+    }
+}
@@ -0,0 +1,75 @@
+package Engines;
+
+import IO.ResultStore;
+import IO.ResultStore.StoredResult;
+import Utils.Grid;
+import Utils.SolverResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Engine reading the results of known puzzles from a ResultStore, and storing the results of the other puzzles
+ * once another engine has solved them, so that they are reused by later runs.
+ * <p>
+ * Results depend on the engine configuration, so each one is stored under a configuration tag and only reused
+ * by engines with the same tag. The store can be shared by the engines of several threads.
+ */
+public class StoredResultEngine implements SudokuEngine {
+
+    private final SudokuEngine delegate;
+    private final ResultStore store;
+    private final int tag;
+    private final int[] values = new int[81];
+    private final Grid grid = new Grid();
+
+    /**
+     * Constructs a StoredResultEngine.
+     *
+     * @param delegate The engine solving the puzzles that are not stored.
+     * @param store    The store of results, possibly shared with other engines.
+     * @param tag      The configuration of the delegate (0-255).
+     */
+    public StoredResultEngine(SudokuEngine delegate, ResultStore store, int tag) {
+        this.delegate = delegate;
+        this.store = store;
+        this.tag = tag;
+    }
+
+    /**
+     * Solves a puzzle, or reads its result from the store.
+     *
+     * @param puzzle An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @return A SolverResult with the final grid, its difficulty and whether it is solved.
+     * @throws UncheckedIOException If the store cannot be read or written.
+     */
+    @Override
+    public SolverResult solve(int[] puzzle) {
+        try {
+            StoredResult stored = store.lookup(tag, puzzle, values);
+            if (stored != null) {
+                grid.load(values);
+                return new SolverResult(grid, stored.difficulty(), stored.solved());
+            }
+
+            SolverResult result = delegate.solve(puzzle);
+            result.grid().copyValues(values, 0);
+            store.store(tag, puzzle, values, result.difficulty(), result.isSolved());
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts the solutions of a puzzle with the wrapped engine; counts are not stored.
+     *
+     * @param puzzle An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for.
+     * @return The number of solutions found, at most the limit.
+     */
+    @Override
+    public int countSolutions(int[] puzzle, int limit) {
+        return delegate.countSolutions(puzzle, limit);
+    }
+}
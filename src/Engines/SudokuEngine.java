@@ -0,0 +1,32 @@
+package Engines;
+
+import Utils.SolverResult;
+
+/**
+ * Common interface of the solving engines.
+ * Engines keep reusable buffers between puzzles and are therefore not thread-safe:
+ * each thread must create its own instance through the {@link SudokuEngineFactory}.
+ */
+public interface SudokuEngine {
+
+    /**
+     * Solves a puzzle.
+     *
+     * @param values An array of one integer per cell representing the puzzle, -1 for empty cells:
+     *               81 for the 9x9 puzzles every engine solves.
+     * @return A SolverResult with the final grid, its difficulty and whether it is solved.
+     * The grid may be reused by the engine for the next puzzle.
+     */
+    SolverResult solve(int[] values);
+
+    /**
+     * Counts the solutions of a puzzle, stopping as soon as the limit is reached, e.g. with a limit of 2
+     * to check that a puzzle has a unique solution. Unlike {@link #solve(int[])}, the count does not depend
+     * on how the engine is configured: it always searches the whole tree if needed.
+     *
+     * @param values An array of one integer per cell representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for (at least 1).
+     * @return The number of solutions found, at most the limit: 0 if the puzzle has no solution.
+     */
+    int countSolutions(int[] values, int limit);
+}
@@ -0,0 +1,88 @@
+package Engines;
+
+import Utils.Geometry;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Factory class for creating SudokuEngine instances.
+ */
+public class SudokuEngineFactory {
+
+    /**
+     * Creates a SudokuEngine instance for 9x9 puzzles based on the given engine type.
+     *
+     * @param engineType    The type of engine to create.
+     * @param userHelp      Whether the rule engine asks the user for help when its rules are stuck.
+     * @param searchEnabled Whether the rule engine falls back to a backtracking search when its rules are stuck.
+     * @return A new instance of the requested SudokuEngine.
+     */
+    public static SudokuEngine createEngine(EngineType engineType, boolean userHelp, boolean searchEnabled) {
+        return createEngine(engineType, userHelp, searchEnabled, Geometry.STANDARD);
+    }
+
+    /**
+     * Creates a SudokuEngine instance for puzzles of the given shape based on the given engine type.
+     *
+     * @param engineType    The type of engine to create.
+     * @param userHelp      Whether the rule engine asks the user for help when its rules are stuck.
+     * @param searchEnabled Whether the rule engine falls back to a backtracking search when its rules are stuck.
+     * @param geometry      The shape of the puzzles.
+     * @return A new instance of the requested SudokuEngine.
+     * @throws IllegalArgumentException If the engine does not solve puzzles of that shape.
+     */
+    public static SudokuEngine createEngine(EngineType engineType, boolean userHelp, boolean searchEnabled,
+                                            Geometry geometry) {
+        return createEngine(engineType, userHelp, searchEnabled, geometry, null);
+    }
+
+    /**
+     * Creates a SudokuEngine instance for puzzles of the given shape based on the given engine type,
+     * the search of the rule engine splitting each puzzle across the threads of a fork-join pool.
+     *
+     * @param engineType    The type of engine to create.
+     * @param userHelp      Whether the rule engine asks the user for help when its rules are stuck.
+     * @param searchEnabled Whether the rule engine falls back to a backtracking search when its rules are stuck.
+     * @param geometry      The shape of the puzzles.
+     * @param searchPool    The pool of the rule engine's search, or null to search on the calling thread.
+     *                      The other engines ignore it.
+     * @return A new instance of the requested SudokuEngine.
+     * @throws IllegalArgumentException If the engine does not solve puzzles of that shape.
+     */
+    public static SudokuEngine createEngine(EngineType engineType, boolean userHelp, boolean searchEnabled,
+                                            Geometry geometry, ForkJoinPool searchPool) {
+        if (geometry != Geometry.STANDARD && !engineType.supports(geometry)) {
+            throw new IllegalArgumentException("The " + engineType + " engine only solves 9x9 puzzles");
+        }
+        switch (engineType) {
+            case RULES:
+                return new RuleEngine(userHelp, searchEnabled, geometry, searchPool);
+            case DANCING_LINKS:
+                return new DancingLinksEngine();
+            case BITBOARD:
+                return new BitboardEngine();
+            default:
+                throw new IllegalArgumentException("Invalid engine type");
+        }
+    }
+
+    /**
+     * Enum representing the types of SudokuEngines available.
+     */
+    public enum EngineType {
+        RULES,
+        DANCING_LINKS,
+        BITBOARD;
+
+        /**
+         * Checks if the engine solves puzzles of the given shape.
+         * Only the rule engine handles other boards than the standard 9x9 one.
+         *
+         * @param geometry The shape of the puzzles.
+         * @return True if the engine solves such puzzles; false otherwise.
+         */
+        public boolean supports(Geometry geometry) {
+            return this == RULES || geometry == Geometry.STANDARD;
+        }
+    }
+}
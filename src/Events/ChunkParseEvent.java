@@ -0,0 +1,25 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the decoding of the puzzles of a chunk into a batch by a worker thread.
+ */
+@Name("sudoku.ChunkParse")
+@Label("Chunk Parse")
+@Category({"Sudoku Solver", "Input"})
+@Description("Decoding of the puzzles of a chunk")
+@StackTrace(false)
+public class ChunkParseEvent extends jdk.jfr.Event {
+
+    @Label("Chunk")
+    @Description("Sequence number of the chunk in the file")
+    public int chunk;
+
+    @Label("Puzzles")
+    public int puzzles;
+}
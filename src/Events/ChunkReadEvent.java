@@ -0,0 +1,26 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the read of a chunk of an input file, e.g. a block of the standard input
+ * or the mapping of a part of a file.
+ */
+@Name("sudoku.ChunkRead")
+@Label("Chunk Read")
+@Category({"Sudoku Solver", "Input"})
+@Description("Read of a chunk of a puzzle file")
+@StackTrace(false)
+public class ChunkReadEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Chunk")
+    @Description("Sequence number of the chunk in the file")
+    public int chunk;
+}
@@ -0,0 +1,33 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one application of a deduction rule by the rule propagator.
+ */
+@Name("sudoku.RuleApplication")
+@Label("Rule Application")
+@Category({"Sudoku Solver"})
+@Description("Application of a deduction rule to the changed cells and units of a grid")
+@StackTrace(false)
+public class RuleEvent extends jdk.jfr.Event {
+
+    @Label("Rule")
+    public String rule;
+
+    @Label("Changed")
+    @Description("Whether the rule changed the grid")
+    public boolean changed;
+
+    @Label("Placements")
+    @Description("Number of values placed by the rule")
+    public int placements;
+
+    @Label("Eliminations")
+    @Description("Number of candidates removed by the rule, including those of the cells it filled")
+    public int eliminations;
+}
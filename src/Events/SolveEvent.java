@@ -0,0 +1,56 @@
+package Events;
+
+import Utils.Geometry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the solve of one puzzle by an engine, from its start to its end.
+ * The event records the puzzle itself, so a puzzle showing up in CPU, allocation or GC samples recorded
+ * during the event can be found again and replayed.
+ */
+@Name("sudoku.Solve")
+@Label("Puzzle Solve")
+@Category({"Sudoku Solver"})
+@Description("Solve of one puzzle by an engine")
+@StackTrace(false)
+public class SolveEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Chunk")
+    @Description("Sequence number of the input chunk holding the puzzle")
+    public int chunk;
+
+    @Label("Puzzle")
+    @Description("The cells of the puzzle, as in puzzle files, '.' for the empty ones")
+    public String puzzle;
+
+    @Label("Difficulty")
+    public String difficulty;
+
+    @Label("Solved")
+    public boolean solved;
+
+    /**
+     * Encodes a puzzle as a line of one character per cell.
+     *
+     * @param values    The array holding the values, -1 for empty cells.
+     * @param offset    The position in the array of the first cell.
+     * @param cellCount The number of cells of the puzzle, 81 for a 9x9 puzzle.
+     * @return The puzzle, '.' for empty cells.
+     */
+    public static String encode(int[] values, int offset, int cellCount) {
+        char[] cells = new char[cellCount];
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int value = values[offset + cellIndex];
+            cells[cellIndex] = value == -1 ? '.' : Geometry.getSymbol(value);
+        }
+        return new String(cells);
+    }
+}
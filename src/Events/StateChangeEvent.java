@@ -0,0 +1,24 @@
+package Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event marking a switch of the solver state during a solve.
+ */
+@Name("sudoku.StateChange")
+@Label("Solver State Change")
+@Category({"Sudoku Solver"})
+@Description("Switch of the solver state, e.g. from the deduction rules to the search")
+@StackTrace(false)
+public class StateChangeEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+}
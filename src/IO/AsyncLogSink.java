@@ -0,0 +1,301 @@
+package IO;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous sink moving all formatting and I/O off the logging threads.
+ * <p>
+ * Producers claim a sequence number and store their message in the matching slot of a preallocated
+ * ring buffer, then publish the slot; they never format, lock or write anything. A single consumer
+ * thread takes the published slots in order, formats them and writes them in large buffered chunks,
+ * flushing the output whenever the buffer runs empty.
+ * <p>
+ * When the ring buffer is full, the {@link OverflowPolicy} decides whether a producer waits for room or
+ * drops its message. WARN and ERROR messages are never dropped. The number of dropped messages is reported
+ * in the output as soon as there is room again. Pending messages are written when the sink is closed,
+ * either explicitly or by a shutdown hook when the JVM exits.
+ */
+public class AsyncLogSink implements LogSink {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int SAMPLE_RATE = 16;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long FULL_PARK_NANOS = 10_000;
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final LogLevel[] levels;
+    private final String[] messages;
+    private final AtomicLongArray published;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final OverflowPolicy policy;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+
+    private final Writer writer;
+    private final boolean closeOutput;
+    private final LogFormatter formatter;
+    private final Thread consumer;
+    private final Thread shutdownHook;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile long consumedSequence;
+    private volatile long flushedSequence;
+    private volatile boolean consumerParked;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs an AsyncLogSink writing uncolored messages to a file, replacing its content.
+     *
+     * @param filename The file to write to.
+     * @param capacity The number of messages the ring buffer holds, rounded up to a power of two.
+     * @param policy   What producers do when the ring buffer is full.
+     * @return The sink, already running.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static AsyncLogSink toFile(String filename, int capacity, OverflowPolicy policy) throws IOException {
+        return new AsyncLogSink(new FileOutputStream(filename), true, false, capacity, policy);
+    }
+
+    /**
+     * Constructs an AsyncLogSink writing colored messages to the standard output.
+     *
+     * @param capacity The number of messages the ring buffer holds, rounded up to a power of two.
+     * @param policy   What producers do when the ring buffer is full.
+     * @return The sink, already running.
+     */
+    public static AsyncLogSink toStandardOutput(int capacity, OverflowPolicy policy) {
+        return new AsyncLogSink(System.out, false, true, capacity, policy);
+    }
+
+    /**
+     * Constructs an AsyncLogSink and starts its consumer thread.
+     *
+     * @param output      The stream to write to.
+     * @param closeOutput Whether to close the stream when the sink is closed.
+     * @param colored     Whether to color the levels with ANSI escape codes.
+     * @param capacity    The number of messages the ring buffer holds, rounded up to a power of two.
+     * @param policy      What producers do when the ring buffer is full.
+     */
+    public AsyncLogSink(OutputStream output, boolean closeOutput, boolean colored, int capacity, OverflowPolicy policy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.timestamps = new long[this.capacity];
+        this.levels = new LogLevel[this.capacity];
+        this.messages = new String[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            published.set(i, -1);
+        }
+        this.policy = policy;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), CHUNK_SIZE);
+        this.closeOutput = closeOutput;
+        this.formatter = new LogFormatter(colored);
+
+        this.consumer = new Thread(this::consume, "log-writer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+        this.shutdownHook = new Thread(this::close, "log-writer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void write(long timestamp, LogLevel level, String message) {
+        long sequence = claim(level);
+        if (sequence < 0) {
+            dropped.increment();
+            return;
+        }
+        int index = (int) (sequence & mask);
+        timestamps[index] = timestamp;
+        levels[index] = level;
+        messages[index] = message;
+        published.set(index, sequence); // Publishes the slot to the consumer
+
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Claims the next free slot of the ring buffer, waiting or giving up when it is full.
+     *
+     * @param level The level of the message to store.
+     * @return The sequence number of the claimed slot, or -1 if the message must be dropped.
+     */
+    private long claim(LogLevel level) {
+        boolean mustWait = policy == OverflowPolicy.BLOCK || level.ordinal() >= LogLevel.WARN.ordinal();
+        boolean overflowed = false;
+        while (true) {
+            long sequence = nextSequence.get();
+            if (sequence - consumedSequence < capacity) {
+                if (nextSequence.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+                continue;
+            }
+
+            // The ring buffer is full
+            if (!overflowed) {
+                overflowed = true;
+                if (policy == OverflowPolicy.SAMPLE && overflows.getAndIncrement() % SAMPLE_RATE == 0) {
+                    mustWait = true;
+                }
+            }
+            if (!mustWait || !running) {
+                return -1;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Body of the consumer thread: formats and writes the published messages in order until the sink is closed
+     * and every claimed slot has been written.
+     */
+    private void consume() {
+        StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+        long sequence = 0;
+        long reportedDrops = 0;
+        try {
+            while (true) {
+                int index = (int) (sequence & mask);
+                if (published.get(index) == sequence) {
+                    formatter.format(chunk, timestamps[index], levels[index], messages[index]);
+                    messages[index] = null;
+                    sequence++;
+                    consumedSequence = sequence;
+                    if (chunk.length() >= CHUNK_SIZE) {
+                        writeChunk(chunk);
+                    }
+                    continue;
+                }
+
+                // Nothing left to consume: report the drops and make everything visible
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    formatter.format(chunk, System.currentTimeMillis(), LogLevel.WARN,
+                            "Log buffer full: " + (drops - reportedDrops) + " messages dropped");
+                    reportedDrops = drops;
+                }
+                writeChunk(chunk);
+                writer.flush();
+                flushedSequence = sequence;
+
+                if (!running && nextSequence.get() == sequence) {
+                    break;
+                }
+                consumerParked = true;
+                if (published.get(index) != sequence) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                consumerParked = false;
+            }
+        } catch (IOException e) {
+            System.err.println("Log writer failed: " + e);
+        } finally {
+            running = false;
+            try {
+                if (closeOutput) {
+                    writer.close();
+                } else {
+                    writer.flush();
+                }
+            } catch (IOException ignored) {
+                // Nothing left to report the failure to
+            }
+        }
+    }
+
+    /**
+     * Writes the formatted messages of a chunk and empties it.
+     *
+     * @param chunk The formatted messages.
+     * @throws IOException If the output cannot be written.
+     */
+    private void writeChunk(StringBuilder chunk) throws IOException {
+        if (chunk.length() > 0) {
+            writer.append(chunk);
+            chunk.setLength(0);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long target = nextSequence.get();
+        while (flushedSequence < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // The JVM is already shutting down
+            }
+        }
+    }
+
+    /**
+     * Gets the number of messages dropped because the ring buffer was full.
+     *
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Enum representing what a producer does when the ring buffer is full.
+     * WARN and ERROR messages always wait, whatever the policy.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the consumer frees a slot; no message is lost.
+         */
+        BLOCK,
+        /**
+         * Drop the message.
+         */
+        DROP,
+        /**
+         * Wait for one overflowing message out of every few and drop the others,
+         * so a sample of the overflow still reaches the output.
+         */
+        SAMPLE
+    }
+}
@@ -0,0 +1,41 @@
+package IO;
+
+import IO.BinaryPuzzleFormat.Encoding;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A run of consecutive records of a binary puzzle file, decoded one puzzle at a time straight from its bytes.
+ */
+public class BinaryPuzzleChunk implements PuzzleChunk {
+
+    private final ByteBuffer bytes;
+    private final Encoding encoding;
+    private int remaining;
+    private int position;
+
+    /**
+     * Constructs a BinaryPuzzleChunk.
+     *
+     * @param bytes    The bytes of the records, from the buffer's position. The buffer is only read through
+     *                 absolute accesses.
+     * @param encoding The encoding of the records.
+     * @param count    The number of records.
+     */
+    public BinaryPuzzleChunk(ByteBuffer bytes, Encoding encoding, int count) {
+        this.bytes = bytes;
+        this.encoding = encoding;
+        this.remaining = count;
+        this.position = bytes.position();
+    }
+
+    @Override
+    public boolean nextPuzzle(int[] values, int offset) {
+        if (remaining == 0) {
+            return false;
+        }
+        position += encoding.decode(bytes, position, values, offset);
+        remaining--;
+        return true;
+    }
+}
@@ -0,0 +1,233 @@
+package IO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary puzzle files.
+ * <p>
+ * A file starts with a 32-byte little-endian header: the magic "SDKB", a version, the record encoding, flags,
+ * the number of puzzles, the offset of the first record and the offset of the index (0 if there is none).
+ * The records follow, in one of two encodings:
+ * <ul>
+ *     <li>{@link Encoding#DENSE}: the 81 cells as nibbles, two per byte, 0 for an empty cell (41 bytes);</li>
+ *     <li>{@link Encoding#SPARSE}: an 81-bit mask of the given cells (11 bytes) followed by the given values
+ *     as nibbles (24 bytes for a puzzle with 26 givens).</li>
+ * </ul>
+ * The optional index holds the offset of every record as a long, so any puzzle can be read in constant time
+ * whatever the encoding. Dense records can also be located without an index.
+ */
+public final class BinaryPuzzleFormat {
+
+    public static final int HEADER_SIZE = 32;
+    public static final int VERSION = 1;
+    public static final int FLAG_INDEXED = 1;
+
+    private static final int MAGIC = 'S' | 'D' << 8 | 'K' << 16 | 'B' << 24;
+    private static final int DENSE_RECORD_SIZE = 41;
+    private static final int MASK_SIZE = 11;
+
+    // Private constructor to prevent instantiation
+    private BinaryPuzzleFormat() {
+    }
+
+    /**
+     * Checks if a buffer starts with the magic of a binary puzzle file.
+     *
+     * @param bytes The first bytes of a file, from position 0.
+     * @return True if the bytes start a binary puzzle file; false otherwise.
+     */
+    public static boolean hasMagic(ByteBuffer bytes) {
+        return bytes.limit() >= 4 && bytes.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Encodes the records of a binary puzzle file.
+     */
+    public enum Encoding {
+        DENSE,
+        SPARSE;
+
+        /**
+         * Gets the largest size of a record in this encoding.
+         *
+         * @return The maximum record size in bytes.
+         */
+        public int getMaxRecordSize() {
+            return this == DENSE ? DENSE_RECORD_SIZE : MASK_SIZE + DENSE_RECORD_SIZE;
+        }
+
+        /**
+         * Gets the smallest size of a record in this encoding, the bytes needed to know the size of a record.
+         *
+         * @return The minimum record size in bytes.
+         */
+        public int getMinRecordSize() {
+            return this == DENSE ? DENSE_RECORD_SIZE : MASK_SIZE;
+        }
+
+        /**
+         * Gets the size of the record starting at a position.
+         *
+         * @param bytes    The buffer holding the record, with at least {@link #getMinRecordSize()} bytes
+         *                 from the position.
+         * @param position The absolute position of the record.
+         * @return The size of the record in bytes.
+         */
+        public int getRecordSize(ByteBuffer bytes, int position) {
+            if (this == DENSE) {
+                return DENSE_RECORD_SIZE;
+            }
+            int givens = 0;
+            for (int i = 0; i < MASK_SIZE; i++) {
+                givens += Integer.bitCount(bytes.get(position + i) & 0xFF);
+            }
+            return MASK_SIZE + (givens + 1) / 2;
+        }
+
+        /**
+         * Encodes a puzzle as a record.
+         *
+         * @param output The buffer receiving the record, with at least {@link #getMaxRecordSize()} bytes remaining.
+         * @param values The array holding the values, -1 for empty cells.
+         * @param offset The position in the array of the first cell.
+         */
+        public void encode(ByteBuffer output, int[] values, int offset) {
+            if (this == DENSE) {
+                for (int i = 0; i < 81; i += 2) {
+                    int high = Math.max(values[offset + i], 0);
+                    int low = i + 1 < 81 ? Math.max(values[offset + i + 1], 0) : 0;
+                    output.put((byte) (high << 4 | low));
+                }
+                return;
+            }
+
+            for (int i = 0; i < 81; i += 8) {
+                int mask = 0;
+                for (int bit = 0; bit < 8 && i + bit < 81; bit++) {
+                    if (values[offset + i + bit] > 0) {
+                        mask |= 1 << bit;
+                    }
+                }
+                output.put((byte) mask);
+            }
+            int pending = -1;
+            for (int i = 0; i < 81; i++) {
+                int value = values[offset + i];
+                if (value <= 0) {
+                    continue;
+                }
+                if (pending == -1) {
+                    pending = value;
+                } else {
+                    output.put((byte) (pending << 4 | value));
+                    pending = -1;
+                }
+            }
+            if (pending != -1) {
+                output.put((byte) (pending << 4));
+            }
+        }
+
+        /**
+         * Decodes the record starting at a position.
+         *
+         * @param bytes    The buffer holding the record.
+         * @param position The absolute position of the record.
+         * @param values   The array receiving the 81 values, -1 for empty cells.
+         * @param offset   The position in the array of the first cell.
+         * @return The size of the record in bytes.
+         */
+        public int decode(ByteBuffer bytes, int position, int[] values, int offset) {
+            if (this == DENSE) {
+                for (int i = 0; i < 81; i += 2) {
+                    int packed = bytes.get(position + i / 2);
+                    int high = packed >> 4 & 0xF;
+                    values[offset + i] = high == 0 ? -1 : high;
+                    if (i + 1 < 81) {
+                        int low = packed & 0xF;
+                        values[offset + i + 1] = low == 0 ? -1 : low;
+                    }
+                }
+                return DENSE_RECORD_SIZE;
+            }
+
+            int valuePosition = position + MASK_SIZE;
+            int nibble = 0;
+            for (int i = 0; i < 81; i++) {
+                if ((bytes.get(position + i / 8) >> (i % 8) & 1) == 0) {
+                    values[offset + i] = -1;
+                    continue;
+                }
+                int packed = bytes.get(valuePosition);
+                if (nibble == 0) {
+                    values[offset + i] = packed >> 4 & 0xF;
+                    nibble = 1;
+                } else {
+                    values[offset + i] = packed & 0xF;
+                    nibble = 0;
+                    valuePosition++;
+                }
+            }
+            return valuePosition + nibble - position;
+        }
+    }
+
+    /**
+     * Header of a binary puzzle file.
+     *
+     * @param encoding    The encoding of the records.
+     * @param count       The number of puzzles.
+     * @param dataOffset  The offset of the first record.
+     * @param indexOffset The offset of the index, or 0 if the file has none.
+     */
+    public record Header(Encoding encoding, long count, long dataOffset, long indexOffset) {
+
+        /**
+         * Checks if the file has an index of its records.
+         *
+         * @return True if the file is indexed; false otherwise.
+         */
+        public boolean isIndexed() {
+            return indexOffset != 0;
+        }
+
+        /**
+         * Encodes the header.
+         *
+         * @return A buffer holding the 32 bytes of the header, ready to be written.
+         */
+        public ByteBuffer encode() {
+            ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(MAGIC)
+                    .putShort((short) VERSION)
+                    .put((byte) encoding.ordinal())
+                    .put((byte) (isIndexed() ? FLAG_INDEXED : 0))
+                    .putLong(count)
+                    .putLong(dataOffset)
+                    .putLong(indexOffset);
+            return bytes.flip();
+        }
+
+        /**
+         * Decodes a header.
+         *
+         * @param bytes The 32 bytes of the header, from position 0.
+         * @return The header.
+         * @throws IOException If the bytes are not the header of a supported binary puzzle file.
+         */
+        public static Header decode(ByteBuffer bytes) throws IOException {
+            if (bytes.limit() < HEADER_SIZE || !hasMagic(bytes)) {
+                throw new IOException("Not a binary puzzle file");
+            }
+            bytes.order(ByteOrder.LITTLE_ENDIAN);
+            int version = bytes.getShort(4);
+            int encoding = bytes.get(6);
+            if (version != VERSION || encoding < 0 || encoding >= Encoding.values().length) {
+                throw new IOException("Unsupported binary puzzle file version " + version + " or encoding " + encoding);
+            }
+            return new Header(Encoding.values()[encoding], bytes.getLong(8), bytes.getLong(16), bytes.getLong(24));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package IO;
+
+import IO.BinaryPuzzleFormat.Encoding;
+import IO.BinaryPuzzleFormat.Header;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a binary puzzle file, either sequentially in chunks through memory mapping or one puzzle at a time
+ * by its number.
+ * <p>
+ * Sequential reading maps the records in large windows and hands out chunks of a fixed number of records
+ * as views of the mapping, which worker threads decode concurrently. Random access uses positional reads,
+ * which are safe to call from several threads: dense records are located directly from their number, and
+ * sparse records through the index of the file.
+ */
+public class BinaryPuzzleReader implements PuzzleSource {
+
+    private static final long WINDOW_SIZE = 1L << 26;
+
+    private final FileChannel channel;
+    private final Header header;
+    private final long dataEnd;
+    private final int puzzlesPerChunk;
+    private long nextRecord;
+    private long position;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    /**
+     * Opens a binary puzzle file.
+     *
+     * @param filename        The name of the file to read.
+     * @param puzzlesPerChunk The number of puzzles of each chunk handed out by {@link #nextChunk()}.
+     * @throws IOException If the file cannot be opened or is not a binary puzzle file.
+     */
+    public BinaryPuzzleReader(String filename, int puzzlesPerChunk) throws IOException {
+        if (puzzlesPerChunk < 1) {
+            throw new IllegalArgumentException("The number of puzzles per chunk must be positive");
+        }
+        this.channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        try {
+            ByteBuffer headerBytes = ByteBuffer.allocate(BinaryPuzzleFormat.HEADER_SIZE);
+            readFully(headerBytes, 0);
+            this.header = Header.decode(headerBytes.flip());
+            if (header.isIndexed() && header.indexOffset() + header.count() * Long.BYTES > channel.size()) {
+                throw new IOException("Truncated binary puzzle file");
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.dataEnd = header.isIndexed() ? header.indexOffset() : channel.size();
+        this.puzzlesPerChunk = puzzlesPerChunk;
+        this.position = header.dataOffset();
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    @Override
+    public PuzzleChunk nextChunk() throws IOException {
+        if (nextRecord == header.count()) {
+            return null;
+        }
+        Encoding encoding = header.encoding();
+        int records = (int) Math.min(puzzlesPerChunk, header.count() - nextRecord);
+        map(position, Math.min((long) records * encoding.getMaxRecordSize(), dataEnd - position));
+
+        int start = (int) (position - windowStart);
+        int end = start;
+        for (int i = 0; i < records; i++) {
+            if (end + encoding.getMinRecordSize() > window.limit()) {
+                throw new IOException("Truncated binary puzzle file");
+            }
+            end += encoding.getRecordSize(window, end);
+            if (end > window.limit()) {
+                throw new IOException("Truncated binary puzzle file");
+            }
+        }
+        position += end - start;
+        nextRecord += records;
+        return new BinaryPuzzleChunk(window.slice(start, end - start), encoding, records);
+    }
+
+    /**
+     * Makes sure the current window maps a range of the records, mapping a new window from its start if needed.
+     *
+     * @param start  The offset of the range in the file.
+     * @param length The length of the range.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void map(long start, long length) throws IOException {
+        if (window != null && start >= windowStart && start + length <= windowStart + window.limit()) {
+            return;
+        }
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(Math.max(WINDOW_SIZE, length), dataEnd - start));
+    }
+
+    /**
+     * Reads a puzzle by its number.
+     *
+     * @param index  The number of the puzzle, from 0.
+     * @param values The array receiving the 81 values, -1 for empty cells.
+     * @param offset The position in the array of the first cell.
+     * @throws IOException If the puzzle cannot be read, or cannot be located because a sparse file has no index.
+     */
+    public void readPuzzle(long index, int[] values, int offset) throws IOException {
+        if (index < 0 || index >= header.count()) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " out of " + header.count());
+        }
+        Encoding encoding = header.encoding();
+        long recordOffset;
+        if (encoding == Encoding.DENSE) {
+            recordOffset = header.dataOffset() + index * encoding.getMaxRecordSize();
+        } else if (header.isIndexed()) {
+            ByteBuffer entry = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(entry, header.indexOffset() + index * Long.BYTES);
+            recordOffset = entry.getLong(0);
+        } else {
+            throw new IOException("Sparse binary puzzle file without index: puzzles can only be read sequentially");
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(encoding.getMaxRecordSize());
+        record.limit((int) Math.min(record.capacity(), dataEnd - recordOffset));
+        readFully(record, recordOffset);
+        if (record.limit() < encoding.getMinRecordSize() || encoding.getRecordSize(record, 0) > record.limit()) {
+            throw new IOException("Truncated binary puzzle file");
+        }
+        encoding.decode(record, 0, values, offset);
+    }
+
+    /**
+     * Fills a buffer from a position of the file.
+     *
+     * @param buffer   The buffer to fill up to its limit.
+     * @param position The offset in the file.
+     * @throws IOException If the file ends before the buffer is full.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of binary puzzle file");
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings are released by the garbage collector once their chunks are no longer referenced
+        window = null;
+        channel.close();
+    }
+}
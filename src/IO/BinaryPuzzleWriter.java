@@ -0,0 +1,128 @@
+package IO;
+
+import IO.BinaryPuzzleFormat.Encoding;
+import IO.BinaryPuzzleFormat.Header;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a binary puzzle file, one puzzle at a time.
+ * <p>
+ * Records are encoded into a large reused buffer which is flushed to the file when full. Since the number of
+ * puzzles is only known at the end, the header is written last. The offsets of an indexed file are streamed
+ * to a temporary file and appended after the records on close, so the index never has to fit in memory.
+ */
+public class BinaryPuzzleWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Encoding encoding;
+    private final FileChannel indexChannel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer indexBuffer;
+    private long count;
+    private long position = BinaryPuzzleFormat.HEADER_SIZE;
+
+    /**
+     * Creates a binary puzzle file, replacing its content.
+     *
+     * @param filename The file to write to.
+     * @param encoding The encoding of the records.
+     * @param indexed  Whether to write an index of the records for random access.
+     * @throws IOException If the file cannot be created.
+     */
+    public BinaryPuzzleWriter(String filename, Encoding encoding, boolean indexed) throws IOException {
+        this.path = Path.of(filename);
+        this.encoding = encoding;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (indexed) {
+            Path directory = path.toAbsolutePath().getParent();
+            Path indexPath = Files.createTempFile(directory, path.getFileName().toString(), ".index");
+            this.indexChannel = FileChannel.open(indexPath,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            this.indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            this.indexChannel = null;
+            this.indexBuffer = null;
+        }
+        channel.position(BinaryPuzzleFormat.HEADER_SIZE);
+    }
+
+    /**
+     * Appends a puzzle.
+     *
+     * @param values The array holding the values, -1 for empty cells.
+     * @param offset The position in the array of the first cell.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(int[] values, int offset) throws IOException {
+        if (buffer.remaining() < encoding.getMaxRecordSize()) {
+            drain(buffer, channel);
+        }
+        if (indexBuffer != null) {
+            if (!indexBuffer.hasRemaining()) {
+                drain(indexBuffer, indexChannel);
+            }
+            indexBuffer.putLong(position);
+        }
+        int start = buffer.position();
+        encoding.encode(buffer, values, offset);
+        position += buffer.position() - start;
+        count++;
+    }
+
+    /**
+     * Writes the content of a buffer to a channel and clears the buffer.
+     *
+     * @param source      The buffer to write.
+     * @param destination The channel to write to.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static void drain(ByteBuffer source, FileChannel destination) throws IOException {
+        source.flip();
+        while (source.hasRemaining()) {
+            destination.write(source);
+        }
+        source.clear();
+    }
+
+    /**
+     * Writes the pending records, the index and the header, then closes the file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(buffer, channel);
+            long indexOffset = 0;
+            if (indexChannel != null) {
+                drain(indexBuffer, indexChannel);
+                indexOffset = position;
+                long indexSize = indexChannel.size();
+                long copied = 0;
+                while (copied < indexSize) {
+                    copied += indexChannel.transferTo(copied, indexSize - copied, channel);
+                }
+            }
+            ByteBuffer header = new Header(encoding, count, BinaryPuzzleFormat.HEADER_SIZE, indexOffset).encode();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package IO;
+
+import java.io.PrintStream;
+
+/**
+ * Synchronous sink printing colored messages to a console stream.
+ * Each message is formatted into a reused buffer and printed in a single call, under a lock,
+ * so messages of concurrent threads never interleave.
+ */
+public class ConsoleSink implements LogSink {
+
+    private final PrintStream out;
+    private final LogFormatter formatter;
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * Constructs a ConsoleSink printing to the standard output.
+     */
+    public ConsoleSink() {
+        this(System.out);
+    }
+
+    /**
+     * Constructs a ConsoleSink.
+     *
+     * @param out The stream to print to.
+     */
+    public ConsoleSink(PrintStream out) {
+        this(out, true);
+    }
+
+    /**
+     * Constructs a ConsoleSink.
+     *
+     * @param out     The stream to print to.
+     * @param colored Whether to color the levels, e.g. false when the stream is redirected to a file.
+     */
+    public ConsoleSink(PrintStream out, boolean colored) {
+        this.out = out;
+        this.formatter = new LogFormatter(colored);
+    }
+
+    @Override
+    public synchronized void write(long timestamp, LogLevel level, String message) {
+        buffer.setLength(0);
+        formatter.format(buffer, timestamp, level, message);
+        out.print(buffer);
+    }
+
+    @Override
+    public synchronized void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -1,18 +1,25 @@
 package IO;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+
 public class Input {
 
+    private static BufferedReader reader; // Standard input, when there is no console
+
         /**
         * Asks the user for a file path and returns it.
         *
         * @param message The message to display to the user.
-        * @return The file path entered by the user.
+        * @return The file path entered by the user, or null if none was entered or the input has ended.
         */
         public static String askFilePath(String message) {
             while (true) {
             System.out.println(message);
-                String input = System.console().readLine().trim();
-                if (input.isEmpty()) {
+                String input = readLine();
+                if (input == null || input.isEmpty()) {
                     return null;
                 }
                 // Check if the file exists
@@ -30,12 +37,16 @@ public class Input {
      *
      * @param message The message to display to the user.
      *
-     * @return True if the user answers "y", false if the user answers "n".
+     * @return True if the user answers "y", false if the user answers "n" or the input has ended.
      */
     public static boolean askYesNo(String message) {
         while (true) {
             System.out.println(message);
-            String input = System.console().readLine().trim().toLowerCase();
+            String input = readLine();
+            if (input == null) {
+                return false; // No more input: answer no rather than asking forever
+            }
+            input = input.toLowerCase();
             if (input.equals("y")) {
                 return true;
             } else if (input.equals("n")) {
@@ -45,4 +56,27 @@ public class Input {
             }
         }
     }
+
+    /**
+     * Reads a line typed by the user, from the console if there is one and from the standard input otherwise,
+     * e.g. when the input is redirected or the application runs under a job scheduler.
+     *
+     * @return The trimmed line, or null if the input has ended.
+     */
+    private static String readLine() {
+        String line;
+        if (System.console() != null) {
+            line = System.console().readLine();
+        } else {
+            try {
+                if (reader == null) {
+                    reader = new BufferedReader(new InputStreamReader(System.in));
+                }
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return line == null ? null : line.trim();
+    }
 }
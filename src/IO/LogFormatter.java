@@ -0,0 +1,122 @@
+package IO;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats log messages with a timestamp and a level, aligning the continuation lines of multi-line messages.
+ * An uncolored formatter also strips the ANSI escape codes that messages built with {@link MessageBuilder} carry,
+ * so logs redirected to a file or a pipe hold plain text.
+ * The formatted timestamp is cached for the current second, so most messages format no date at all.
+ * A formatter is not thread-safe: each sink uses its own from a single thread at a time.
+ */
+class LogFormatter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final char ESCAPE = '\u001B';
+    private static final String RESET = "\u001B[0m";
+    private static final String TIMESTAMP_PADDING = "                   ";
+    private static final String LEVEL_PADDING = "      ";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final boolean colored;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    /**
+     * Constructs a LogFormatter.
+     *
+     * @param colored Whether to color the level with ANSI escape codes, and keep those of the messages.
+     */
+    LogFormatter(boolean colored) {
+        this.colored = colored;
+    }
+
+    /**
+     * Appends a formatted message, one output line per line of the message.
+     *
+     * @param output    The builder receiving the formatted lines.
+     * @param timestamp The time of the message, in milliseconds since the epoch.
+     * @param level     The level of the message.
+     * @param message   The message.
+     */
+    void format(StringBuilder output, long timestamp, LogLevel level, String message) {
+        // Trailing line breaks do not produce empty lines
+        int end = message.length();
+        while (end > 0 && message.charAt(end - 1) == '\n') {
+            end--;
+        }
+
+        int start = 0;
+        boolean firstLine = true;
+        do {
+            int lineEnd = message.indexOf('\n', start);
+            if (lineEnd == -1 || lineEnd > end) {
+                lineEnd = end;
+            }
+            if (firstLine) {
+                output.append(getTimestamp(timestamp)).append(' ');
+                if (colored) {
+                    output.append(level.getColor());
+                }
+                String name = level.toString();
+                output.append(name).append(LEVEL_PADDING, Math.min(name.length(), LEVEL_PADDING.length()),
+                        LEVEL_PADDING.length());
+            } else {
+                output.append(TIMESTAMP_PADDING).append(' ').append(LEVEL_PADDING);
+            }
+            if (colored) {
+                output.append(RESET);
+            }
+            output.append(": ");
+            appendLine(output, message, start, lineEnd);
+            output.append(LINE_SEPARATOR);
+            start = lineEnd + 1;
+            firstLine = false;
+        } while (start < end);
+    }
+
+    /**
+     * Appends a line of a message, without its ANSI escape codes unless the formatter is colored.
+     *
+     * @param output  The builder receiving the line.
+     * @param message The message.
+     * @param start   The index of the first character of the line.
+     * @param end     The index after the last character of the line.
+     */
+    private void appendLine(StringBuilder output, String message, int start, int end) {
+        int escape = colored ? -1 : message.indexOf(ESCAPE, start);
+        while (escape != -1 && escape < end) {
+            output.append(message, start, escape);
+            // A control sequence ends at its first character from '@' to '~' after the bracket
+            start = escape + 1;
+            if (start < end && message.charAt(start) == '[') {
+                start++;
+                while (start < end && (message.charAt(start) < '@' || message.charAt(start) > '~')) {
+                    start++;
+                }
+                start = Math.min(start + 1, end);
+            }
+            escape = message.indexOf(ESCAPE, start);
+        }
+        output.append(message, start, end);
+    }
+
+    /**
+     * Gets the formatted timestamp of a time, reusing the previous one within the same second.
+     *
+     * @param timestamp The time in milliseconds since the epoch.
+     * @return The formatted timestamp.
+     */
+    private String getTimestamp(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zone).format(TIMESTAMP_FORMAT);
+        }
+        return cachedTimestamp;
+    }
+}
@@ -0,0 +1,29 @@
+package IO;
+
+/**
+ * Destination of the messages accepted by the {@link Logger}.
+ * The logger has already checked the level when a sink receives a message.
+ * Implementations must be safe to call from several threads at once.
+ */
+public interface LogSink {
+
+    /**
+     * Writes a message.
+     *
+     * @param timestamp The time of the message, in milliseconds since the epoch.
+     * @param level     The level of the message.
+     * @param message   The message, possibly spanning several lines.
+     */
+    void write(long timestamp, LogLevel level, String message);
+
+    /**
+     * Waits until every message written so far has reached its destination.
+     */
+    void flush();
+
+    /**
+     * Flushes the pending messages and releases the resources of the sink.
+     * Messages written after the sink is closed may be lost.
+     */
+    void close();
+}
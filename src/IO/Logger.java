@@ -1,12 +1,23 @@
 package IO;
 
+import java.util.function.Supplier;
+
 /**
  * Logger class for handling logging at different levels.
  * Supports various log levels and formats messages with timestamps and colors.
+ * The logger can be used from several threads: the level and the sink are published safely,
+ * and the {@link LogSink} receiving the messages is responsible for writing them without interleaving.
+ * Messages go to a synchronous {@link ConsoleSink} by default; an {@link AsyncLogSink} moves the
+ * formatting and the I/O to a background thread.
+ * <p>
+ * Every method checks the level before building its message, so a disabled message is never formatted
+ * and never converted to a string. Hot paths should also avoid boxing and varargs arrays for disabled
+ * messages, either by guarding the call with {@link #isEnabled(LogLevel)} or by passing a {@link Supplier}.
  */
 public class Logger {
 
-    private static LogLevel logLevel = LogLevel.INFO;
+    private static volatile LogLevel logLevel = LogLevel.INFO;
+    private static volatile LogSink sink = new ConsoleSink();
 
     // Private constructor to prevent instantiation
     private Logger() {
@@ -30,6 +41,64 @@ public class Logger {
         logLevel = level;
     }
 
+    /**
+     * Gets the sink receiving the logged messages.
+     *
+     * @return The current LogSink.
+     */
+    public static LogSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Replaces the sink receiving the logged messages.
+     * The previous sink is flushed but not closed, so it can be restored later.
+     *
+     * @param newSink The LogSink to use.
+     * @return The previous LogSink.
+     */
+    public static LogSink setSink(LogSink newSink) {
+        LogSink previousSink = sink;
+        sink = newSink;
+        previousSink.flush();
+        return previousSink;
+    }
+
+    /**
+     * Waits until every message logged so far has been written by the sink.
+     */
+    public static void flush() {
+        sink.flush();
+    }
+
+    /**
+     * Checks if messages at the given level are logged.
+     *
+     * @param level The LogLevel to check.
+     * @return True if messages at this level are logged; false otherwise.
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= logLevel.ordinal();
+    }
+
+    /**
+     * Checks if messages at TRACE level are logged.
+     *
+     * @return True if TRACE messages are logged; false otherwise.
+     */
+    public static boolean isTraceEnabled() {
+        return isEnabled(LogLevel.TRACE);
+    }
+
+    /**
+     * Checks if messages at DEBUG level are logged.
+     *
+     * @return True if DEBUG messages are logged; false otherwise.
+     */
+    public static boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
     /**
      * Logs a message at the specified log level.
      *
@@ -37,22 +106,8 @@ public class Logger {
      * @param message The message to log.
      */
     public static void log(LogLevel level, String message) {
-        if (level.ordinal() >= logLevel.ordinal()) {
-            String color = level.getColor();
-            String timestamp = java.time.LocalDateTime.now()
-                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            String[] lines = message.split("\n");
-            for (int i = 0; i < lines.length; i++) {
-                String line = lines[i];
-                String timeToPrint = (i == 0) ? timestamp : "                   "; // Align timestamps
-                String colorToPrint = (i == 0) ? color : "";
-                String levelToPrint = (i == 0) ? level.toString() : "      ";
-                System.out.printf("%s %s%-6s\u001B[0m: %s%n",
-                        timeToPrint,
-                        colorToPrint,
-                        levelToPrint,
-                        line);
-            }
+        if (isEnabled(level)) {
+            sink.write(System.currentTimeMillis(), level, message);
         }
     }
 
@@ -63,7 +118,40 @@ public class Logger {
      * @param message The object whose string representation will be logged.
      */
     public static void log(LogLevel level, Object message) {
-        log(level, message.toString());
+        if (isEnabled(level)) {
+            log(level, message.toString());
+        }
+    }
+
+    /**
+     * Logs a lazily built message at the specified log level.
+     * The supplier is only called if the level is enabled.
+     *
+     * @param level   The LogLevel at which to log.
+     * @param message The supplier of the message to log.
+     */
+    public static void log(LogLevel level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            log(level, message.get());
+        }
+    }
+
+    /**
+     * Logs a lazily built message at TRACE level.
+     *
+     * @param message The supplier of the message to log.
+     */
+    public static void trace(Supplier<String> message) {
+        log(LogLevel.TRACE, message);
+    }
+
+    /**
+     * Logs a lazily built message at DEBUG level.
+     *
+     * @param message The supplier of the message to log.
+     */
+    public static void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, message);
     }
 
     /**
@@ -128,7 +216,9 @@ public class Logger {
      * @param args    Arguments referenced by the format specifiers in the format string.
      */
     public static void log(LogLevel level, String message, Object... args) {
-        log(level, String.format(message, args));
+        if (isEnabled(level)) {
+            log(level, String.format(message, args));
+        }
     }
 
     /**
@@ -198,6 +288,9 @@ public class Logger {
      * @param e     The exception to log.
      */
     public static void log(LogLevel level, Exception e) {
+        if (!isEnabled(level)) {
+            return;
+        }
         log(level, e.toString());
         for (StackTraceElement element : e.getStackTrace()) {
             log(level, "    at " + element.toString());
@@ -0,0 +1,115 @@
+package IO;
+
+import Utils.Geometry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a puzzle file through memory mapping, without copying its bytes or creating any object per line.
+ * <p>
+ * The file is mapped in large line-aligned windows, which keeps the number of mappings low for files of
+ * several gigabytes. Each window is cut into line-aligned chunks of about the requested size, which are
+ * views of the mapping: decoding them reads the page cache directly, and several threads can decode
+ * different chunks at the same time.
+ */
+public class MappedPuzzleReader implements PuzzleSource {
+
+    private static final long WINDOW_SIZE = 1L << 26;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkSize;
+    private final Geometry geometry;
+    private long windowStart;
+    private MappedByteBuffer window;
+    private int windowPosition;
+
+    /**
+     * Opens a file of 9x9 puzzles.
+     *
+     * @param filename  The name of the file to read.
+     * @param chunkSize The approximate size of the chunks in bytes; a chunk is extended to the end of its last line.
+     * @throws IOException If the file cannot be opened.
+     */
+    public MappedPuzzleReader(String filename, int chunkSize) throws IOException {
+        this(filename, chunkSize, Geometry.STANDARD);
+    }
+
+    /**
+     * Opens a puzzle file.
+     *
+     * @param filename  The name of the file to read.
+     * @param chunkSize The approximate size of the chunks in bytes; a chunk is extended to the end of its last line.
+     * @param geometry  The shape of the puzzles.
+     * @throws IOException If the file cannot be opened.
+     */
+    public MappedPuzzleReader(String filename, int chunkSize, Geometry geometry) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.chunkSize = chunkSize;
+        this.geometry = geometry;
+    }
+
+    @Override
+    public PuzzleChunk nextChunk() throws IOException {
+        if (window == null || windowPosition == window.limit()) {
+            if (!mapNextWindow()) {
+                return null;
+            }
+        }
+
+        int start = windowPosition;
+        int end = (int) Math.min((long) start + chunkSize, window.limit());
+        // Extend the chunk to the end of its last line; the window itself ends with a complete line
+        while (end < window.limit() && window.get(end - 1) != '\n') {
+            end++;
+        }
+        windowPosition = end;
+        return new TextPuzzleChunk(window.slice(start, end - start), geometry);
+    }
+
+    /**
+     * Maps the window following the current one, ending it at its last line break unless it reaches the end of the file.
+     *
+     * @return False if the end of the file was reached; true otherwise.
+     * @throws IOException If the file cannot be mapped or contains a line longer than a window.
+     */
+    private boolean mapNextWindow() throws IOException {
+        if (window != null) {
+            windowStart += window.limit();
+        }
+        if (windowStart >= fileSize) {
+            return false;
+        }
+
+        long length = Math.min(WINDOW_SIZE, fileSize - windowStart);
+        MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        int limit = (int) length;
+        if (windowStart + length < fileSize) {
+            while (limit > 0 && mapping.get(limit - 1) != '\n') {
+                limit--;
+            }
+            if (limit == 0) {
+                throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + windowStart);
+            }
+        }
+        mapping.limit(limit);
+        window = mapping;
+        windowPosition = 0;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings are released by the garbage collector once their chunks are no longer referenced
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,215 @@
+package IO;
+
+import Rules.Rating;
+import Utils.Difficulty;
+import Utils.Geometry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Line formats in which a SolutionWriter encodes the results, one character per cell as in the puzzle files
+ * (values above 9 as letters, A standing for 10), empty cells written as '.'. When the solutions of the puzzles
+ * are counted, each line then holds the number of solutions found, up to the solution limit; when the puzzles are
+ * rated, each line ends with the numeric rating, followed by '+' if the deduction rules could not solve the puzzle.
+ */
+public enum OutputFormat {
+    /**
+     * The solution, 81 characters for a 9x9 puzzle, followed by the difficulty and "solved" or "unsolved",
+     * separated by spaces. The lines can be read back as puzzles, since everything after the last cell is ignored.
+     */
+    TEXT(null, 1, 1 + 10 + 1 + 8 + 1 + 10 + 1 + 5 + 1),
+    /**
+     * Comma-separated puzzle, solution, difficulty and solved flag, after a header line.
+     */
+    CSV("puzzle,solution,difficulty,solved", 2, 1 + 1 + 10 + 1 + 5 + 1 + 10 + 1 + 5 + 1);
+
+    private static final byte[][] DIFFICULTY_NAMES = new byte[Difficulty.values().length][];
+    private static final byte[] SOLVED = " solved".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNSOLVED = " unsolved".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = ",true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = ",false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SOLUTIONS_COLUMN = ",solutions".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RATING_COLUMN = ",rating".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (Difficulty difficulty : Difficulty.values()) {
+            DIFFICULTY_NAMES[difficulty.ordinal()] = difficulty.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final byte[] header;
+    private final int gridCount; // Number of grids written per record
+    private final int maxTrailerSize; // Maximum number of bytes of a record besides its grids, with every column
+
+    OutputFormat(String header, int gridCount, int maxTrailerSize) {
+        this.header = header == null ? null : header.getBytes(StandardCharsets.US_ASCII);
+        this.gridCount = gridCount;
+        this.maxTrailerSize = maxTrailerSize;
+    }
+
+    /**
+     * Gets the bytes written once at the start of the output.
+     *
+     * @return The header, empty if the format has none.
+     */
+    public byte[] getHeader() {
+        return getHeader(false, false);
+    }
+
+    /**
+     * Gets the bytes written once at the start of the output.
+     *
+     * @param solutionCounts Whether the lines hold the number of solutions of the puzzle.
+     * @param ratings        Whether the lines end with the numeric rating of the puzzle.
+     * @return The header, empty if the format has none.
+     */
+    public byte[] getHeader(boolean solutionCounts, boolean ratings) {
+        if (header == null) {
+            return new byte[0];
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(header.length + SOLUTIONS_COLUMN.length + RATING_COLUMN.length + 1)
+                .put(header);
+        if (solutionCounts) {
+            bytes.put(SOLUTIONS_COLUMN);
+        }
+        if (ratings) {
+            bytes.put(RATING_COLUMN);
+        }
+        bytes.put((byte) '\n');
+        return Arrays.copyOf(bytes.array(), bytes.position());
+    }
+
+    /**
+     * Gets the maximum number of bytes of an encoded result of a 9x9 puzzle.
+     *
+     * @return The maximum record size in bytes.
+     */
+    public int getMaxRecordSize() {
+        return getMaxRecordSize(Geometry.STANDARD.getCellCount());
+    }
+
+    /**
+     * Gets the maximum number of bytes of an encoded result.
+     *
+     * @param cellCount The number of cells of the puzzles.
+     * @return The maximum record size in bytes.
+     */
+    public int getMaxRecordSize(int cellCount) {
+        return gridCount * cellCount + maxTrailerSize;
+    }
+
+    /**
+     * Encodes the result of a 9x9 puzzle as one line.
+     *
+     * @param output         The buffer receiving the line, with at least {@link #getMaxRecordSize()} bytes remaining.
+     * @param puzzle         The array holding the puzzle values, -1 for empty cells.
+     * @param puzzleOffset   The position in the puzzle array of the first cell.
+     * @param solution       The array holding the final grid values, -1 for empty cells.
+     * @param solutionOffset The position in the solution array of the first cell.
+     * @param difficulty     The difficulty of the puzzle.
+     * @param solved         Whether the puzzle was solved.
+     */
+    public void encode(ByteBuffer output, int[] puzzle, int puzzleOffset, int[] solution, int solutionOffset,
+                       Difficulty difficulty, boolean solved) {
+        encode(output, Geometry.STANDARD.getCellCount(), puzzle, puzzleOffset, solution, solutionOffset,
+                difficulty, solved);
+    }
+
+    /**
+     * Encodes the result of a puzzle as one line.
+     *
+     * @param output         The buffer receiving the line, with at least {@link #getMaxRecordSize(int)} bytes
+     *                       remaining.
+     * @param cellCount      The number of cells of the puzzle.
+     * @param puzzle         The array holding the puzzle values, -1 for empty cells.
+     * @param puzzleOffset   The position in the puzzle array of the first cell.
+     * @param solution       The array holding the final grid values, -1 for empty cells.
+     * @param solutionOffset The position in the solution array of the first cell.
+     * @param difficulty     The difficulty of the puzzle.
+     * @param solved         Whether the puzzle was solved.
+     */
+    public void encode(ByteBuffer output, int cellCount, int[] puzzle, int puzzleOffset, int[] solution,
+                       int solutionOffset, Difficulty difficulty, boolean solved) {
+        encode(output, cellCount, puzzle, puzzleOffset, solution, solutionOffset, difficulty, solved, -1, null);
+    }
+
+    /**
+     * Encodes the result of a puzzle as one line, ending with its number of solutions if they were counted
+     * and its rating if it was rated.
+     *
+     * @param output         The buffer receiving the line, with at least {@link #getMaxRecordSize(int)} bytes
+     *                       remaining.
+     * @param cellCount      The number of cells of the puzzle.
+     * @param puzzle         The array holding the puzzle values, -1 for empty cells.
+     * @param puzzleOffset   The position in the puzzle array of the first cell.
+     * @param solution       The array holding the final grid values, -1 for empty cells.
+     * @param solutionOffset The position in the solution array of the first cell.
+     * @param difficulty     The difficulty of the puzzle.
+     * @param solved         Whether the puzzle was solved.
+     * @param solutionCount  The number of solutions of the puzzle, or -1 if they were not counted.
+     * @param rating         The numeric rating of the puzzle, or null if it was not rated.
+     */
+    public void encode(ByteBuffer output, int cellCount, int[] puzzle, int puzzleOffset, int[] solution,
+                       int solutionOffset, Difficulty difficulty, boolean solved, int solutionCount,
+                       Rating rating) {
+        byte separator;
+        if (this == CSV) {
+            putGrid(output, puzzle, puzzleOffset, cellCount);
+            output.put((byte) ',');
+            putGrid(output, solution, solutionOffset, cellCount);
+            output.put((byte) ',').put(DIFFICULTY_NAMES[difficulty.ordinal()]).put(solved ? TRUE : FALSE);
+            separator = ',';
+        } else {
+            putGrid(output, solution, solutionOffset, cellCount);
+            output.put((byte) ' ').put(DIFFICULTY_NAMES[difficulty.ordinal()]).put(solved ? SOLVED : UNSOLVED);
+            separator = ' ';
+        }
+        if (solutionCount >= 0) {
+            output.put(separator);
+            putNumber(output, solutionCount);
+        }
+        if (rating != null) {
+            int tenths = rating.scoreTenths();
+            output.put(separator);
+            putNumber(output, tenths / 10);
+            output.put((byte) '.').put((byte) ('0' + tenths % 10));
+            if (!rating.isComplete()) {
+                output.put((byte) '+');
+            }
+        }
+        output.put((byte) '\n');
+    }
+
+    /**
+     * Writes a non-negative number in decimal.
+     *
+     * @param output The buffer receiving the digits.
+     * @param number The number to write.
+     */
+    private static void putNumber(ByteBuffer output, int number) {
+        int divisor = 1;
+        while (number / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            output.put((byte) ('0' + number / divisor % 10));
+        }
+    }
+
+    /**
+     * Writes the values of a grid as characters.
+     *
+     * @param output    The buffer receiving the characters.
+     * @param values    The array holding the values, -1 for empty cells.
+     * @param offset    The position in the array of the first cell.
+     * @param cellCount The number of cells of the grid.
+     */
+    private static void putGrid(ByteBuffer output, int[] values, int offset, int cellCount) {
+        for (int i = offset; i < offset + cellCount; i++) {
+            int value = values[i];
+            output.put(value > 0 ? (byte) Geometry.getSymbol(value) : (byte) '.');
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package IO;
+
+/**
+ * A part of the input of a {@link PuzzleSource}, decoded one puzzle at a time.
+ * A chunk is decoded by a single thread, but different chunks of the same source can be decoded concurrently.
+ */
+public interface PuzzleChunk {
+
+    /**
+     * Decodes the next puzzle of the chunk.
+     *
+     * @param values The array receiving one value per cell, 81 for a 9x9 puzzle, -1 for empty cells.
+     * @param offset The position in the array of the first cell.
+     * @return True if a puzzle was decoded; false if the chunk has no puzzle left.
+     */
+    boolean nextPuzzle(int[] values, int offset);
+}
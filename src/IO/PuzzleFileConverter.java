@@ -0,0 +1,98 @@
+package IO;
+
+import IO.BinaryPuzzleFormat.Encoding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts puzzle files between the text format and the binary format.
+ */
+public class PuzzleFileConverter {
+
+    private static final int PUZZLES_PER_CHUNK = 4096;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // Private constructor to prevent instantiation
+    private PuzzleFileConverter() {
+    }
+
+    /**
+     * Converts a text puzzle file to a binary puzzle file.
+     *
+     * @param textFile   The text file to read.
+     * @param binaryFile The binary file to write, replaced if it exists.
+     * @param encoding   The encoding of the records.
+     * @param indexed    Whether to write an index of the records for random access.
+     * @return The number of puzzles converted.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static long textToBinary(String textFile, String binaryFile, Encoding encoding, boolean indexed)
+            throws IOException {
+        long count = 0;
+        int[] values = new int[81];
+        try (PuzzleSource source = PuzzleSourceFactory.openSource(PuzzleSourceFactory.SourceFormat.TEXT,
+                textFile, PUZZLES_PER_CHUNK);
+             BinaryPuzzleWriter writer = new BinaryPuzzleWriter(binaryFile, encoding, indexed)) {
+            PuzzleChunk chunk;
+            while ((chunk = source.nextChunk()) != null) {
+                while (chunk.nextPuzzle(values, 0)) {
+                    writer.write(values, 0);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts a binary puzzle file to a text puzzle file, one 81-character line per puzzle with '.' for empty cells.
+     *
+     * @param binaryFile The binary file to read.
+     * @param textFile   The text file to write, replaced if it exists.
+     * @return The number of puzzles converted.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static long binaryToText(String binaryFile, String textFile) throws IOException {
+        long count = 0;
+        int[] values = new int[81];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (PuzzleSource source = new BinaryPuzzleReader(binaryFile, PUZZLES_PER_CHUNK);
+             FileChannel output = FileChannel.open(Path.of(textFile),
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            PuzzleChunk chunk;
+            while ((chunk = source.nextChunk()) != null) {
+                while (chunk.nextPuzzle(values, 0)) {
+                    if (buffer.remaining() < 82) {
+                        drain(buffer, output);
+                    }
+                    for (int value : values) {
+                        buffer.put(value > 0 ? (byte) ('0' + value) : (byte) '.');
+                    }
+                    buffer.put((byte) '\n');
+                    count++;
+                }
+            }
+            drain(buffer, output);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the content of a buffer to a channel and clears the buffer.
+     *
+     * @param buffer The buffer to write.
+     * @param output The channel to write to.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static void drain(ByteBuffer buffer, FileChannel output) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package IO;
+
+import java.io.IOException;
+
+/**
+ * Source of puzzles split into chunks that can be decoded independently, e.g. by different threads.
+ * Chunks are handed out in input order by a single thread.
+ */
+public interface PuzzleSource extends AutoCloseable {
+
+    /**
+     * Gets the next chunk of the input.
+     *
+     * @return The next chunk, or null at the end of the input.
+     * @throws IOException If the input cannot be read.
+     */
+    PuzzleChunk nextChunk() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
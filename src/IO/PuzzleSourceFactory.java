@@ -0,0 +1,117 @@
+package IO;
+
+import Utils.Geometry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Factory class for creating PuzzleSource instances from puzzle files.
+ */
+public class PuzzleSourceFactory {
+
+    public static final String STANDARD_STREAM = "-"; // File name standing for the standard input or output
+
+    /**
+     * Opens a file of 9x9 puzzles, detecting whether it is a binary or a text file from its first bytes.
+     * The name "-" stands for the standard input, read as text.
+     *
+     * @param filename        The name of the file to read, or "-" for the standard input.
+     * @param puzzlesPerChunk The approximate number of puzzles of each chunk.
+     * @return The source of the puzzles of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static PuzzleSource openSource(String filename, int puzzlesPerChunk) throws IOException {
+        return openSource(filename, puzzlesPerChunk, Geometry.STANDARD);
+    }
+
+    /**
+     * Opens a puzzle file, detecting whether it is a binary or a text file from its first bytes.
+     * The name "-" stands for the standard input, read as text.
+     *
+     * @param filename        The name of the file to read, or "-" for the standard input.
+     * @param puzzlesPerChunk The approximate number of puzzles of each chunk.
+     * @param geometry        The shape of the puzzles.
+     * @return The source of the puzzles of the file.
+     * @throws IOException If the file cannot be opened, or is a binary file of puzzles of another shape.
+     */
+    public static PuzzleSource openSource(String filename, int puzzlesPerChunk, Geometry geometry)
+            throws IOException {
+        if (STANDARD_STREAM.equals(filename)) {
+            return StreamPuzzleReader.fromStandardInput(puzzlesPerChunk * getTextLineSize(geometry), geometry);
+        }
+        return openSource(detectFormat(filename), filename, puzzlesPerChunk, geometry);
+    }
+
+    /**
+     * Opens a file of 9x9 puzzles of the given format.
+     *
+     * @param format          The format of the file.
+     * @param filename        The name of the file to read.
+     * @param puzzlesPerChunk The approximate number of puzzles of each chunk.
+     * @return The source of the puzzles of the file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static PuzzleSource openSource(SourceFormat format, String filename, int puzzlesPerChunk) throws IOException {
+        return openSource(format, filename, puzzlesPerChunk, Geometry.STANDARD);
+    }
+
+    /**
+     * Opens a puzzle file of the given format.
+     *
+     * @param format          The format of the file.
+     * @param filename        The name of the file to read.
+     * @param puzzlesPerChunk The approximate number of puzzles of each chunk.
+     * @param geometry        The shape of the puzzles.
+     * @return The source of the puzzles of the file.
+     * @throws IOException If the file cannot be opened, or is a binary file of puzzles of another shape.
+     */
+    public static PuzzleSource openSource(SourceFormat format, String filename, int puzzlesPerChunk,
+                                          Geometry geometry) throws IOException {
+        if (format == SourceFormat.BINARY && geometry != Geometry.STANDARD) {
+            throw new IOException("Binary puzzle files only hold 9x9 puzzles: " + filename);
+        }
+        return switch (format) {
+            case TEXT -> new MappedPuzzleReader(filename, puzzlesPerChunk * getTextLineSize(geometry), geometry);
+            case BINARY -> new BinaryPuzzleReader(filename, puzzlesPerChunk);
+        };
+    }
+
+    /**
+     * Gets the size of a line of a text puzzle file.
+     *
+     * @param geometry The shape of the puzzles.
+     * @return The number of bytes of a puzzle and its line break, e.g. 82 for a 9x9 puzzle.
+     */
+    private static int getTextLineSize(Geometry geometry) {
+        return geometry.getCellCount() + 1;
+    }
+
+    /**
+     * Detects the format of a puzzle file from its first bytes.
+     *
+     * @param filename The name of the file.
+     * @return BINARY if the file starts with the binary magic; TEXT otherwise.
+     * @throws IOException If the file cannot be read.
+     */
+    public static SourceFormat detectFormat(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until the magic is complete or the file ends
+            }
+            return BinaryPuzzleFormat.hasMagic(magic.flip()) ? SourceFormat.BINARY : SourceFormat.TEXT;
+        }
+    }
+
+    /**
+     * Enum representing the formats of puzzle files.
+     */
+    public enum SourceFormat {
+        TEXT,
+        BINARY
+    }
+}
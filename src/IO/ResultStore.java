@@ -0,0 +1,472 @@
+package IO;
+
+import IO.BinaryPuzzleFormat.Encoding;
+import Utils.Difficulty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded store of solved puzzles, kept on disk so that later runs can reuse the results.
+ * <p>
+ * The results are appended to a log file of fixed-size records, each one holding a configuration tag, the puzzle
+ * and its final grid packed as nibbles, the difficulty, and a CRC32 of the record. Records are never modified.
+ * A hash index of the records, in a memory-mapped file next to the log, maps each tag and puzzle to its record.
+ * <p>
+ * The index is only trusted when the store was closed cleanly: it is marked dirty while the store is open.
+ * Otherwise, the log is scanned, truncated after its last valid record (dropping a record torn by a crash),
+ * and the index is rebuilt from it.
+ * <p>
+ * All the methods are synchronized, so the store can be shared by several threads.
+ */
+public class ResultStore implements AutoCloseable {
+
+    private static final int LOG_MAGIC = 'S' | 'D' << 8 | 'K' << 16 | 'R' << 24;
+    private static final int INDEX_MAGIC = 'S' | 'D' << 8 | 'K' << 16 | 'I' << 24;
+    private static final int VERSION = 1;
+    private static final int LOG_HEADER_SIZE = 16;
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int KEY_SIZE = 42; // Tag and dense puzzle
+    private static final int RECORD_SIZE = KEY_SIZE + 41 + 1 + 4; // Key, dense grid, flags, CRC32
+    private static final int FLAGS_OFFSET = KEY_SIZE + 41;
+    private static final int CRC_OFFSET = FLAGS_OFFSET + 1;
+    private static final int SOLVED_FLAG = 0x80;
+    private static final int MIN_CAPACITY = 1 << 12;
+    private static final int MAX_CAPACITY = 1 << 27; // Slots of the largest index that can be mapped
+    private static final int MAX_RECORDS = MAX_CAPACITY / 2;
+    private static final long DIRTY = -1;
+    private static final int BUFFER_SIZE = RECORD_SIZE * 1024;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final FileChannel log;
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE) // Records not written yet
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final byte[] key = new byte[KEY_SIZE];
+    private final ByteBuffer keyBuffer = ByteBuffer.wrap(key);
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count; // Number of records in the log, including the pending ones
+    private int writtenCount; // Number of records written to the log file
+    private long hits;
+    private long misses;
+    private boolean closed;
+
+    /**
+     * Opens a result store, creating it if needed.
+     *
+     * @param filename The log file of the store; the index is kept in the same file with an ".idx" suffix.
+     * @throws IOException If the files cannot be opened or are not a result store.
+     */
+    public ResultStore(String filename) throws IOException {
+        this.logPath = Path.of(filename);
+        this.indexPath = Path.of(filename + ".idx");
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (log.size() < LOG_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(LOG_MAGIC).putShort((short) VERSION).putShort((short) RECORD_SIZE);
+            header.position(LOG_HEADER_SIZE).flip(); // The remaining header bytes are reserved and left zero
+            log.truncate(0);
+            writeFully(header, 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(header, 0);
+            if (header.getInt(0) != LOG_MAGIC || header.getShort(4) != VERSION
+                    || header.getShort(6) != RECORD_SIZE) {
+                log.close();
+                throw new IOException(filename + " is not a result store");
+            }
+        }
+
+        if (!openIndex()) {
+            rebuildIndex();
+        }
+        index.putLong(16, DIRTY);
+        index.force();
+    }
+
+    /**
+     * Maps the index if it was left consistent with the log by a clean close.
+     *
+     * @return True if the index is valid; false if it must be rebuilt.
+     * @throws IOException If the index cannot be read.
+     */
+    private boolean openIndex() throws IOException {
+        if (!Files.exists(indexPath) || Files.size(indexPath) < INDEX_HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int slots = mapped.getInt(8);
+            long records = mapped.getLong(24);
+            if (mapped.getInt(0) != INDEX_MAGIC || mapped.getShort(4) != VERSION
+                    || Integer.bitCount(slots) != 1 || channel.size() != INDEX_HEADER_SIZE + (long) slots * 8
+                    || mapped.getLong(16) != log.size()
+                    || log.size() != LOG_HEADER_SIZE + records * RECORD_SIZE) {
+                return false;
+            }
+            index = mapped;
+            capacity = slots;
+            count = (int) records;
+            writtenCount = count;
+            return true;
+        }
+    }
+
+    /**
+     * Scans the log, truncates it after its last valid record, and indexes every record.
+     *
+     * @throws IOException If the files cannot be read or written.
+     */
+    private void rebuildIndex() throws IOException {
+        long records = (log.size() - LOG_HEADER_SIZE) / RECORD_SIZE;
+        if (records > MAX_RECORDS) {
+            throw new IOException("Result store " + logPath + " has too many records");
+        }
+        capacity = MIN_CAPACITY;
+        while (records * 2 > capacity) {
+            capacity <<= 1;
+        }
+        index = createIndex(indexPath, capacity);
+
+        count = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = LOG_HEADER_SIZE;
+        scan:
+        while (count < records) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, (records - count) * RECORD_SIZE));
+            readFully(buffer, position);
+            for (int start = 0; start < buffer.limit(); start += RECORD_SIZE) {
+                crc.reset();
+                crc.update(buffer.slice(start, CRC_OFFSET));
+                if ((int) crc.getValue() != buffer.getInt(start + CRC_OFFSET)) {
+                    break scan;
+                }
+                buffer.get(start, key);
+                insertSlot(index, capacity, hash(), count);
+                count++;
+            }
+            position += buffer.limit();
+        }
+        writtenCount = count;
+
+        long validLength = LOG_HEADER_SIZE + (long) count * RECORD_SIZE;
+        if (log.size() < validLength) {
+            throw new IOException("Result store " + logPath + " has a truncated header");
+        }
+        if (log.size() > validLength) {
+            Logger.warn("Result store %s: truncating %d bytes after the last valid record",
+                    logPath, log.size() - validLength);
+            log.truncate(validLength);
+        }
+    }
+
+    /**
+     * Creates an empty index file, replacing any existing one, and maps it.
+     *
+     * @param path     The index file.
+     * @param capacity The number of slots, a power of two.
+     * @return The mapped index.
+     * @throws IOException If the file cannot be created.
+     */
+    private static MappedByteBuffer createIndex(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER_SIZE + (long) capacity * 8);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(0, INDEX_MAGIC).putShort(4, (short) VERSION).putInt(8, capacity).putLong(16, DIRTY);
+            return mapped;
+        }
+    }
+
+    /**
+     * Looks up the result of a puzzle.
+     *
+     * @param tag      The configuration that solved the puzzle (0-255), since results depend on the engine.
+     * @param puzzle   An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param solution The array receiving the 81 values of the final grid if the puzzle is found.
+     * @return The difficulty and status of the result, or null if the puzzle is not stored.
+     * @throws IOException If the log cannot be read.
+     */
+    public synchronized StoredResult lookup(int tag, int[] puzzle, int[] solution) throws IOException {
+        int recordNumber = find(tag, puzzle);
+        if (recordNumber == -1) {
+            misses++;
+            return null;
+        }
+        hits++;
+        Encoding.DENSE.decode(record, KEY_SIZE, solution, 0);
+        int flags = record.get(FLAGS_OFFSET) & 0xFF;
+        return new StoredResult(Difficulty.values()[flags & ~SOLVED_FLAG], (flags & SOLVED_FLAG) != 0);
+    }
+
+    /**
+     * Appends the result of a puzzle, unless the puzzle is already stored.
+     *
+     * @param tag        The configuration that solved the puzzle (0-255).
+     * @param puzzle     An array of 81 integers representing the puzzle, -1 for empty cells.
+     * @param solution   The 81 values of the final grid, -1 for empty cells.
+     * @param difficulty The difficulty of the puzzle.
+     * @param solved     Whether the puzzle was solved.
+     * @throws IOException If the log cannot be written.
+     */
+    public synchronized void store(int tag, int[] puzzle, int[] solution, Difficulty difficulty, boolean solved)
+            throws IOException {
+        if (find(tag, puzzle) != -1) {
+            return;
+        }
+        if (count == MAX_RECORDS) {
+            throw new IOException("Result store " + logPath + " is full");
+        }
+        if (!pending.hasRemaining()) {
+            writePending();
+        }
+        int start = pending.position();
+        pending.put(key);
+        Encoding.DENSE.encode(pending, solution, 0);
+        pending.put((byte) (difficulty.ordinal() | (solved ? SOLVED_FLAG : 0)));
+        crc.reset();
+        crc.update(pending.slice(start, CRC_OFFSET));
+        pending.putInt((int) crc.getValue());
+
+        if ((count + 1) * 2L > capacity) {
+            growIndex();
+        }
+        insertSlot(index, capacity, hash(), count);
+        count++;
+    }
+
+    /**
+     * Finds the record of a puzzle, leaving the packed key in the key buffer and the record in the record buffer.
+     *
+     * @param tag    The configuration that solved the puzzle.
+     * @param puzzle The puzzle values.
+     * @return The record number, or -1 if the puzzle is not stored.
+     * @throws IOException If the log cannot be read.
+     */
+    private int find(int tag, int[] puzzle) throws IOException {
+        if (closed) {
+            throw new IOException("Result store " + logPath + " is closed");
+        }
+        keyBuffer.clear();
+        keyBuffer.put((byte) tag);
+        Encoding.DENSE.encode(keyBuffer, puzzle, 0);
+        int hash = hash();
+
+        int mask = capacity - 1;
+        for (int slotIndex = hash & mask; ; slotIndex = (slotIndex + 1) & mask) {
+            long slot = index.getLong(INDEX_HEADER_SIZE + slotIndex * 8);
+            if (slot == 0) {
+                return -1;
+            }
+            if ((int) (slot >>> 32) != hash) {
+                continue;
+            }
+            int recordNumber = (int) slot - 1;
+            readRecord(recordNumber);
+            if (matchesKey()) {
+                return recordNumber;
+            }
+        }
+    }
+
+    /**
+     * Checks if the key of the record buffer is the current key.
+     *
+     * @return True if the keys are equal; false otherwise.
+     */
+    private boolean matchesKey() {
+        for (int i = 0; i < KEY_SIZE; i++) {
+            if (record.get(i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the current key.
+     *
+     * @return The hash of the key.
+     */
+    private int hash() {
+        int hash = 0;
+        for (int i = 0; i < KEY_SIZE; i++) {
+            hash = hash * 31 + key[i];
+        }
+        // Mix the bits so that the low ones, which select the slot, depend on the whole key
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Inserts a record into an index by linear probing.
+     *
+     * @param index        The mapped index.
+     * @param capacity     The number of slots of the index.
+     * @param hash         The hash of the key of the record.
+     * @param recordNumber The record number.
+     */
+    private static void insertSlot(MappedByteBuffer index, int capacity, int hash, int recordNumber) {
+        int mask = capacity - 1;
+        int slotIndex = hash & mask;
+        while (index.getLong(INDEX_HEADER_SIZE + slotIndex * 8) != 0) {
+            slotIndex = (slotIndex + 1) & mask;
+        }
+        index.putLong(INDEX_HEADER_SIZE + slotIndex * 8, (long) hash << 32 | (recordNumber + 1L));
+    }
+
+    /**
+     * Doubles the capacity of the index, building the new one next to it before replacing it.
+     *
+     * @throws IOException If the new index cannot be created.
+     */
+    private void growIndex() throws IOException {
+        int newCapacity = capacity << 1;
+        Path newPath = Path.of(indexPath + ".tmp");
+        MappedByteBuffer newIndex = createIndex(newPath, newCapacity);
+        for (int slotIndex = 0; slotIndex < capacity; slotIndex++) {
+            long slot = index.getLong(INDEX_HEADER_SIZE + slotIndex * 8);
+            if (slot != 0) {
+                insertSlot(newIndex, newCapacity, (int) (slot >>> 32), (int) slot - 1);
+            }
+        }
+        Files.move(newPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = newIndex;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Reads a record into the record buffer, from the log file or from the pending records.
+     *
+     * @param recordNumber The record number.
+     * @throws IOException If the log cannot be read.
+     */
+    private void readRecord(int recordNumber) throws IOException {
+        record.clear();
+        if (recordNumber >= writtenCount) {
+            record.put(0, pending, (recordNumber - writtenCount) * RECORD_SIZE, RECORD_SIZE);
+            return;
+        }
+        readFully(record, LOG_HEADER_SIZE + (long) recordNumber * RECORD_SIZE);
+        record.clear();
+    }
+
+    /**
+     * Appends the pending records to the log file.
+     *
+     * @throws IOException If the log cannot be written.
+     */
+    private void writePending() throws IOException {
+        pending.flip();
+        writeFully(pending, LOG_HEADER_SIZE + (long) writtenCount * RECORD_SIZE);
+        writtenCount = count;
+        pending.clear();
+    }
+
+    /**
+     * Reads bytes of the log until the buffer is full.
+     *
+     * @param buffer   The buffer to fill, from its position to its limit.
+     * @param position The position in the log.
+     * @throws IOException If the log cannot be read or ends too early.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of result store " + logPath);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Writes bytes to the log.
+     *
+     * @param buffer   The bytes to write, from the position to the limit of the buffer.
+     * @param position The position in the log.
+     * @throws IOException If the log cannot be written.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+    }
+
+    /**
+     * Gets the number of stored results.
+     *
+     * @return The number of records.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of lookups that found a stored result since the store was opened.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found no stored result since the store was opened.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Writes the pending records and forces the log to disk, then marks the index as consistent with it.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writePending();
+            log.force(false);
+            index.putLong(24, count);
+            index.putLong(16, log.size());
+            index.force();
+        } finally {
+            log.close();
+        }
+    }
+
+    /**
+     * Difficulty and status of a stored result.
+     *
+     * @param difficulty The difficulty of the puzzle.
+     * @param solved     Whether the puzzle was solved.
+     */
+    public record StoredResult(Difficulty difficulty, boolean solved) {
+    }
+}
@@ -0,0 +1,134 @@
+package IO;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the results of a run to a channel, one line per puzzle in input order.
+ * <p>
+ * Results are encoded with {@link OutputFormat#encode} into byte buffers, typically one per batch and on the
+ * thread that solved it, so encoding scales with the workers. The writer itself only hands the encoded blocks
+ * to the channel in the order it receives them.
+ */
+public class SolutionWriter implements AutoCloseable {
+
+    private final WritableByteChannel channel;
+    private final OutputFormat format;
+    private final boolean closeChannel;
+
+    /**
+     * Constructs a SolutionWriter and writes the header of the format.
+     *
+     * @param channel      The channel to write to.
+     * @param format       The format of the lines.
+     * @param closeChannel Whether to close the channel when the writer is closed.
+     * @throws IOException If the header cannot be written.
+     */
+    public SolutionWriter(WritableByteChannel channel, OutputFormat format, boolean closeChannel) throws IOException {
+        this(channel, format, false, false, closeChannel);
+    }
+
+    /**
+     * Constructs a SolutionWriter and writes the header of the format.
+     *
+     * @param channel        The channel to write to.
+     * @param format         The format of the lines.
+     * @param solutionCounts Whether the lines hold the number of solutions of the puzzle.
+     * @param ratings        Whether the lines end with the numeric rating of the puzzle.
+     * @param closeChannel   Whether to close the channel when the writer is closed.
+     * @throws IOException If the header cannot be written.
+     */
+    public SolutionWriter(WritableByteChannel channel, OutputFormat format, boolean solutionCounts, boolean ratings,
+                          boolean closeChannel) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.closeChannel = closeChannel;
+        write(ByteBuffer.wrap(format.getHeader(solutionCounts, ratings)));
+    }
+
+    /**
+     * Constructs a SolutionWriter writing to a file, replacing its content.
+     *
+     * @param filename The file to write to.
+     * @param format   The format of the lines.
+     * @return The writer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static SolutionWriter toFile(String filename, OutputFormat format) throws IOException {
+        return toFile(filename, format, false, false);
+    }
+
+    /**
+     * Constructs a SolutionWriter writing to a file, replacing its content.
+     *
+     * @param filename       The file to write to.
+     * @param format         The format of the lines.
+     * @param solutionCounts Whether the lines hold the number of solutions of the puzzle.
+     * @param ratings        Whether the lines end with the numeric rating of the puzzle.
+     * @return The writer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static SolutionWriter toFile(String filename, OutputFormat format, boolean solutionCounts, boolean ratings)
+            throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new SolutionWriter(channel, format, solutionCounts, ratings, true);
+    }
+
+    /**
+     * Constructs a SolutionWriter writing to the standard output, which is left open.
+     * The output is written straight to the file descriptor, bypassing the buffer of System.out.
+     *
+     * @param format The format of the lines.
+     * @return The writer.
+     * @throws IOException If the header cannot be written.
+     */
+    public static SolutionWriter toStandardOutput(OutputFormat format) throws IOException {
+        return toStandardOutput(format, false, false);
+    }
+
+    /**
+     * Constructs a SolutionWriter writing to the standard output, which is left open.
+     * The output is written straight to the file descriptor, bypassing the buffer of System.out.
+     *
+     * @param format         The format of the lines.
+     * @param solutionCounts Whether the lines hold the number of solutions of the puzzle.
+     * @param ratings        Whether the lines end with the numeric rating of the puzzle.
+     * @return The writer.
+     * @throws IOException If the header cannot be written.
+     */
+    public static SolutionWriter toStandardOutput(OutputFormat format, boolean solutionCounts, boolean ratings)
+            throws IOException {
+        return new SolutionWriter(new FileOutputStream(FileDescriptor.out).getChannel(), format, solutionCounts,
+                ratings, false);
+    }
+
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes a block of encoded results, from its position to its limit.
+     *
+     * @param block The encoded results, fully consumed by this call.
+     * @throws IOException If the block cannot be written.
+     */
+    public synchronized void write(ByteBuffer block) throws IOException {
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package IO;
+
+import Utils.Geometry;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads text puzzles from a stream, such as the standard input of a shell pipeline, which cannot be memory-mapped.
+ * <p>
+ * The stream is read in large blocks, each one cut after its last line break; the partial line at the end
+ * of a block is moved to the start of the next one. Every block gets its own buffer, since the chunks may
+ * still be decoded by worker threads while the next block is read. Nothing is read ahead, so memory stays
+ * bounded however long the stream is.
+ */
+public class StreamPuzzleReader implements PuzzleSource {
+
+    private final ReadableByteChannel channel;
+    private final int chunkSize;
+    private final boolean closeChannel;
+    private final Geometry geometry;
+    private ByteBuffer carry = ByteBuffer.allocate(0); // Partial line read with the previous block
+    private boolean endOfStream;
+
+    /**
+     * Constructs a StreamPuzzleReader of 9x9 puzzles.
+     *
+     * @param channel      The stream to read.
+     * @param chunkSize    The approximate size of the chunks in bytes; a chunk is cut at its last line break.
+     * @param closeChannel Whether to close the channel when the reader is closed.
+     */
+    public StreamPuzzleReader(ReadableByteChannel channel, int chunkSize, boolean closeChannel) {
+        this(channel, chunkSize, closeChannel, Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a StreamPuzzleReader.
+     *
+     * @param channel      The stream to read.
+     * @param chunkSize    The approximate size of the chunks in bytes; a chunk is cut at its last line break.
+     * @param closeChannel Whether to close the channel when the reader is closed.
+     * @param geometry     The shape of the puzzles.
+     */
+    public StreamPuzzleReader(ReadableByteChannel channel, int chunkSize, boolean closeChannel, Geometry geometry) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.closeChannel = closeChannel;
+        this.geometry = geometry;
+    }
+
+    /**
+     * Constructs a StreamPuzzleReader reading the standard input, which is left open.
+     *
+     * @param chunkSize The approximate size of the chunks in bytes.
+     * @param geometry  The shape of the puzzles.
+     * @return The reader.
+     */
+    public static StreamPuzzleReader fromStandardInput(int chunkSize, Geometry geometry) {
+        return new StreamPuzzleReader(new FileInputStream(FileDescriptor.in).getChannel(), chunkSize, false, geometry);
+    }
+
+    @Override
+    public PuzzleChunk nextChunk() throws IOException {
+        if (endOfStream && !carry.hasRemaining()) {
+            return null;
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(Math.max(chunkSize, carry.remaining() * 2));
+        block.put(carry);
+        while (block.hasRemaining() && !endOfStream) {
+            if (channel.read(block) < 0) {
+                endOfStream = true;
+            }
+        }
+        block.flip();
+
+        // Cut the block after its last line break, unless the stream has ended
+        int end = block.limit();
+        if (!endOfStream) {
+            while (end > 0 && block.get(end - 1) != '\n') {
+                end--;
+            }
+            if (end == 0) {
+                carry = block; // No line break yet: the next block is twice as large to hold the line
+                return new TextPuzzleChunk(ByteBuffer.allocate(0), geometry);
+            }
+        }
+        carry = block.slice(end, block.limit() - end);
+        return new TextPuzzleChunk(block.slice(0, end), geometry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package IO;
+
+import Utils.Geometry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A run of complete lines of a text puzzle file, decoded one puzzle at a time straight from its bytes.
+ * <p>
+ * Each non-blank line holds one puzzle: the digits 1 to 9 are values, followed on boards larger than 9x9
+ * by the letters A for 10, B for 11 and so on, in either case. Commas, spaces, tabs and carriage returns are
+ * ignored, and any other character is an empty cell. Values beyond the last cell of the board (the 81st on a
+ * 9x9 board) are ignored and a shorter line is completed with empty cells.
+ */
+public class TextPuzzleChunk implements PuzzleChunk {
+
+    private final ByteBuffer bytes;
+    private final Geometry geometry;
+    private final int cellCount;
+    private int position;
+
+    /**
+     * Constructs a TextPuzzleChunk of 9x9 puzzles.
+     *
+     * @param bytes The bytes of the chunk, from its position to its limit, ending at a line break or at the end
+     *              of the input. The buffer is only read through absolute accesses.
+     */
+    public TextPuzzleChunk(ByteBuffer bytes) {
+        this(bytes, Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a TextPuzzleChunk.
+     *
+     * @param bytes    The bytes of the chunk, from its position to its limit, ending at a line break or at the end
+     *                 of the input. The buffer is only read through absolute accesses.
+     * @param geometry The shape of the puzzles.
+     */
+    public TextPuzzleChunk(ByteBuffer bytes, Geometry geometry) {
+        this.bytes = bytes;
+        this.geometry = geometry;
+        this.cellCount = geometry.getCellCount();
+        this.position = bytes.position();
+    }
+
+    /**
+     * Decodes the next puzzle of the chunk, skipping blank lines.
+     *
+     * @param values The array receiving one value per cell, -1 for empty cells.
+     * @param offset The position in the array of the first cell.
+     * @return True if a puzzle was decoded; false if the chunk has no puzzle left.
+     */
+    @Override
+    public boolean nextPuzzle(int[] values, int offset) {
+        int limit = bytes.limit();
+        while (position < limit) {
+            int count = 0;
+            while (position < limit) {
+                byte b = bytes.get(position++);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == ',' || b == ' ' || b == '\t' || b == '\r' || count == cellCount) {
+                    continue;
+                }
+                values[offset + count++] = geometry.getSymbolValue(b);
+            }
+            if (count > 0) {
+                while (count < cellCount) {
+                    values[offset + count++] = -1;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
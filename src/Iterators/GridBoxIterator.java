@@ -5,11 +5,15 @@ import Utils.Grid;
 public class GridBoxIterator implements GridIterator {
     private final Grid grid;
     private final int box;
+    private final int size;
+    private final int boxSize;
     private int index;
 
     public GridBoxIterator(Grid grid, int box) {
         this.grid = grid;
         this.box = box;
+        this.size = grid.getGeometry().getSize();
+        this.boxSize = grid.getGeometry().getBoxSize();
         this.index = 0;
     }
 
@@ -18,7 +22,7 @@ public class GridBoxIterator implements GridIterator {
      */
     @Override
     public boolean hasNext() {
-        return index < 9;
+        return index < size;
     }
 
     /**
@@ -26,8 +30,8 @@ public class GridBoxIterator implements GridIterator {
      */
     @Override
     public Integer next() {
-        int row = (box / 3) * 3 + index / 3;
-        int column = (box % 3) * 3 + index % 3;
+        int row = (box / boxSize) * boxSize + index / boxSize;
+        int column = (box % boxSize) * boxSize + index % boxSize;
         index++;
 
         return grid.getValue(row, column);
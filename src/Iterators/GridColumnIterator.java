@@ -5,11 +5,13 @@ import Utils.Grid;
 public class GridColumnIterator implements GridIterator {
     private final Grid grid;
     private final int column;
+    private final int size;
     private int index;
 
     public GridColumnIterator(Grid grid, int column) {
         this.grid = grid;
         this.column = column;
+        this.size = grid.getGeometry().getSize();
         this.index = 0;
     }
 
@@ -18,7 +20,7 @@ public class GridColumnIterator implements GridIterator {
      */
     @Override
     public boolean hasNext() {
-        return index < 9;
+        return index < size;
     }
 
     /**
@@ -5,11 +5,13 @@ import Utils.Grid;
 public class GridRowIterator implements GridIterator {
     private final Grid grid;
     private final int line;
+    private final int size;
     private int index;
 
     public GridRowIterator(Grid grid, int line) {
         this.grid = grid;
         this.line = line;
+        this.size = grid.getGeometry().getSize();
         this.index = 0;
     }
 
@@ -18,7 +20,7 @@ public class GridRowIterator implements GridIterator {
      */
     @Override
     public boolean hasNext() {
-        return index < 9;
+        return index < size;
     }
 
     /**
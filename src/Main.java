@@ -6,11 +6,11 @@ import App.SudokuSolverApp;
 public class Main {
 
     /**
-     * Entry point of the application.
+     * Entry point of the application: interactive without arguments, non-interactive otherwise.
      *
      * @param args Command-line arguments.
      */
     public static void main(String[] args) {
-        new SudokuSolverApp().start();
+        SudokuSolverApp.main(args);
     }
 }
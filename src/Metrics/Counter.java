@@ -0,0 +1,37 @@
+package Metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, such as a number of calls or a total time in nanoseconds.
+ * The count is a LongAdder, so threads can increment it concurrently without contention.
+ */
+public final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds a non-negative amount to the count.
+     *
+     * @param amount The amount to add.
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current count.
+     *
+     * @return The sum of all the amounts added so far.
+     */
+    public long get() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,109 @@
+package Metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, such as durations in nanoseconds, in power-of-two buckets.
+ * <p>
+ * Bucket i counts the values above 2^(i-1) and at most 2^i (bucket 0 counts the zeros and ones), so the bounds
+ * are inclusive, as Prometheus expects, and recording a value only takes a leading-zero count and an increment.
+ * Values above 2^(bucketCount-1) are only counted in the total. All counts are LongAdders, so threads can record
+ * concurrently without contention.
+ */
+public final class Histogram {
+
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs a Histogram.
+     *
+     * @param bucketCount The number of buckets (1-63); the largest bucket bound is 2^(bucketCount-1).
+     */
+    public Histogram(int bucketCount) {
+        if (bucketCount < 1 || bucketCount > 63) {
+            throw new IllegalArgumentException("Bucket count must be between 1 and 63");
+        }
+        buckets = new LongAdder[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, negative values being recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucket = value == 0 ? 0 : 64 - Long.numberOfLeadingZeros(value - 1);
+        if (bucket < buckets.length) {
+            buckets[bucket].increment();
+        }
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return The number of buckets.
+     */
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    /**
+     * Gets the inclusive upper bound of a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The bound, 2^bucket.
+     */
+    public long getUpperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Gets the number of values recorded in a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The number of values at most the bound of the bucket and above the bound of the previous one.
+     */
+    public long getBucket(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return The number of values, including those above the last bucket.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of the values recorded.
+     *
+     * @return The sum.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the largest value recorded.
+     *
+     * @return The largest value, or 0 if none was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+}
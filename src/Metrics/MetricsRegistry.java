@@ -0,0 +1,282 @@
+package Metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Named counters and histograms, exported as JSON or in the Prometheus text format.
+ * <p>
+ * Metrics are grouped in families sharing a name, and told apart by their labels, e.g. the invocation counter
+ * of each rule. Registering a metric that already exists returns the existing one, so components can register
+ * their metrics whenever they are created. Registration and export are synchronized; the metrics themselves are
+ * updated without locking.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Gets or registers a counter.
+     *
+     * @param name    The name of the metric family.
+     * @param help    The description of the family.
+     * @param divisor The number of counted units per exported unit, e.g. 1e9 for nanoseconds exported
+     *                as seconds.
+     * @param labels  The labels of the counter, as alternating names and values.
+     * @return The counter.
+     */
+    public synchronized Counter counter(String name, String help, double divisor, String... labels) {
+        return (Counter) register(name, help, Type.COUNTER, divisor, Counter::new, labels);
+    }
+
+    /**
+     * Gets or registers a histogram.
+     *
+     * @param name        The name of the metric family.
+     * @param help        The description of the family.
+     * @param divisor     The number of recorded units per exported unit.
+     * @param bucketCount The number of power-of-two buckets of the histogram.
+     * @param labels      The labels of the histogram, as alternating names and values.
+     * @return The histogram.
+     */
+    public synchronized Histogram histogram(String name, String help, double divisor, int bucketCount,
+                                            String... labels) {
+        return (Histogram) register(name, help, Type.HISTOGRAM, divisor, () -> new Histogram(bucketCount), labels);
+    }
+
+    /**
+     * Gets the metric of a family with the given labels, creating the family and the metric if needed.
+     *
+     * @param name    The name of the metric family.
+     * @param help    The description of the family.
+     * @param type    The type of the family.
+     * @param divisor The number of recorded units per exported unit.
+     * @param factory The constructor of the metric.
+     * @param labels  The labels, as alternating names and values.
+     * @return The metric.
+     * @throws IllegalArgumentException If the family exists with another type, or the labels are not paired.
+     */
+    private Object register(String name, String help, Type type, double divisor, Supplier<Object> factory,
+                            String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, divisor));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family.series.computeIfAbsent(formatLabels(labels), key -> new Series(labels.clone(), factory.get()))
+                .metric();
+    }
+
+    /**
+     * Formats labels as in the Prometheus text format, without the braces.
+     *
+     * @param labels The labels, as alternating names and values.
+     * @return The labels, e.g. {@code rule="DR1",difficulty="HARD"}.
+     */
+    private static String formatLabels(String... labels) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Escapes backslashes, quotes and line breaks, as both JSON and Prometheus require.
+     *
+     * @param value The value.
+     * @return The escaped value.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Formats a scaled value.
+     *
+     * @param value   The value in the recorded unit.
+     * @param divisor The number of recorded units per exported unit.
+     * @return The exported value.
+     */
+    private static String formatValue(long value, double divisor) {
+        return divisor == 1 ? Long.toString(value) : Double.toString(value / divisor);
+    }
+
+    /**
+     * Exports the metrics in the Prometheus text exposition format.
+     *
+     * @return The metrics, one sample per line.
+     */
+    public synchronized String toPrometheus() {
+        StringBuilder text = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            text.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(family.name).append(' ')
+                    .append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Series> series : family.series.entrySet()) {
+                String labels = series.getKey();
+                if (series.getValue().metric() instanceof Counter counter) {
+                    appendSample(text, family.name, labels, formatValue(counter.get(), family.divisor));
+                    continue;
+                }
+
+                Histogram histogram = (Histogram) series.getValue().metric();
+                String separator = labels.isEmpty() ? "" : labels + ",";
+                long cumulative = 0;
+                for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+                    cumulative += histogram.getBucket(bucket);
+                    appendSample(text, family.name + "_bucket",
+                            separator + "le=\"" + formatValue(histogram.getUpperBound(bucket), family.divisor) + '"',
+                            Long.toString(cumulative));
+                }
+                appendSample(text, family.name + "_bucket", separator + "le=\"+Inf\"",
+                        Long.toString(histogram.getCount()));
+                appendSample(text, family.name + "_sum", labels, formatValue(histogram.getSum(), family.divisor));
+                appendSample(text, family.name + "_count", labels, Long.toString(histogram.getCount()));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends a sample line of the Prometheus text format.
+     *
+     * @param text   The text being built.
+     * @param name   The name of the sample.
+     * @param labels The formatted labels, possibly empty.
+     * @param value  The formatted value.
+     */
+    private static void appendSample(StringBuilder text, String name, String labels, String value) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Exports the metrics as a JSON object with one member per family. Histogram buckets are cumulative,
+     * as in the Prometheus format, and only listed up to the highest non-empty one.
+     *
+     * @return The JSON object.
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder(4096);
+        json.append('{');
+        boolean firstFamily = true;
+        for (Family family : families.values()) {
+            if (!firstFamily) {
+                json.append(',');
+            }
+            firstFamily = false;
+            json.append('"').append(family.name).append("\":{\"help\":\"").append(escape(family.help))
+                    .append("\",\"type\":\"").append(family.type.name().toLowerCase(Locale.ROOT))
+                    .append("\",\"series\":[");
+
+            boolean firstSeries = true;
+            for (Series series : family.series.values()) {
+                if (!firstSeries) {
+                    json.append(',');
+                }
+                firstSeries = false;
+                json.append("{\"labels\":{");
+                for (int i = 0; i < series.labels().length; i += 2) {
+                    json.append(i > 0 ? ",\"" : "\"").append(escape(series.labels()[i])).append("\":\"")
+                            .append(escape(series.labels()[i + 1])).append('"');
+                }
+                json.append('}');
+                if (series.metric() instanceof Counter counter) {
+                    json.append(",\"value\":").append(formatValue(counter.get(), family.divisor)).append('}');
+                    continue;
+                }
+
+                Histogram histogram = (Histogram) series.metric();
+                json.append(",\"count\":").append(histogram.getCount())
+                        .append(",\"sum\":").append(formatValue(histogram.getSum(), family.divisor))
+                        .append(",\"max\":").append(formatValue(histogram.getMax(), family.divisor))
+                        .append(",\"buckets\":[");
+                List<String> buckets = new ArrayList<>();
+                long cumulative = 0;
+                int last = histogram.getBucketCount() - 1;
+                while (last >= 0 && histogram.getBucket(last) == 0) {
+                    last--;
+                }
+                for (int bucket = 0; bucket <= last; bucket++) {
+                    cumulative += histogram.getBucket(bucket);
+                    buckets.add("{\"le\":" + formatValue(histogram.getUpperBound(bucket), family.divisor)
+                            + ",\"count\":" + cumulative + "}");
+                }
+                json.append(String.join(",", buckets)).append("]}");
+            }
+            json.append("]}");
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Writes the metrics to a file.
+     *
+     * @param filename The name of the file.
+     * @param format   The format of the export.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(String filename, Format format) throws IOException {
+        String text = format == Format.JSON ? toJson() + "\n" : toPrometheus();
+        Files.writeString(Path.of(filename), text);
+    }
+
+    /**
+     * Types of the metric families.
+     */
+    private enum Type {
+        COUNTER,
+        HISTOGRAM
+    }
+
+    /**
+     * Export formats of the metrics.
+     */
+    public enum Format {
+        JSON,
+        PROMETHEUS
+    }
+
+    /**
+     * A metric of a family with its labels.
+     *
+     * @param labels The labels, as alternating names and values.
+     * @param metric The Counter or Histogram.
+     */
+    private record Series(String[] labels, Object metric) {
+    }
+
+    /**
+     * Metrics sharing a name, keyed by their formatted labels.
+     */
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final double divisor;
+        private final Map<String, Series> series = new LinkedHashMap<>();
+
+        private Family(String name, String help, Type type, double divisor) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.divisor = divisor;
+        }
+    }
+}
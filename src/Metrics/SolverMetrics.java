@@ -0,0 +1,246 @@
+package Metrics;
+
+import States.SolverStateFactory.StateType;
+import Utils.Difficulty;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metrics of the solver hot paths: the deduction rules, the solver states and whole solves.
+ * <p>
+ * Metrics are disabled by default. Instrumented code checks {@link #isEnabled()} before reading the clock,
+ * so disabled metrics cost a single test of a flag. When enabled, every update goes to LongAdders, so the
+ * worker threads record concurrently without locking. The time spent in each rule during a solve is summed
+ * per thread and only added to the shared counters once the solve is over, under the difficulty of the puzzle,
+ * so the share of each rule in the solve time can be computed for each difficulty:
+ * {@code sudoku_rule_seconds_total{rule="DR3",difficulty="HARD"} / sudoku_solve_seconds_total{difficulty="HARD"}}.
+ */
+public final class SolverMetrics {
+
+    private static final double NANOS_PER_SECOND = 1e9; // Durations are recorded in nanoseconds, exported in seconds
+    private static final int DURATION_BUCKETS = 37; // Up to 2^36 ns, about 69 s
+    private static final int ITERATION_BUCKETS = 11; // Up to 1024 iterations, above the limit of a solve
+
+    private static final MetricsRegistry registry = new MetricsRegistry();
+    private static final ConcurrentMap<String, RuleMetrics> rules = new ConcurrentHashMap<>();
+    private static final StateMetrics[] states = new StateMetrics[StateType.values().length];
+    private static final Counter[][] transitions = new Counter[StateType.values().length][StateType.values().length];
+    private static final Counter[] solves = new Counter[Difficulty.values().length];
+    private static final Counter[] solveTimes = new Counter[Difficulty.values().length];
+    private static final Histogram iterations = registry.histogram("sudoku_solve_iterations",
+            "Number of solver state runs that made progress per solve.", 1, ITERATION_BUCKETS);
+
+    private static volatile boolean enabled;
+
+    static {
+        for (StateType stateType : StateType.values()) {
+            states[stateType.ordinal()] = new StateMetrics(stateType);
+        }
+    }
+
+    // Private constructor to prevent instantiation
+    private SolverMetrics() {
+    }
+
+    /**
+     * Checks if the metrics are recorded.
+     *
+     * @return True if instrumented code records metrics; false otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the recording of the metrics. Metrics recorded so far are kept.
+     *
+     * @param enabled Whether instrumented code records metrics.
+     */
+    public static void setEnabled(boolean enabled) {
+        SolverMetrics.enabled = enabled;
+    }
+
+    /**
+     * Gets the registry holding all the solver metrics, e.g. to export them.
+     *
+     * @return The registry.
+     */
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Gets the metrics of a deduction rule, registering them on first use.
+     *
+     * @param rule The name of the rule, e.g. "DR1".
+     * @return The metrics of the rule.
+     */
+    public static RuleMetrics getRuleMetrics(String rule) {
+        return rules.computeIfAbsent(rule, RuleMetrics::new);
+    }
+
+    /**
+     * Records a run of a solver state.
+     *
+     * @param stateType The state that ran.
+     * @param nanos     The duration of the run in nanoseconds.
+     * @param used      Whether the state made progress.
+     * @param nextState The state of the solver after the run.
+     */
+    public static void recordStateRun(StateType stateType, long nanos, boolean used, StateType nextState) {
+        StateMetrics metrics = states[stateType.ordinal()];
+        metrics.runs.increment();
+        if (used) {
+            metrics.progress.increment();
+        }
+        metrics.duration.record(nanos);
+        if (nextState != stateType) {
+            Counter transition = transitions[stateType.ordinal()][nextState.ordinal()];
+            if (transition == null) {
+                transition = registry.counter("sudoku_state_transitions_total",
+                        "Number of changes of the solver state.", 1, "from", name(stateType), "to", name(nextState));
+                transitions[stateType.ordinal()][nextState.ordinal()] = transition;
+            }
+            transition.increment();
+        }
+    }
+
+    /**
+     * Records a finished solve.
+     *
+     * @param difficulty The difficulty of the puzzle.
+     * @param nanos      The duration of the solve in nanoseconds.
+     * @param iterations The number of solver state runs.
+     */
+    public static void recordSolve(Difficulty difficulty, long nanos, int iterations) {
+        // Counters are registered on first use; registering twice returns the same counter, so racing threads
+        // do not lose counts
+        int index = difficulty.ordinal();
+        Counter count = solves[index];
+        if (count == null) {
+            count = registry.counter("sudoku_solves_total",
+                    "Number of puzzles solved, by difficulty.", 1, "difficulty", name(difficulty));
+            solves[index] = count;
+        }
+        Counter time = solveTimes[index];
+        if (time == null) {
+            time = registry.counter("sudoku_solve_seconds_total",
+                    "Time spent solving puzzles, by difficulty.", NANOS_PER_SECOND, "difficulty", name(difficulty));
+            solveTimes[index] = time;
+        }
+        count.increment();
+        time.add(nanos);
+        SolverMetrics.iterations.record(iterations);
+    }
+
+    /**
+     * Gets the label value of an enum constant.
+     *
+     * @param constant The constant.
+     * @return The name of the constant.
+     */
+    private static String name(Enum<?> constant) {
+        return constant.name().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Metrics of a deduction rule.
+     */
+    public static final class RuleMetrics {
+
+        private final String rule;
+        private final Counter invocations;
+        private final Counter successes;
+        private final Counter cellsChanged;
+        private final Histogram duration;
+        private final Counter[] solveTimes = new Counter[Difficulty.values().length];
+
+        /**
+         * Registers the metrics of a rule.
+         *
+         * @param rule The name of the rule.
+         */
+        private RuleMetrics(String rule) {
+            this.rule = rule;
+            invocations = registry.counter("sudoku_rule_invocations_total",
+                    "Number of applications of a deduction rule.", 1, "rule", rule);
+            successes = registry.counter("sudoku_rule_successes_total",
+                    "Number of applications of a deduction rule that changed the grid.", 1, "rule", rule);
+            cellsChanged = registry.counter("sudoku_rule_cells_changed_total",
+                    "Number of cells whose value or candidates a deduction rule changed.", 1, "rule", rule);
+            duration = registry.histogram("sudoku_rule_duration_seconds",
+                    "Duration of an application of a deduction rule.", NANOS_PER_SECOND, DURATION_BUCKETS,
+                    "rule", rule);
+        }
+
+        /**
+         * Gets the name of the rule.
+         *
+         * @return The name, e.g. "DR1".
+         */
+        public String getRule() {
+            return rule;
+        }
+
+        /**
+         * Records an application of the rule.
+         *
+         * @param nanos        The duration of the application in nanoseconds.
+         * @param changed      Whether the rule changed the grid.
+         * @param cellsChanged The number of cells whose value or candidates changed.
+         */
+        public void record(long nanos, boolean changed, int cellsChanged) {
+            invocations.increment();
+            if (changed) {
+                successes.increment();
+                this.cellsChanged.add(cellsChanged);
+            }
+            duration.record(nanos);
+        }
+
+        /**
+         * Records the time spent in the rule during a finished solve.
+         *
+         * @param difficulty The difficulty of the puzzle.
+         * @param nanos      The total duration of the applications of the rule during the solve.
+         */
+        public void recordSolve(Difficulty difficulty, long nanos) {
+            int index = difficulty.ordinal();
+            Counter counter = solveTimes[index];
+            if (counter == null) {
+                counter = registry.counter("sudoku_rule_seconds_total",
+                        "Time spent in a deduction rule during solves, by difficulty.", NANOS_PER_SECOND,
+                        "rule", rule, "difficulty", name(difficulty));
+                solveTimes[index] = counter;
+            }
+            counter.add(nanos);
+        }
+    }
+
+    /**
+     * Metrics of a solver state.
+     */
+    private static final class StateMetrics {
+
+        private final Counter runs;
+        private final Counter progress;
+        private final Histogram duration;
+
+        /**
+         * Registers the metrics of a state.
+         *
+         * @param stateType The state.
+         */
+        private StateMetrics(StateType stateType) {
+            String state = name(stateType);
+            runs = registry.counter("sudoku_state_runs_total",
+                    "Number of runs of a solver state.", 1, "state", state);
+            progress = registry.counter("sudoku_state_progress_total",
+                    "Number of runs of a solver state that made progress.", 1, "state", state);
+            duration = registry.histogram("sudoku_state_duration_seconds",
+                    "Duration of a run of a solver state.", NANOS_PER_SECOND, DURATION_BUCKETS, "state", state);
+        }
+    }
+}
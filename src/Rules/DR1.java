@@ -2,6 +2,7 @@ package Rules;
 
 import IO.Logger;
 import Utils.Difficulty;
+import Utils.Geometry;
 import Utils.Grid;
 
 /**
@@ -28,17 +29,20 @@ public class DR1 extends DeductionRule {
             return false;
         }
 
-        // Retrieve possible candidates for the cell.
-        int[] possibleValues = grid.getPossibleValues(cellIndex);
+        // Retrieve the candidate mask of the cell.
+        int candidates = grid.getCandidateMask(cellIndex);
 
         // If there's only one candidate, it's a Naked Single.
-        if (possibleValues.length == 1) {
-            int value = possibleValues[0];
+        if (Integer.bitCount(candidates) == 1) {
+            int value = Integer.numberOfTrailingZeros(candidates) + 1;
             grid.setValue(cellIndex, value);
 
-            int row = cellIndex / 9;
-            int column = cellIndex % 9;
-            Logger.trace("DR1: Naked Single at (%d, %d) with value %d", row, column, value);
+            if (Logger.isTraceEnabled()) {
+                Geometry geometry = grid.getGeometry();
+                int row = geometry.getRowIndex(cellIndex);
+                int column = geometry.getColumnIndex(cellIndex);
+                Logger.trace("DR1: Naked Single at (%d, %d) with value %d", row, column, value);
+            }
             return true;
         }
 
@@ -2,8 +2,9 @@ package Rules;
 
 import IO.Logger;
 import Utils.Difficulty;
+import Utils.Geometry;
 import Utils.Grid;
-import static Utils.Utilities.*;
+import Utils.Worklist;
 
 /**
  * DR2 (Deduction Rule 2) implements the Hidden Single deduction rule.
@@ -14,6 +15,7 @@ import static Utils.Utilities.*;
 public class DR2 extends DeductionRule {
 
     private static final DR2 INSTANCE = new DR2();
+    private static final String[] UNIT_NAMES = {"row", "column", "block"};
 
     private DR2() {
         super(Difficulty.MEDIUM);
@@ -30,30 +32,21 @@ public class DR2 extends DeductionRule {
             return false;
         }
 
-        int row = getRowIndex(cellIndex);
-        int column = getColumnIndex(cellIndex);
-        int block = getBoxIndex(row, column);
-        int[] possibleValues = grid.getPossibleValues(cellIndex);
-
-        // Get the indices of the units (row, column, block) the cell belongs to.
-        int[] rowIndices = getRowIndices(row);
-        int[] columnIndices = getColumnIndices(column);
-        int[] blockIndices = getBoxIndices(block);
+        Geometry geometry = grid.getGeometry();
+        int[] units = geometry.getCellUnits(cellIndex);
 
         // Iterate over all possible candidates for this cell.
-        for (int candidate : possibleValues) {
-            if (isHiddenSingle(grid, rowIndices, cellIndex, candidate)) {
-                grid.setValue(cellIndex, candidate);
-                Logger.trace("DR2: Hidden Single in row at (%d, %d) with value %d", row, column, candidate);
-                return true;
-            } else if (isHiddenSingle(grid, columnIndices, cellIndex, candidate)) {
-                grid.setValue(cellIndex, candidate);
-                Logger.trace("DR2: Hidden Single in column at (%d, %d) with value %d", row, column, candidate);
-                return true;
-            } else if (isHiddenSingle(grid, blockIndices, cellIndex, candidate)) {
-                grid.setValue(cellIndex, candidate);
-                Logger.trace("DR2: Hidden Single in block at (%d, %d) with value %d", row, column, candidate);
-                return true;
+        for (int remaining = grid.getCandidateMask(cellIndex); remaining != 0; remaining &= remaining - 1) {
+            int candidate = Integer.numberOfTrailingZeros(remaining) + 1;
+            for (int unitType = 0; unitType < 3; unitType++) {
+                if (isHiddenSingle(grid, units[unitType], candidate)) {
+                    grid.setValue(cellIndex, candidate);
+                    if (Logger.isTraceEnabled()) {
+                        Logger.trace("DR2: Hidden Single in %s at (%d, %d) with value %d", UNIT_NAMES[unitType],
+                                geometry.getRowIndex(cellIndex), geometry.getColumnIndex(cellIndex), candidate);
+                    }
+                    return true;
+                }
             }
         }
 
@@ -61,20 +54,73 @@ public class DR2 extends DeductionRule {
     }
 
     /**
-     * Checks if the candidate number is a hidden single within the specified unit.
+     * Looks for hidden singles in the dirty units only: a unit can only gain a hidden single
+     * when the position mask of one of its values changes.
      *
-     * @param grid       The Sudoku grid.
-     * @param unitIndices An array of cell indices representing the unit.
-     * @param cellIndex   The index of the current cell.
-     * @param candidate   The candidate number to check.
-     * @return True if the candidate is a hidden single in the unit; otherwise, false.
+     * @param grid     The Sudoku grid.
+     * @param worklist The cells and units that changed since the rule last ran.
+     * @return True if any value was set; false otherwise.
      */
-    private static boolean isHiddenSingle(Grid grid, int[] unitIndices, int cellIndex, int candidate) {
-        for (int index : unitIndices) {
-            if (index != cellIndex && grid.isPossibleValue(index, candidate)) {
-                return false; // Candidate appears in another cell within the unit.
+    @Override
+    public boolean apply(Grid grid, Worklist worklist) {
+        boolean hasChanged = false;
+        Geometry geometry = grid.getGeometry();
+        int size = geometry.getSize();
+
+        int unit;
+        while ((unit = worklist.pollUnit()) != -1) {
+            for (int candidate = 1; candidate <= size; candidate++) {
+                if (isHiddenSingle(grid, unit, candidate)) {
+                    int position = Integer.numberOfTrailingZeros(grid.getUnitPositions(unit, candidate));
+                    int cellIndex = geometry.getUnitIndices(unit)[position];
+                    grid.setValue(cellIndex, candidate);
+                    if (Logger.isTraceEnabled()) {
+                        Logger.trace("DR2: Hidden Single in %s at (%d, %d) with value %d", UNIT_NAMES[unit / size],
+                                geometry.getRowIndex(cellIndex), geometry.getColumnIndex(cellIndex), candidate);
+                    }
+                    hasChanged = true;
+                }
             }
         }
-        return true; // Candidate is unique to this cell in the unit.
+
+        return hasChanged;
+    }
+
+    /**
+     * Places the first hidden single of a unit, for callers taking one step at a time.
+     *
+     * @param grid The Sudoku grid.
+     * @param unit The unit index (0-26 on a 9x9 board).
+     * @return True if a value was set; false if the unit has no hidden single.
+     */
+    boolean applyFirst(Grid grid, int unit) {
+        Geometry geometry = grid.getGeometry();
+        int size = geometry.getSize();
+        for (int candidate = 1; candidate <= size; candidate++) {
+            if (isHiddenSingle(grid, unit, candidate)) {
+                int position = Integer.numberOfTrailingZeros(grid.getUnitPositions(unit, candidate));
+                int cellIndex = geometry.getUnitIndices(unit)[position];
+                grid.setValue(cellIndex, candidate);
+                if (Logger.isTraceEnabled()) {
+                    Logger.trace("DR2: Hidden Single in %s at (%d, %d) with value %d", UNIT_NAMES[unit / size],
+                            geometry.getRowIndex(cellIndex), geometry.getColumnIndex(cellIndex), candidate);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the candidate number is a hidden single within the specified unit,
+     * i.e. if exactly one cell of the unit can still hold it.
+     *
+     * @param grid      The Sudoku grid.
+     * @param unit      The unit index (0-26 on a 9x9 board).
+     * @param candidate The candidate number to check.
+     * @return True if the candidate is a hidden single in the unit; otherwise, false.
+     */
+    private static boolean isHiddenSingle(Grid grid, int unit, int candidate) {
+        return Integer.bitCount(grid.getUnitPositions(unit, candidate)) == 1;
     }
 }
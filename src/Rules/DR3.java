@@ -2,7 +2,9 @@ package Rules;
 
 import IO.Logger;
 import Utils.Difficulty;
+import Utils.Geometry;
 import Utils.Grid;
+import Utils.Worklist;
 
 /**
  * DR3 (Deduction Rule 3) implements the Pointing Pair/Triple deduction.
@@ -24,101 +26,150 @@ public class DR3 extends DeductionRule {
     @Override
     public boolean apply(Grid grid, int unused) {
         boolean hasChanged = false;
+        int size = grid.getGeometry().getSize();
 
-        // Iterate over all 3x3 blocks
-        for (int blockRow = 0; blockRow < 3; blockRow++) {
-            for (int blockCol = 0; blockCol < 3; blockCol++) {
-                // Check for pointing pairs/triples for each number 1-9
-                for (int number = 1; number <= 9; number++) {
-                    hasChanged |= applyPointingPair(grid, blockRow, blockCol, number);
-                }
+        // Iterate over all blocks
+        for (int block = 0; block < size; block++) {
+            // Check for pointing pairs/triples for each number
+            for (int number = 1; number <= size; number++) {
+                hasChanged |= applyPointingPair(grid, block, number);
             }
         }
 
         return hasChanged;
     }
 
-    private boolean applyPointingPair(Grid grid, int blockRow, int blockCol, int number) {
+    /**
+     * Looks for pointing pairs/triples in the dirty blocks only: the deduction depends solely
+     * on the block's position masks, so an unchanged block cannot yield anything new.
+     *
+     * @param grid     The Sudoku grid.
+     * @param worklist The cells and units that changed since the rule last ran.
+     * @return True if any candidate was removed; false otherwise.
+     */
+    @Override
+    public boolean apply(Grid grid, Worklist worklist) {
         boolean hasChanged = false;
+        int size = grid.getGeometry().getSize();
 
-        // Arrays to track which rows and columns within the block have 'number' as a possible value
-        boolean[] rowsWithCandidate = new boolean[3];
-        boolean[] colsWithCandidate = new boolean[3];
-
-        // Analyze the block to find rows and columns containing the candidate
-        for (int localRow = 0; localRow < 3; localRow++) {
-            for (int localCol = 0; localCol < 3; localCol++) {
-                int globalRow = blockRow * 3 + localRow;
-                int globalCol = blockCol * 3 + localCol;
-                if (grid.isPossibleValue(globalRow, globalCol, number)) {
-                    rowsWithCandidate[localRow] = true;
-                    colsWithCandidate[localCol] = true;
-                }
+        int unit;
+        while ((unit = worklist.pollUnit()) != -1) {
+            if (unit < 2 * size) {
+                continue; // Rows and columns are handled through the blocks they cross
             }
+            for (int number = 1; number <= size; number++) {
+                hasChanged |= applyPointingPair(grid, unit - 2 * size, number);
+            }
+        }
+
+        return hasChanged;
+    }
+
+    /**
+     * Applies the pointing pair/triple deduction for one number in one block,
+     * using the block's position mask for that number. Also used by callers taking one step at a time.
+     *
+     * @param grid   The Sudoku grid.
+     * @param block  The block index (0-8 on a 9x9 board).
+     * @param number The candidate number (1-9 on a 9x9 board).
+     * @return True if any candidate was removed; false otherwise.
+     */
+    boolean applyPointingPair(Grid grid, int block, int number) {
+        Geometry geometry = grid.getGeometry();
+        int size = geometry.getSize();
+        int boxSize = geometry.getBoxSize();
+
+        // Bit (localRow * boxSize + localCol) is set when the number can go in that cell of the block
+        int positions = grid.getUnitPositions(2 * size + block, number);
+        if (positions == 0) {
+            return false;
         }
 
+        boolean hasChanged = false;
+        int blockRow = block / boxSize;
+        int blockCol = block % boxSize;
+
         // Check if the candidate is confined to a single row within the block
-        int confinedRow = getSingleTrueIndex(rowsWithCandidate);
+        int confinedRow = getConfinedRow(geometry, positions);
         if (confinedRow != -1) {
-            int globalRow = blockRow * 3 + confinedRow;
-            hasChanged |= eliminateFromRowOutsideBlock(grid, globalRow, blockCol, number);
+            int globalRow = blockRow * boxSize + confinedRow;
+            hasChanged |= eliminateOutsideBlock(grid, globalRow, blockCol, number, "row", "column");
         }
 
         // Check if the candidate is confined to a single column within the block
-        int confinedCol = getSingleTrueIndex(colsWithCandidate);
+        int confinedCol = getConfinedColumn(geometry, positions);
         if (confinedCol != -1) {
-            int globalCol = blockCol * 3 + confinedCol;
-            hasChanged |= eliminateFromColOutsideBlock(grid, blockRow, globalCol, number);
+            int globalCol = blockCol * boxSize + confinedCol;
+            hasChanged |= eliminateOutsideBlock(grid, size + globalCol, blockRow, number, "column", "row");
         }
 
         return hasChanged;
     }
 
     /**
-     * Returns the index of the single true value in a boolean array, or -1 if zero or multiple trues.
+     * Returns the local row the positions are confined to, or -1 if they span several.
+     *
+     * @param geometry  The shape of the board.
+     * @param positions The position mask of a number within a block.
+     * @return The confined local row (0-2 on a 9x9 board), or -1.
      */
-    private int getSingleTrueIndex(boolean[] array) {
-        int count = 0;
-        int index = -1;
-        for (int i = 0; i < array.length; i++) {
-            if (array[i]) {
-                count++;
-                index = i;
-                if (count > 1) {
-                    return -1; // More than one true value
-                }
+    private static int getConfinedRow(Geometry geometry, int positions) {
+        for (int i = 0; i < geometry.getBoxSize(); i++) {
+            if ((positions & ~geometry.getBoxRowMask(i)) == 0) {
+                return i;
             }
         }
-        return (count == 1) ? index : -1;
+        return -1;
     }
 
-    private boolean eliminateFromRowOutsideBlock(Grid grid, int row, int blockCol, int number) {
-        boolean removed = false;
-
-        // Iterate over all columns in the row, excluding the block
-        for (int col = 0; col < 9; col++) {
-            if (col / 3 != blockCol && grid.isPossibleValue(row, col, number)) {
-                grid.removePossibleValue(row, col, number);
-                removed = true;
-                Logger.trace("DR3: Removed %d from row %d, column %d", number, row, col);
+    /**
+     * Returns the local column the positions are confined to, or -1 if they span several.
+     *
+     * @param geometry  The shape of the board.
+     * @param positions The position mask of a number within a block.
+     * @return The confined local column (0-2 on a 9x9 board), or -1.
+     */
+    private static int getConfinedColumn(Geometry geometry, int positions) {
+        for (int i = 0; i < geometry.getBoxSize(); i++) {
+            if ((positions & ~geometry.getBoxColumnMask(i)) == 0) {
+                return i;
             }
         }
-
-        return removed;
+        return -1;
     }
 
-    private boolean eliminateFromColOutsideBlock(Grid grid, int blockRow, int col, int number) {
-        boolean removed = false;
+    /**
+     * Removes a number from the cells of a row or column that lie outside the given block band.
+     *
+     * @param grid      The Sudoku grid.
+     * @param line      The unit index of the row (0-8) or column (9-17 on a 9x9 board).
+     * @param blockBand The band (0-2 on a 9x9 board) of the block along the line, whose cells are kept.
+     * @param number    The candidate number to remove.
+     * @param lineName  The name of the line, for logging.
+     * @param crossName The name of the crossing lines, for logging.
+     * @return True if any candidate was removed; false otherwise.
+     */
+    private boolean eliminateOutsideBlock(Grid grid, int line, int blockBand, int number,
+                                          String lineName, String crossName) {
+        Geometry geometry = grid.getGeometry();
+        int boxSize = geometry.getBoxSize();
+        int band = (1 << boxSize) - 1;
+        int outside = grid.getUnitPositions(line, number) & ~(band << (blockBand * boxSize));
+        if (outside == 0) {
+            return false;
+        }
 
-        // Iterate over all rows in the column, excluding the block
-        for (int row = 0; row < 9; row++) {
-            if (row / 3 != blockRow && grid.isPossibleValue(row, col, number)) {
-                grid.removePossibleValue(row, col, number);
-                removed = true;
-                Logger.trace("DR3: Removed %d from column %d, row %d", number, col, row);
+        int[] cells = geometry.getUnitIndices(line);
+        while (outside != 0) {
+            int position = Integer.numberOfTrailingZeros(outside);
+            outside &= outside - 1;
+            grid.removePossibleValue(cells[position], number);
+            if (Logger.isTraceEnabled()) {
+                Logger.trace("DR3: Removed %d from %s %d, %s %d", number, lineName, line % geometry.getSize(),
+                        crossName, position);
             }
         }
 
-        return removed;
+        return true;
     }
 }
@@ -2,6 +2,7 @@ package Rules;
 
 import Utils.Difficulty;
 import Utils.Grid;
+import Utils.Worklist;
 
 /**
  * Abstract class representing a deduction rule for solving Sudoku puzzles.
@@ -38,7 +39,29 @@ public abstract class DeductionRule {
     public boolean apply(Grid grid) {
         boolean hasChanged = false;
 
-        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+        int cellCount = grid.getGeometry().getCellCount();
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            if (apply(grid, cellIndex)) {
+                hasChanged = true;
+            }
+        }
+
+        return hasChanged;
+    }
+
+    /**
+     * Applies the deduction rule to the cells and units of a worklist, consuming the entries it uses.
+     * By default the rule is applied to each dirty cell; rules working on whole units override this.
+     *
+     * @param grid     The Sudoku grid.
+     * @param worklist The cells and units that changed since the rule last ran.
+     * @return True if any changes were made to the grid; false otherwise.
+     */
+    public boolean apply(Grid grid, Worklist worklist) {
+        boolean hasChanged = false;
+
+        int cellIndex;
+        while ((cellIndex = worklist.pollCell()) != -1) {
             if (apply(grid, cellIndex)) {
                 hasChanged = true;
             }
@@ -51,7 +74,7 @@ public abstract class DeductionRule {
      * Applies the deduction rule to a specific cell in the grid.
      *
      * @param grid      The Sudoku grid.
-     * @param cellIndex The index of the cell (0-80).
+     * @param cellIndex The index of the cell (0-80 on a 9x9 board).
      * @return True if any changes were made to the grid; false otherwise.
      */
     public abstract boolean apply(Grid grid, int cellIndex);
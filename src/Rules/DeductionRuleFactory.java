@@ -1,20 +1,29 @@
 package Rules;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Factory class for creating DeductionRule instances.
+ * Rules are stateless singletons and the cached maps are never modified after initialization,
+ * so they can be shared freely between threads.
  */
 public class DeductionRuleFactory {
 
-    private static final Map<RuleType, DeductionRule> ruleInstances = new HashMap<>();
+    private static final Map<RuleType, DeductionRule> ruleInstances;
+    private static final List<DeductionRule> orderedRules;
 
     static {
         // Initialize and cache singleton instances
-        ruleInstances.put(RuleType.NAKED_SINGLE, DR1.getInstance());
-        ruleInstances.put(RuleType.HIDDEN_SINGLE, DR2.getInstance());
-        ruleInstances.put(RuleType.POINTING_PAIR, DR3.getInstance());
+        Map<RuleType, DeductionRule> rules = new EnumMap<>(RuleType.class);
+        rules.put(RuleType.NAKED_SINGLE, DR1.getInstance());
+        rules.put(RuleType.HIDDEN_SINGLE, DR2.getInstance());
+        rules.put(RuleType.POINTING_PAIR, DR3.getInstance());
+        ruleInstances = Collections.unmodifiableMap(rules);
+        orderedRules = Collections.unmodifiableList(new ArrayList<>(rules.values()));
     }
 
     /**
@@ -28,7 +37,16 @@ public class DeductionRuleFactory {
     }
 
     /**
-     * Enum representing the types of DeductionRules available.
+     * Gets every DeductionRule, ordered from the easiest to the hardest.
+     *
+     * @return An unmodifiable list of the rules in difficulty order.
+     */
+    public static List<DeductionRule> getDeductionRules() {
+        return orderedRules;
+    }
+
+    /**
+     * Enum representing the types of DeductionRules available, from the easiest to the hardest.
      */
     public enum RuleType {
         NAKED_SINGLE,
@@ -0,0 +1,154 @@
+package Rules;
+
+import Utils.Geometry;
+import Utils.Grid;
+import Utils.Worklist;
+
+/**
+ * Rates puzzles on a numeric scale in the spirit of Sudoku Explainer: the puzzle is solved one step at a time,
+ * always taking the simplest step available, and its rating is the score of the hardest step it needed.
+ * The number of steps of each type is recorded along the way.
+ * <p>
+ * The next step is found incrementally. Each step type owns a worklist of the cells or units that changed since
+ * it last looked at them, fed by the changes the grid records. A cell or unit that offers no step of a type
+ * cannot offer one until it changes again, so each search only looks at the dirty entries of the simplest types,
+ * instead of rescanning the grid with every rule after each step. An entry that offered a step is marked again,
+ * since it may offer another. The steps themselves are taken by the deduction rules DR1 to DR3.
+ * <p>
+ * A rater holds its own grid, so each thread needs its own rater.
+ */
+public class DifficultyRater {
+
+    private static final StepType[] STEP_TYPES = StepType.values();
+
+    private final Grid grid;
+    private final Worklist[] worklists = new Worklist[STEP_TYPES.length];
+    private final int size;
+
+    /**
+     * Constructs a DifficultyRater for 9x9 puzzles.
+     */
+    public DifficultyRater() {
+        this(Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a DifficultyRater.
+     *
+     * @param geometry The shape of the puzzles to rate.
+     */
+    public DifficultyRater(Geometry geometry) {
+        this.grid = new Grid(geometry);
+        this.size = geometry.getSize();
+        for (int i = 0; i < worklists.length; i++) {
+            worklists[i] = new Worklist(geometry);
+        }
+    }
+
+    /**
+     * Rates a puzzle, taking the simplest available step until the puzzle is solved or no step is left.
+     *
+     * @param values An array of one integer per cell representing the puzzle, -1 for empty cells.
+     * @return The rating of the puzzle, incomplete if the deduction rules cannot solve it.
+     */
+    public Rating rate(int[] values) {
+        grid.reset();
+        for (Worklist worklist : worklists) {
+            worklist.clear();
+        }
+        int cellCount = grid.getGeometry().getCellCount();
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            if (values[cellIndex] != -1) {
+                grid.setValue(cellIndex, values[cellIndex]);
+            }
+        }
+
+        int[] stepCounts = new int[STEP_TYPES.length];
+        StepType hardestStep = null;
+        while (!grid.hasContradiction() && grid.getFilledCellCount() < cellCount) {
+            collectChanges();
+            StepType step = takeSimplestStep();
+            if (step == null) {
+                break;
+            }
+            stepCounts[step.ordinal()]++;
+            if (hardestStep == null || step.ordinal() > hardestStep.ordinal()) {
+                hardestStep = step;
+            }
+        }
+        return new Rating(hardestStep, stepCounts, !grid.hasContradiction() && grid.isSolved());
+    }
+
+    /**
+     * Takes one step of the simplest type available.
+     *
+     * @return The type of the step taken, or null if no step is available.
+     */
+    private StepType takeSimplestStep() {
+        for (StepType stepType : STEP_TYPES) {
+            if (takeStep(stepType, worklists[stepType.ordinal()])) {
+                return stepType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes one step of a type from the dirty entries of its worklist, discarding the entries offering none.
+     *
+     * @param stepType The type of step.
+     * @param worklist The cells and units that changed since the type last looked at them.
+     * @return True if a step was taken; false otherwise.
+     */
+    private boolean takeStep(StepType stepType, Worklist worklist) {
+        switch (stepType) {
+            case NAKED_SINGLE -> {
+                int cellIndex;
+                while ((cellIndex = worklist.pollCell()) != -1) {
+                    if (DR1.getInstance().apply(grid, cellIndex)) {
+                        return true; // The cell is filled, so it offers no other step
+                    }
+                }
+            }
+            case HIDDEN_SINGLE_BOX, HIDDEN_SINGLE_LINE -> {
+                boolean boxes = stepType == StepType.HIDDEN_SINGLE_BOX;
+                int unit;
+                while ((unit = worklist.pollUnit()) != -1) {
+                    if (unit >= 2 * size == boxes && DR2.getInstance().applyFirst(grid, unit)) {
+                        worklist.markUnit(unit);
+                        return true;
+                    }
+                }
+            }
+            case POINTING -> {
+                int unit;
+                while ((unit = worklist.pollUnit()) != -1) {
+                    if (unit < 2 * size) {
+                        continue; // Rows and columns are handled through the blocks they cross
+                    }
+                    for (int number = 1; number <= size; number++) {
+                        if (DR3.getInstance().applyPointingPair(grid, unit - 2 * size, number)) {
+                            worklist.markUnit(unit);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the changes recorded by the grid into the worklist of every step type.
+     */
+    private void collectChanges() {
+        Worklist changes = grid.getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Worklist worklist : worklists) {
+            worklist.addAll(changes);
+        }
+        changes.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package Rules;
+
+/**
+ * Represents the numeric rating of a puzzle by the DifficultyRater.
+ *
+ * @param hardestStep The hardest step taken, whose score is the rating of the puzzle, or null if the puzzle
+ *                    needed no step.
+ * @param stepCounts  The number of steps taken of each type, indexed by the ordinal of the StepType.
+ * @param isComplete  Indicates whether the steps solved the puzzle; if not, the puzzle needs techniques beyond
+ *                    the deduction rules, and its rating is only a lower bound.
+ */
+public record Rating(StepType hardestStep, int[] stepCounts, boolean isComplete) {
+
+    /**
+     * Gets the rating of the puzzle: the score of its hardest step.
+     *
+     * @return The score, or 0 if the puzzle needed no step.
+     */
+    public double score() {
+        return hardestStep == null ? 0 : hardestStep.getScore();
+    }
+
+    /**
+     * Gets the rating of the puzzle in tenths.
+     *
+     * @return The score multiplied by 10, or 0 if the puzzle needed no step.
+     */
+    public int scoreTenths() {
+        return hardestStep == null ? 0 : hardestStep.getScoreTenths();
+    }
+
+    /**
+     * Gets the number of steps of a type taken to solve the puzzle.
+     *
+     * @param stepType The type of step.
+     * @return The number of steps.
+     */
+    public int getStepCount(StepType stepType) {
+        return stepCounts[stepType.ordinal()];
+    }
+
+    /**
+     * Gets the total number of steps taken.
+     *
+     * @return The number of steps of every type.
+     */
+    public int getTotalSteps() {
+        int total = 0;
+        for (int count : stepCounts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,178 @@
+package Rules;
+
+import Events.RuleEvent;
+import Metrics.SolverMetrics;
+import Metrics.SolverMetrics.RuleMetrics;
+import Utils.Difficulty;
+import Utils.Geometry;
+import Utils.Grid;
+import Utils.Worklist;
+
+import java.util.List;
+
+/**
+ * Event-driven propagation engine for the deduction rules.
+ * Each rule owns a worklist of the cells and units that changed since it last ran. After a rule
+ * changes the grid, the changes recorded by the grid are handed to every rule and propagation
+ * restarts from the easiest rule, so a rule only runs once all easier rules have reached a fixpoint.
+ */
+public class RulePropagator {
+
+    private final DeductionRule[] rules;
+    private final Worklist[] worklists;
+    private final RuleMetrics[] metrics;
+    private final long[] solveNanos; // Time spent in each rule since the last recordSolve, when metrics are enabled
+
+    /**
+     * Constructs a RulePropagator with the default deduction rules, in difficulty order, for 9x9 grids.
+     */
+    public RulePropagator() {
+        this(Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a RulePropagator with the default deduction rules, in difficulty order.
+     *
+     * @param geometry The shape of the grids the rules are applied to.
+     */
+    public RulePropagator(Geometry geometry) {
+        this(DeductionRuleFactory.getDeductionRules(), geometry);
+    }
+
+    /**
+     * Constructs a RulePropagator with the given deduction rules, for 9x9 grids.
+     *
+     * @param rules The rules to apply, from the easiest to the hardest.
+     */
+    public RulePropagator(List<DeductionRule> rules) {
+        this(rules, Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a RulePropagator with the given deduction rules.
+     *
+     * @param rules    The rules to apply, from the easiest to the hardest.
+     * @param geometry The shape of the grids the rules are applied to.
+     */
+    public RulePropagator(List<DeductionRule> rules, Geometry geometry) {
+        this.rules = rules.toArray(new DeductionRule[0]);
+        this.worklists = new Worklist[this.rules.length];
+        this.metrics = new RuleMetrics[this.rules.length];
+        this.solveNanos = new long[this.rules.length];
+        for (int i = 0; i < worklists.length; i++) {
+            worklists[i] = new Worklist(geometry);
+            metrics[i] = SolverMetrics.getRuleMetrics(this.rules[i].getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Discards all pending work, e.g. before the grid is reset for a new puzzle.
+     * Changes still recorded by the grid are picked up by the next call to propagate().
+     */
+    public void reset() {
+        for (Worklist worklist : worklists) {
+            worklist.clear();
+        }
+    }
+
+    /**
+     * Applies the rules to the cells and units that changed until none of them can make progress.
+     * Propagation stops early if the grid becomes contradictory.
+     *
+     * @param grid The Sudoku grid.
+     * @return The highest difficulty among the rules that changed the grid, or UNKNOWN if none did.
+     */
+    public Difficulty propagate(Grid grid) {
+        Difficulty highestDifficulty = Difficulty.UNKNOWN;
+        collectChanges(grid);
+
+        int index = 0;
+        while (index < rules.length) {
+            DeductionRule rule = rules[index];
+            RuleEvent event = new RuleEvent(); // Optimized away by the JIT when Flight Recorder is not recording
+            boolean hasChanged = SolverMetrics.isEnabled() || event.isEnabled()
+                    ? applyInstrumented(index, grid, event) : rule.apply(grid, worklists[index]);
+            worklists[index].clear();
+
+            if (hasChanged) {
+                if (rule.getDifficulty().compareTo(highestDifficulty) > 0) {
+                    highestDifficulty = rule.getDifficulty();
+                }
+                if (grid.hasContradiction()) {
+                    break;
+                }
+                collectChanges(grid);
+                index = 0; // Restart from the easiest rule
+            } else {
+                index++;
+            }
+        }
+
+        return highestDifficulty;
+    }
+
+    /**
+     * Applies a rule, recording its metrics if they are enabled and its Flight Recorder event if it is recorded.
+     * The changes of the grid were collected before the rule ran, so the cells the grid marks as changed
+     * afterwards are those changed by the rule.
+     *
+     * @param index The index of the rule.
+     * @param grid  The Sudoku grid.
+     * @param event The event of the application.
+     * @return True if the rule changed the grid; false otherwise.
+     */
+    private boolean applyInstrumented(int index, Grid grid, RuleEvent event) {
+        int trailMark = grid.getTrailMark();
+        int filledCells = grid.getFilledCellCount();
+        boolean contradiction = grid.hasContradiction();
+        event.begin();
+        long startTime = System.nanoTime();
+        boolean hasChanged = rules[index].apply(grid, worklists[index]);
+        long elapsed = System.nanoTime() - startTime;
+        event.end();
+
+        if (SolverMetrics.isEnabled()) {
+            metrics[index].record(elapsed, hasChanged, hasChanged ? grid.getChanges().getCellCount() : 0);
+            solveNanos[index] += elapsed;
+        }
+        if (event.shouldCommit()) {
+            // Every placement, every removed candidate and a contradiction is one entry of the undo trail
+            event.rule = metrics[index].getRule();
+            event.changed = hasChanged;
+            event.placements = grid.getFilledCellCount() - filledCells;
+            event.eliminations = grid.getTrailMark() - trailMark - event.placements
+                    - (grid.hasContradiction() && !contradiction ? 1 : 0);
+            event.commit();
+        }
+        return hasChanged;
+    }
+
+    /**
+     * Adds the time spent in each rule since the previous call to the metrics of the given difficulty,
+     * once a solve is over.
+     *
+     * @param difficulty The difficulty of the solved puzzle.
+     */
+    public void recordSolve(Difficulty difficulty) {
+        for (int i = 0; i < rules.length; i++) {
+            metrics[i].recordSolve(difficulty, solveNanos[i]);
+            solveNanos[i] = 0;
+        }
+    }
+
+    /**
+     * Moves the changes recorded by the grid into the worklist of every rule.
+     *
+     * @param grid The Sudoku grid.
+     */
+    private void collectChanges(Grid grid) {
+        Worklist changes = grid.getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Worklist worklist : worklists) {
+            worklist.addAll(changes);
+        }
+        changes.clear();
+    }
+}
@@ -0,0 +1,56 @@
+package Rules;
+
+import Utils.Difficulty;
+
+/**
+ * The kinds of solving steps the DifficultyRater takes, from the simplest to the hardest, with the score of each
+ * on the scale of Sudoku Explainer ratings. On that scale hidden singles are simpler than naked singles, whereas
+ * the coarse difficulty levels of the deduction rules rank naked singles first.
+ */
+public enum StepType {
+    HIDDEN_SINGLE_BOX(12, Difficulty.MEDIUM, "hidden single in a box"),
+    HIDDEN_SINGLE_LINE(15, Difficulty.MEDIUM, "hidden single in a row or column"),
+    NAKED_SINGLE(23, Difficulty.EASY, "naked single"),
+    POINTING(26, Difficulty.HARD, "pointing pair or triple");
+
+    private final int scoreTenths;
+    private final Difficulty difficulty;
+    private final String description;
+
+    StepType(int scoreTenths, Difficulty difficulty, String description) {
+        this.scoreTenths = scoreTenths;
+        this.difficulty = difficulty;
+        this.description = description;
+    }
+
+    /**
+     * Gets the score of a step of this type.
+     *
+     * @return The score, e.g. 2.3 for a naked single.
+     */
+    public double getScore() {
+        return scoreTenths / 10.0;
+    }
+
+    /**
+     * Gets the score of a step of this type in tenths, for exact comparisons and formatting.
+     *
+     * @return The score multiplied by 10, e.g. 23 for a naked single.
+     */
+    public int getScoreTenths() {
+        return scoreTenths;
+    }
+
+    /**
+     * Gets the difficulty level of the deduction rule taking steps of this type.
+     *
+     * @return The difficulty of the rule.
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,62 +1,41 @@
 package States;
 
-import Rules.*;
 import Utils.Difficulty;
 import Utils.Grid;
-import Utils.SudokuHandler;
+import Utils.SolveContext;
 import States.SolverStateFactory.StateType;
-import Rules.DeductionRuleFactory.RuleType;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents the state where the solver attempts to solve the puzzle using deduction rules.
  */
 public class DeductionState extends SolverState {
 
-    private final List<DeductionRule> rules;
-
-    /**
-     * Constructs a DeductionState with the default set of deduction rules.
-     *
-     * @param sudokuHandler The SudokuHandler managing the solving process.
-     */
-    public DeductionState(SudokuHandler sudokuHandler) {
-        super(sudokuHandler);
-        this.rules = new ArrayList<>();
-        rules.add(DeductionRuleFactory.getDeductionRule(RuleType.NAKED_SINGLE));
-        rules.add(DeductionRuleFactory.getDeductionRule(RuleType.HIDDEN_SINGLE));
-        rules.add(DeductionRuleFactory.getDeductionRule(RuleType.POINTING_PAIR));
-    }
-
     /**
-     * Attempts to apply deduction rules to solve the puzzle.
+     * Propagates the deduction rules over the changed parts of the grid until none of them applies.
      *
-     * @param grid The current Sudoku grid.
+     * @param context The context of the current solve, holding the grid and the rule propagator.
      * @return A StateResult indicating if any rules were applied and the highest difficulty encountered.
      */
     @Override
-    public StateResult run(Grid grid) {
-        Difficulty highestDifficulty = Difficulty.UNKNOWN;
-        boolean ruleApplied = false;
+    public StateResult run(SolveContext context) {
+        Grid grid = context.getGrid();
+        Difficulty highestDifficulty = context.getPropagator().propagate(grid);
+        boolean ruleApplied = highestDifficulty != Difficulty.UNKNOWN;
 
-        for (DeductionRule rule : rules) {
-            if (rule.apply(grid)) {
-                Difficulty ruleDifficulty = rule.getDifficulty();
-                if (ruleDifficulty.compareTo(highestDifficulty) > 0) {
-                    highestDifficulty = ruleDifficulty;
-                }
-                ruleApplied = true;
-                break; // Stop after the first successful rule application
-            }
+        if (grid.hasContradiction()) {
+            return new StateResult(false, Difficulty.IMPOSSIBLE);
         }
 
         if (!ruleApplied) {
-            if (sudokuHandler.userHelp) {
-                highestDifficulty = Difficulty.USER;
+            if (context.isUserHelp()) {
                 // No rules could be applied; switch to UserState using the factory
-                sudokuHandler.changeSolverState(StateType.USER);
+                context.changeSolverState(StateType.USER);
+                return new StateResult(true, Difficulty.USER);
+            } else if (context.isSearchEnabled()) {
+                // No rules could be applied; switch to SearchState to guess values, on the pool if there is one
+                context.changeSolverState(
+                        context.getSearchPool() != null ? StateType.PARALLEL_SEARCH : StateType.SEARCH);
+                return new StateResult(true, highestDifficulty);
             } else {
                 return new StateResult(false, Difficulty.IMPOSSIBLE);
             }
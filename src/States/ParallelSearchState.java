@@ -0,0 +1,219 @@
+package States;
+
+import Rules.RulePropagator;
+import Utils.Difficulty;
+import Utils.Geometry;
+import Utils.Grid;
+import Utils.SolveContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Represents the state where the solver guesses values once the deduction rules are stuck, splitting
+ * the search tree of the puzzle across the threads of the context's fork-join pool.
+ * <p>
+ * Each task explores the candidates of one cell depth-first, exactly like {@link SearchState}, on the grid of
+ * a solve context owned by its worker thread. Whenever the pool runs short of queued work, the task hands off
+ * the untried candidates of its shallowest open cell, which roots the largest unexplored subtree, as a new
+ * task that idle workers steal. A split copies the grid once, undone to the split point, and the forked task
+ * copies that snapshot into its own worker's grid. All tasks share a {@link SearchRun}, so every branch
+ * stops as soon as the first solution is found, or the solution limit reached when counting.
+ */
+public class ParallelSearchState extends SolverState {
+
+    private static final int MAX_SURPLUS_TASKS = 2; // Split while fewer tasks than this are queued per worker
+
+    // Grid, propagator and search stacks of each pool thread, one context per box size
+    private static final ThreadLocal<SolveContext[]> workerContexts =
+            ThreadLocal.withInitial(() -> new SolveContext[Geometry.MAX_BOX_SIZE + 1]);
+
+    /**
+     * Searches for a solution of the grid on the context's pool, leaving the grid solved if one is found
+     * and unchanged otherwise.
+     *
+     * @param context The context of the current solve, its grid at a fixpoint of the deduction rules.
+     * @return A StateResult with the SEARCH difficulty if solved, or IMPOSSIBLE if no solution exists.
+     */
+    @Override
+    public StateResult run(SolveContext context) {
+        SearchRun run = new SearchRun(1);
+        search(context, run);
+        int[] solution = run.getSolution();
+        if (solution == null) {
+            return new StateResult(false, Difficulty.IMPOSSIBLE);
+        }
+
+        // Place the solution on the caller's grid, so its trail and worklists stay consistent
+        Grid grid = context.getGrid();
+        for (int cellIndex = 0; cellIndex < solution.length; cellIndex++) {
+            if (grid.isCellEmpty(cellIndex)) {
+                grid.setValue(cellIndex, solution[cellIndex]);
+            }
+        }
+        return new StateResult(true, Difficulty.SEARCH);
+    }
+
+    /**
+     * Explores the whole search tree of a context's grid on the context's pool, recording the solutions
+     * in a run until it reaches its limit. The grid of the context is left unchanged.
+     *
+     * @param context The context of the current solve, with a search pool.
+     * @param run     The run receiving the solutions.
+     */
+    public static void search(SolveContext context, SearchRun run) {
+        Grid snapshot = new Grid(context.getGrid().getGeometry());
+        snapshot.copyFrom(context.getGrid());
+        ForkJoinPool pool = context.getSearchPool();
+        pool.invoke(new BranchTask(run, snapshot, -1, 0));
+    }
+
+    /**
+     * Gets the solve context of the calling pool thread for a board, creating it on first use.
+     *
+     * @param geometry The shape of the board.
+     * @return The context of the thread.
+     */
+    private static SolveContext getWorkerContext(Geometry geometry) {
+        SolveContext[] contexts = workerContexts.get();
+        SolveContext context = contexts[geometry.getBoxSize()];
+        if (context == null) {
+            context = new SolveContext(false, true, geometry);
+            contexts[geometry.getBoxSize()] = context;
+        }
+        return context;
+    }
+
+    /**
+     * A subtree of the search: the candidates of one cell still to try from a snapshot of the grid.
+     */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, but tasks are never serialized
+    private static final class BranchTask extends RecursiveAction {
+
+        private final SearchRun run;
+        private final Grid snapshot; // Shared with sibling tasks and never modified
+        private final int cellIndex; // -1 for the root, which branches on a cell of its own choice
+        private final int candidates;
+
+        /**
+         * Constructs a task.
+         *
+         * @param run        The shared progress of the search.
+         * @param snapshot   The grid the branches start from.
+         * @param cellIndex  The cell to branch on, or -1 for the root of the tree.
+         * @param candidates The candidate mask of the values to try in the cell.
+         */
+        BranchTask(SearchRun run, Grid snapshot, int cellIndex, int candidates) {
+            this.run = run;
+            this.snapshot = snapshot;
+            this.cellIndex = cellIndex;
+            this.candidates = candidates;
+        }
+
+        /**
+         * Explores the branches of the task depth-first, splitting off work for idle threads,
+         * then waits for the tasks it split off.
+         */
+        @Override
+        protected void compute() {
+            if (run.isStopped()) {
+                return;
+            }
+            SolveContext context = getWorkerContext(snapshot.getGeometry());
+            Grid grid = context.getGrid();
+            grid.copyFrom(snapshot);
+            RulePropagator propagator = context.getPropagator();
+            propagator.reset();
+
+            List<BranchTask> forked = new ArrayList<>();
+            int[] cellStack = context.getSearchCells();
+            int[] candidateStack = context.getSearchCandidates();
+            int[] markStack = context.getSearchMarks();
+            int depth = 0;
+            int first = cellIndex != -1 ? cellIndex : SearchState.selectCell(grid);
+            if (first == -1) {
+                run.recordSolution(grid);
+            } else {
+                cellStack[0] = first;
+                candidateStack[0] = cellIndex != -1 ? candidates : grid.getCandidateMask(first);
+                markStack[0] = grid.getTrailMark();
+                depth = 1;
+            }
+
+            while (depth > 0) {
+                // Try the next candidate of the deepest open cell, backtracking when one runs out
+                if (run.isStopped()) {
+                    break;
+                }
+                int level = depth - 1;
+                grid.undo(markStack[level]);
+                grid.getChanges().clear();
+                propagator.reset();
+
+                int remaining = candidateStack[level];
+                if (remaining == 0) {
+                    depth--;
+                    continue;
+                }
+                candidateStack[level] = remaining & (remaining - 1);
+
+                grid.setValue(cellStack[level], Integer.numberOfTrailingZeros(remaining) + 1);
+                if (!grid.hasContradiction()) {
+                    propagator.propagate(grid);
+                }
+                if (grid.hasContradiction()) {
+                    continue;
+                }
+
+                int next = SearchState.selectCell(grid);
+                if (next == -1) {
+                    if (run.recordSolution(grid)) {
+                        break;
+                    }
+                    continue;
+                }
+                cellStack[depth] = next;
+                candidateStack[depth] = grid.getCandidateMask(next);
+                markStack[depth] = grid.getTrailMark();
+                depth++;
+
+                if (ForkJoinTask.getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS) {
+                    split(grid, depth, forked);
+                }
+            }
+
+            // The grid of this worker is no longer needed, so it may run other tasks while waiting
+            for (BranchTask task : forked) {
+                task.join();
+            }
+        }
+
+        /**
+         * Hands off the untried candidates of the shallowest open cell as a new task.
+         *
+         * @param grid   The grid of the worker, at the current node.
+         * @param depth  The current depth of the search.
+         * @param forked The tasks split off so far, to wait for.
+         */
+        private void split(Grid grid, int depth, List<BranchTask> forked) {
+            SolveContext context = getWorkerContext(grid.getGeometry());
+            int[] candidateStack = context.getSearchCandidates();
+            for (int level = 0; level < depth; level++) {
+                if (candidateStack[level] != 0) {
+                    Grid branchGrid = new Grid(grid.getGeometry());
+                    branchGrid.copyFrom(grid);
+                    branchGrid.undo(context.getSearchMarks()[level]);
+                    BranchTask task = new BranchTask(run, branchGrid, context.getSearchCells()[level],
+                            candidateStack[level]);
+                    candidateStack[level] = 0;
+                    task.fork();
+                    forked.add(task);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package States;
+
+import Utils.Grid;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one backtracking search, shared by every thread exploring its tree: the number of solutions
+ * found, the first of them, and the flag telling every branch to stop once the solution limit is reached.
+ * A search for any solution uses a limit of 1; counting up to a limit lets callers tell a unique puzzle
+ * from one with several solutions without enumerating them all.
+ */
+public final class SearchRun {
+
+    private final long limit;
+    private final AtomicLong solutions = new AtomicLong();
+    private volatile boolean stopped;
+    private int[] solution;
+
+    /**
+     * Constructs a search run stopping after a number of solutions.
+     *
+     * @param limit The number of solutions after which the search stops (at least 1).
+     * @throws IllegalArgumentException If the limit is below 1.
+     */
+    public SearchRun(long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The solution limit must be at least 1");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Records a solved grid, keeping the values of the first solution found.
+     *
+     * @param grid The solved grid.
+     * @return True if the limit is reached and the search must stop; false to keep searching.
+     */
+    public boolean recordSolution(Grid grid) {
+        long count = solutions.incrementAndGet();
+        if (count == 1) {
+            int[] values = new int[grid.getGeometry().getCellCount()];
+            grid.copyValues(values, 0);
+            solution = values;
+        }
+        if (count >= limit) {
+            stopped = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Makes every branch of the search stop, e.g. when the caller gives up.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Checks if the search must stop, because the solution limit was reached or it was stopped.
+     *
+     * @return True if no branch should be explored further; false otherwise.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Gets the number of solutions found. Branches finishing concurrently may find more solutions than
+     * the limit, so the count is capped at the limit.
+     *
+     * @return The number of solutions found, at most the limit.
+     */
+    public long getSolutionCount() {
+        return Math.min(solutions.get(), limit);
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the values of the first solution found. Only safe to read once the search has completed.
+     *
+     * @return One value per cell, or null if no solution was found.
+     */
+    public int[] getSolution() {
+        return solution;
+    }
+}
@@ -0,0 +1,119 @@
+package States;
+
+import Rules.RulePropagator;
+import Utils.Difficulty;
+import Utils.Grid;
+import Utils.SolveContext;
+
+/**
+ * Represents the state where the solver guesses values once the deduction rules are stuck.
+ * It performs a depth-first search, always branching on the empty cell with the fewest candidates,
+ * and runs the deduction rules after every guess. Backtracking reverts the grid through its undo
+ * trail, so no grid is ever copied and no memory is allocated per node. The search stacks are
+ * preallocated in the SolveContext.
+ */
+public class SearchState extends SolverState {
+
+    /**
+     * Searches for a solution of the grid, leaving the grid solved if one is found
+     * and unchanged otherwise.
+     *
+     * @param context The context of the current solve, its grid at a fixpoint of the deduction rules.
+     * @return A StateResult with the SEARCH difficulty if solved, or IMPOSSIBLE if no solution exists.
+     */
+    @Override
+    public StateResult run(SolveContext context) {
+        if (search(context, null)) {
+            return new StateResult(true, Difficulty.SEARCH);
+        }
+        return new StateResult(false, Difficulty.IMPOSSIBLE);
+    }
+
+    /**
+     * Runs the depth-first search iteratively, using explicit stacks of chosen cells,
+     * remaining candidates and trail marks.
+     * <p>
+     * Without a run, the search stops at the first solution. With a run, every solution is recorded in it
+     * and the search goes on until the run reaches its solution limit or is stopped by another thread.
+     *
+     * @param context The context of the current solve, its grid at a fixpoint of the deduction rules.
+     * @param run     The shared progress of the search, or null to stop at the first solution.
+     * @return True if the search stopped on a solution, left in the grid; false if the tree was exhausted
+     * or the run was stopped elsewhere, the grid being back to its initial state.
+     */
+    public static boolean search(SolveContext context, SearchRun run) {
+        Grid grid = context.getGrid();
+        RulePropagator propagator = context.getPropagator();
+        int[] cellStack = context.getSearchCells();
+        int[] candidateStack = context.getSearchCandidates();
+        int[] markStack = context.getSearchMarks();
+        int depth = 0;
+
+        while (true) {
+            int cellIndex = selectCell(grid);
+            if (cellIndex != -1) {
+                cellStack[depth] = cellIndex;
+                candidateStack[depth] = grid.getCandidateMask(cellIndex);
+                markStack[depth] = grid.getTrailMark();
+                depth++;
+            } else if (run == null || run.recordSolution(grid)) {
+                return true; // No empty cell left and no contradiction: the grid is solved
+            }
+
+            // Try the next candidate of the deepest open cell, backtracking when one runs out
+            while (true) {
+                if (depth == 0) {
+                    return false;
+                }
+                if (run != null && run.isStopped()) {
+                    grid.undo(markStack[0]);
+                    return false;
+                }
+                int level = depth - 1;
+                grid.undo(markStack[level]);
+                grid.getChanges().clear();
+                propagator.reset();
+
+                int candidates = candidateStack[level];
+                if (candidates == 0) {
+                    depth--;
+                    continue;
+                }
+                candidateStack[level] = candidates & (candidates - 1);
+
+                grid.setValue(cellStack[level], Integer.numberOfTrailingZeros(candidates) + 1);
+                if (!grid.hasContradiction()) {
+                    propagator.propagate(grid);
+                }
+                if (!grid.hasContradiction()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects the empty cell with the fewest candidates (minimum remaining values).
+     *
+     * @param grid The Sudoku grid.
+     * @return The index of the selected cell, or -1 if the grid has no empty cell.
+     */
+    static int selectCell(Grid grid) {
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int cellCount = grid.getGeometry().getCellCount();
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            if (grid.isCellEmpty(cellIndex)) {
+                int count = grid.getCandidateCount(cellIndex);
+                if (count < bestCount) {
+                    bestCell = cellIndex;
+                    bestCount = count;
+                    if (count <= 2) {
+                        break; // Cells with fewer candidates are filled by DR1 or contradictory
+                    }
+                }
+            }
+        }
+        return bestCell;
+    }
+}
@@ -1,30 +1,20 @@
 package States;
 
-import Utils.Grid;
-import Utils.SudokuHandler;
+import Utils.SolveContext;
 
 /**
  * Represents the state of the Sudoku solver.
  * Subclasses define specific behaviors for different solving strategies.
+ * States are stateless and shared: everything they modify lives in the SolveContext they are given,
+ * so a single instance can run for many threads at once.
  */
 public abstract class SolverState {
 
-    protected SudokuHandler sudokuHandler;
-
-    /**
-     * Constructs a SolverState with a reference to the SudokuHandler.
-     *
-     * @param sudokuHandler The SudokuHandler managing the solving process.
-     */
-    public SolverState(SudokuHandler sudokuHandler) {
-        this.sudokuHandler = sudokuHandler;
-    }
-
     /**
      * Executes the solving strategy associated with this state.
      *
-     * @param grid The current Sudoku grid.
+     * @param context The context of the current solve, holding the grid.
      * @return A StateResult indicating if the state made progress and the difficulty involved.
      */
-    public abstract StateResult run(Grid grid);
+    public abstract StateResult run(SolveContext context);
 }
@@ -1,28 +1,38 @@
 package States;
 
-import Utils.SudokuHandler;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
- * Factory class for creating SolverState instances.
+ * Factory class for SolverState instances.
+ * States are stateless, so a single shared instance of each type is created once and reused.
  */
 public class SolverStateFactory {
 
+    private static final Map<StateType, SolverState> stateInstances;
+
+    static {
+        Map<StateType, SolverState> states = new EnumMap<>(StateType.class);
+        states.put(StateType.DEDUCTION, new DeductionState());
+        states.put(StateType.USER, new UserState());
+        states.put(StateType.SEARCH, new SearchState());
+        states.put(StateType.PARALLEL_SEARCH, new ParallelSearchState());
+        stateInstances = Collections.unmodifiableMap(states);
+    }
+
     /**
-     * Creates a SolverState instance based on the given state type.
+     * Gets the shared SolverState instance based on the given state type.
      *
-     * @param stateType     The type of state to create.
-     * @param sudokuHandler The SudokuHandler managing the solving process.
-     * @return A new instance of the requested SolverState.
+     * @param stateType The type of state to retrieve.
+     * @return The corresponding SolverState instance.
      */
-    public static SolverState createSolverState(StateType stateType, SudokuHandler sudokuHandler) {
-        switch (stateType) {
-            case DEDUCTION:
-                return new DeductionState(sudokuHandler);
-            case USER:
-                return new UserState(sudokuHandler);
-            default:
-                throw new IllegalArgumentException("Invalid state type");
+    public static SolverState getSolverState(StateType stateType) {
+        SolverState state = stateInstances.get(stateType);
+        if (state == null) {
+            throw new IllegalArgumentException("Invalid state type");
         }
+        return state;
     }
 
     /**
@@ -30,6 +40,8 @@ public class SolverStateFactory {
      */
     public enum StateType {
         DEDUCTION,
-        USER
+        USER,
+        SEARCH,
+        PARALLEL_SEARCH
     }
 }
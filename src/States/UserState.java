@@ -1,8 +1,9 @@
 package States;
 
+import IO.Logger;
 import Utils.Difficulty;
 import Utils.Grid;
-import Utils.SudokuHandler;
+import Utils.SolveContext;
 import States.SolverStateFactory.StateType;
 
 import java.util.Scanner;
@@ -14,25 +15,23 @@ import java.util.regex.Pattern;
  */
 public class UserState extends SolverState {
 
-    public UserState(SudokuHandler sudokuHandler) {
-        super(sudokuHandler);
-    }
-
     /**
      * Prompts the user to input a value for a cell to help solve the puzzle.
      *
-     * @param grid The current Sudoku grid.
+     * @param context The context of the current solve, holding the grid.
      * @return A StateResult indicating that user input was used.
      */
     @Override
-    public StateResult run(Grid grid) {
+    public StateResult run(SolveContext context) {
+        Grid grid = context.getGrid();
+        Logger.flush(); // Let an asynchronous log sink catch up before prompting
         System.out.println(grid.toStringWithLabels());
         int cellIndex = promptUserForCellIndex(grid);
         int value = promptUserForValue(grid, cellIndex);
         grid.setValue(cellIndex, value);
 
         // Switch back to DeductionState using the factory after user input
-        sudokuHandler.changeSolverState(StateType.DEDUCTION);
+        context.changeSolverState(StateType.DEDUCTION);
 
         return new StateResult(true, Difficulty.USER);
     }
@@ -50,7 +49,7 @@ public class UserState extends SolverState {
         System.out.print("Enter the cell position (e.g., A1, B5, I9) where you want to place a value: ");
         while (true) {
             String input = scanner.nextLine().trim().toUpperCase();
-            cellIndex = parseCellPosition(input);
+            cellIndex = parseCellPosition(grid, input);
             if (cellIndex != -1 && grid.isCellEmpty(cellIndex)) {
                 break;
             } else {
@@ -61,21 +60,23 @@ public class UserState extends SolverState {
     }
 
     /**
-     * Parses the cell position from standard notation (e.g., "A1") to a cell index.
+     * Parses the cell position from standard notation (e.g., "A1", or "P16" on a 16x16 board) to a cell index.
      *
+     * @param grid  The current Sudoku grid.
      * @param input The cell position input by the user.
-     * @return The cell index (0-80) or -1 if invalid.
+     * @return The cell index (0-80 on a 9x9 board) or -1 if invalid.
      */
-    private int parseCellPosition(String input) {
-        Pattern pattern = Pattern.compile("^([A-I])(\\d)$");
+    private int parseCellPosition(Grid grid, String input) {
+        int size = grid.getGeometry().getSize();
+        Pattern pattern = Pattern.compile("^([A-Z])(\\d{1,2})$");
         Matcher matcher = pattern.matcher(input);
         if (matcher.matches()) {
             char rowChar = matcher.group(1).charAt(0);
             int columnNum = Integer.parseInt(matcher.group(2));
             int row = rowChar - 'A';
             int column = columnNum - 1;
-            if (row >= 0 && row < 9 && column >= 0 && column < 9) {
-                return row * 9 + column;
+            if (row >= 0 && row < size && column >= 0 && column < size) {
+                return grid.getGeometry().getIndex(row, column);
             }
         }
         return -1;
@@ -91,26 +92,27 @@ public class UserState extends SolverState {
     private int promptUserForValue(Grid grid, int cellIndex) {
         Scanner scanner = new Scanner(System.in);
         int value;
-        int row = cellIndex / 9;
-        int column = cellIndex % 9;
+        int size = grid.getGeometry().getSize();
+        int row = grid.getGeometry().getRowIndex(cellIndex);
+        int column = grid.getGeometry().getColumnIndex(cellIndex);
         String cellPosition = String.format("%c%d", 'A' + row, column + 1);
 
-        System.out.print("Enter a value (1-9) for cell " + cellPosition + " (possible values: ");
+        System.out.print("Enter a value (1-" + size + ") for cell " + cellPosition + " (possible values: ");
         displayPossibleValues(grid, cellIndex);
         System.out.print("): ");
 
         while (true) {
             if (scanner.hasNextInt()) {
                 value = scanner.nextInt();
-                if (value >= 1 && value <= 9 && grid.isPossibleValue(cellIndex, value)) {
+                if (value >= 1 && value <= size && grid.isPossibleValue(cellIndex, value)) {
                     break;
                 } else {
                     System.out.print("Invalid value or not possible for this cell. Possible values are: ");
                     displayPossibleValues(grid, cellIndex);
-                    System.out.print("\nPlease enter a valid value (1-9) for cell " + cellPosition + ": ");
+                    System.out.print("\nPlease enter a valid value (1-" + size + ") for cell " + cellPosition + ": ");
                 }
             } else {
-                System.out.print("Invalid input. Please enter a number between 1 and 9 for cell " + cellPosition + ": ");
+                System.out.print("Invalid input. Please enter a number between 1 and " + size + " for cell " + cellPosition + ": ");
                 scanner.next(); // Clear the invalid input
             }
         }
@@ -0,0 +1,446 @@
+package Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps puzzles to a canonical form shared by all the puzzles equivalent to them up to symmetry.
+ * <p>
+ * The symmetries are the transposition, the permutations of the bands and of the rows within each band,
+ * the permutations of the stacks and of the columns within each stack, and the relabeling of the digits.
+ * The canonical form is the minimal transformed grid in reading order, empty cells being smaller than any
+ * digit and digits being relabeled in order of first appearance.
+ * <p>
+ * The minimum is found by a depth-first search over the source row placed at each target row, bounded by
+ * the best grid found so far. Column permutations are not enumerated: columns, and whole stacks, that are equal
+ * in every row placed so far stay tied, and each new row sorts the tied columns by their value in that row,
+ * which directly gives its smallest arrangement. Only tied columns holding digits without a label yet are
+ * branched on, since their order decides the labels. A branch is abandoned as soon as one of its cells is
+ * greater than the same cell of the best grid. The transform of the minimum is kept, so grids can be mapped
+ * to and from the canonical form.
+ * <p>
+ * A Canonicalizer holds scratch buffers and is not thread-safe; each thread should use its own instance.
+ */
+public class Canonicalizer {
+
+    private static final int NEW_DIGIT = 10; // Symbol of a digit without label, greater than any label
+    private static final int COLUMN_TIES = 0b110110110; // Bit of each position tied with the previous one
+    private static final int STACK_TIES = 0b11 << 9; // Bit of each stack tied with the previous one
+    private static final int MAX_RUNS = 4; // At most one run of new digits per stack, and one run of stacks
+
+    private final int[][] sources = new int[2][81]; // The grid and its transpose, 0 for empty cells
+    private final int[] best = new int[81];
+    private int bestLength; // Number of valid cells of the best grid; the cells after it are unbounded
+    private final int[] labels = new int[10]; // Label of each digit in the transformed grid, 0 if not seen yet
+    private final int[] labelStack = new int[9]; // Digits in order of labeling, to undo the labels
+    private final int[] rowMap = new int[9]; // Source row of each target row
+    private int[] source;
+    private boolean transposed;
+    private int nextLabel;
+    private int usedRows;
+    private boolean improved;
+
+    // Column arrangement once each number of rows is placed: source column of each target column,
+    // and ties between positions of a stack (bits 1-8) and between stacks (bits 9-10)
+    private final int[][] columnOrders = new int[10][9];
+    private final int[] tieMasks = new int[10];
+    private final int[] symbols = new int[9]; // Values of the row being refined, NEW_DIGIT for unlabeled digits
+    // Runs of tied columns (positions 0-8) or stacks (9 + stack) holding new digits, for each placed row
+    private final int[][] runStarts = new int[9][MAX_RUNS];
+    private final int[][] runLengths = new int[9][MAX_RUNS];
+    private final int[] runCounts = new int[9];
+
+    // Transform of the best grid
+    private boolean bestTransposed;
+    private final int[] bestRowMap = new int[9];
+    private final int[] bestColumnMap = new int[9];
+    private final int[] bestLabels = new int[10];
+    private final int[] bestDigits = new int[10]; // Inverse of bestLabels
+
+    /**
+     * Computes the canonical form of a puzzle and the transform leading to it.
+     *
+     * @param values An array of 81 integers representing the puzzle, -1 for empty cells.
+     */
+    public void canonicalize(int[] values) {
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            int value = Math.max(values[cellIndex], 0);
+            sources[0][cellIndex] = value;
+            sources[1][(cellIndex % 9) * 9 + cellIndex / 9] = value;
+        }
+        bestLength = 0;
+        Arrays.fill(labels, 0);
+        nextLabel = 1;
+        improved = false;
+
+        Arrays.fill(bestLabels, 0);
+        for (int column = 0; column < 9; column++) {
+            columnOrders[0][column] = column;
+        }
+        tieMasks[0] = COLUMN_TIES | STACK_TIES;
+
+        for (int transpose = 0; transpose < 2; transpose++) {
+            source = sources[transpose];
+            transposed = transpose == 1;
+            usedRows = 0;
+            placeRow(0);
+        }
+
+        // Digits missing from the puzzle take the remaining labels in increasing order
+        int label = 1;
+        for (int digit = 1; digit <= 9; digit++) {
+            label = Math.max(label, bestLabels[digit] + 1);
+        }
+        for (int digit = 1; digit <= 9; digit++) {
+            if (bestLabels[digit] == 0) {
+                bestLabels[digit] = label++;
+            }
+            bestDigits[bestLabels[digit]] = digit;
+        }
+    }
+
+    /**
+     * Tries each source row its band allows at a target row, then continues with the next rows.
+     *
+     * @param row The target row to fill, which is also the number of rows already placed.
+     */
+    private void placeRow(int row) {
+        if (row == 9) {
+            if (improved) {
+                recordTransform();
+                improved = false;
+            }
+            return;
+        }
+
+        int first;
+        int last;
+        if (row % 3 == 0) {
+            first = 0; // Any row of an unused band
+            last = 9;
+        } else {
+            first = rowMap[row - 1] / 3 * 3; // The remaining rows of the current band
+            last = first + 3;
+        }
+
+        // Rows are compared with their refined values first: only the rows giving the smallest values are explored
+        int candidates = 0;
+        long smallest = Long.MAX_VALUE;
+        for (int sourceRow = first; sourceRow < last; sourceRow++) {
+            if ((usedRows & 1 << sourceRow) != 0
+                    || (row % 3 == 0 && (usedRows & 7 << (sourceRow / 3 * 3)) != 0)) {
+                continue;
+            }
+            long key = refine(row, sourceRow);
+            if (key < smallest) {
+                smallest = key;
+                candidates = 0;
+            }
+            if (key == smallest) {
+                candidates |= 1 << sourceRow;
+            }
+        }
+
+        for (; candidates != 0; candidates &= candidates - 1) {
+            int sourceRow = Integer.numberOfTrailingZeros(candidates);
+            rowMap[row] = sourceRow;
+            usedRows |= 1 << sourceRow;
+            refine(row, sourceRow);
+            branch(row, 0);
+            usedRows &= ~(1 << sourceRow);
+        }
+    }
+
+    /**
+     * Arranges the columns for a new row: tied columns and tied stacks are sorted by their values in the row,
+     * and stay tied only if these values are equal and labeled or empty. Tied columns or stacks whose values
+     * include digits without a label are recorded as runs, whose orders are enumerated by
+     * {@link #branch(int, int)}.
+     *
+     * @param row       The target row; the arrangement of the rows before it is refined into the next level.
+     * @param sourceRow The source row placed at the target row.
+     * @return A key ordering the source rows by their refined values, new digits counting as greater than labels.
+     */
+    private long refine(int row, int sourceRow) {
+        int[] columns = columnOrders[row + 1];
+        System.arraycopy(columnOrders[row], 0, columns, 0, 9);
+        int parentTies = tieMasks[row];
+        int rowStart = sourceRow * 9;
+        for (int position = 0; position < 9; position++) {
+            int digit = source[rowStart + columns[position]];
+            symbols[position] = digit == 0 ? 0 : labels[digit] != 0 ? labels[digit] : NEW_DIGIT;
+        }
+
+        // Tied positions are contiguous within a stack, so sorting them with adjacent swaps keeps the ties valid
+        for (int position = 1; position < 9; position++) {
+            for (int current = position; (parentTies & 1 << current) != 0
+                    && symbols[current - 1] > symbols[current]; current--) {
+                swap(columns, current - 1, current);
+                swap(symbols, current - 1, current);
+            }
+        }
+        // Tied stacks have the same ties between their positions, so moving them keeps these ties valid
+        for (int stack = 1; stack < 3; stack++) {
+            for (int current = stack; current > 0 && (parentTies & 1 << (8 + current)) != 0
+                    && getStackKey(current - 1) > getStackKey(current); current--) {
+                for (int offset = 0; offset < 3; offset++) {
+                    swap(columns, (current - 1) * 3 + offset, current * 3 + offset);
+                    swap(symbols, (current - 1) * 3 + offset, current * 3 + offset);
+                }
+            }
+        }
+
+        int ties = 0;
+        int runCount = 0;
+        for (int position = 1; position < 9; position++) {
+            if ((parentTies & 1 << position) == 0 || symbols[position - 1] != symbols[position]) {
+                continue;
+            }
+            if (symbols[position] != NEW_DIGIT) {
+                ties |= 1 << position;
+            } else if (runCount > 0 && runStarts[row][runCount - 1] + runLengths[row][runCount - 1] == position) {
+                runLengths[row][runCount - 1]++;
+            } else {
+                runStarts[row][runCount] = position - 1;
+                runLengths[row][runCount++] = 2;
+            }
+        }
+        for (int stack = 1; stack < 3; stack++) {
+            if ((parentTies & 1 << (8 + stack)) == 0 || getStackKey(stack - 1) != getStackKey(stack)) {
+                continue;
+            }
+            if (!hasNewDigit(stack)) {
+                ties |= 1 << (8 + stack);
+            } else if (runCount > 0 && runStarts[row][runCount - 1] >= 9
+                    && runStarts[row][runCount - 1] - 9 + runLengths[row][runCount - 1] == stack) {
+                runLengths[row][runCount - 1]++;
+            } else {
+                runStarts[row][runCount] = 9 + stack - 1;
+                runLengths[row][runCount++] = 2;
+            }
+        }
+        tieMasks[row + 1] = ties;
+        runCounts[row] = runCount;
+
+        long key = 0;
+        for (int position = 0; position < 9; position++) {
+            key = key * 11 + symbols[position];
+        }
+        return key;
+    }
+
+    /**
+     * Gets a key ordering the stacks of the row being refined by their values.
+     *
+     * @param stack The target stack (0-2).
+     * @return The key of the stack.
+     */
+    private int getStackKey(int stack) {
+        return (symbols[stack * 3] * 11 + symbols[stack * 3 + 1]) * 11 + symbols[stack * 3 + 2];
+    }
+
+    /**
+     * Checks if a stack of the row being refined holds a digit without a label.
+     *
+     * @param stack The target stack (0-2).
+     * @return True if the stack holds a new digit; false otherwise.
+     */
+    private boolean hasNewDigit(int stack) {
+        return symbols[stack * 3] == NEW_DIGIT || symbols[stack * 3 + 1] == NEW_DIGIT
+                || symbols[stack * 3 + 2] == NEW_DIGIT;
+    }
+
+    /**
+     * Enumerates the orders of the runs of a refined row from a given run, then labels the row and
+     * continues with the next rows for each order.
+     *
+     * @param row The target row.
+     * @param run The index of the first run to order.
+     */
+    private void branch(int row, int run) {
+        if (run == runCounts[row]) {
+            int labelMark = nextLabel;
+            if (labelRow(row)) {
+                placeRow(row + 1);
+            }
+            while (nextLabel > labelMark) {
+                labels[labelStack[--nextLabel - 1]] = 0;
+            }
+            return;
+        }
+        permute(row, run, 0);
+    }
+
+    /**
+     * Enumerates the permutations of the elements of a run from a given element, by swapping.
+     *
+     * @param row     The target row.
+     * @param run     The index of the run.
+     * @param element The first element of the run still to choose.
+     */
+    private void permute(int row, int run, int element) {
+        int length = runLengths[row][run];
+        if (element == length - 1) {
+            branch(row, run + 1);
+            return;
+        }
+        for (int other = element; other < length; other++) {
+            swapRunElements(row, run, element, other);
+            permute(row, run, element + 1);
+            swapRunElements(row, run, element, other);
+        }
+    }
+
+    /**
+     * Swaps two elements of a run: two columns, or two whole stacks.
+     *
+     * @param row    The target row.
+     * @param run    The index of the run.
+     * @param first  The index of the first element in the run.
+     * @param second The index of the second element in the run.
+     */
+    private void swapRunElements(int row, int run, int first, int second) {
+        if (first == second) {
+            return;
+        }
+        int[] columns = columnOrders[row + 1];
+        int start = runStarts[row][run];
+        if (start < 9) {
+            swap(columns, start + first, start + second);
+            return;
+        }
+        for (int offset = 0; offset < 3; offset++) {
+            swap(columns, (start - 9 + first) * 3 + offset, (start - 9 + second) * 3 + offset);
+        }
+    }
+
+    /**
+     * Labels the digits of a placed row in reading order and compares the row with the same row of the best grid,
+     * replacing the best grid from the first smaller cell.
+     *
+     * @param row The target row, whose columns are arranged in the next level.
+     * @return False if the row is greater than the best one; true otherwise.
+     */
+    private boolean labelRow(int row) {
+        int[] columns = columnOrders[row + 1];
+        int targetStart = row * 9;
+        int sourceStart = rowMap[row] * 9;
+        for (int column = 0; column < 9; column++) {
+            int digit = source[sourceStart + columns[column]];
+            int value = 0;
+            if (digit != 0) {
+                if (labels[digit] == 0) {
+                    labels[digit] = nextLabel;
+                    labelStack[nextLabel - 1] = digit;
+                    nextLabel++;
+                }
+                value = labels[digit];
+            }
+
+            if (!bound(targetStart + column, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a cell of the current grid with the same cell of the best grid, the cells before it being equal,
+     * and makes it the new best cell if it is smaller.
+     *
+     * @param cell  The cell index in reading order.
+     * @param value The value of the cell in the current grid.
+     * @return False if the current grid is greater than the best grid; true otherwise.
+     */
+    private boolean bound(int cell, int value) {
+        if (cell < bestLength) {
+            if (value > best[cell]) {
+                return false;
+            }
+            if (value == best[cell]) {
+                return true;
+            }
+        }
+        // The current grid becomes the best one from this cell
+        best[cell] = value;
+        bestLength = cell + 1;
+        improved = true;
+        return true;
+    }
+
+    /**
+     * Keeps the current transform as the one leading to the best grid.
+     * Columns still tied once every row is placed are interchangeable, so their current order is as good as any.
+     */
+    private void recordTransform() {
+        bestTransposed = transposed;
+        System.arraycopy(rowMap, 0, bestRowMap, 0, 9);
+        System.arraycopy(columnOrders[9], 0, bestColumnMap, 0, 9);
+        System.arraycopy(labels, 0, bestLabels, 0, 10);
+    }
+
+    /**
+     * Swaps two elements of an array.
+     *
+     * @param array  The array.
+     * @param first  The index of the first element.
+     * @param second The index of the second element.
+     */
+    private static void swap(int[] array, int first, int second) {
+        int element = array[first];
+        array[first] = array[second];
+        array[second] = element;
+    }
+
+    /**
+     * Gets the canonical form of the last puzzle passed to {@link #canonicalize(int[])}, as an ASCII key
+     * with '0' for empty cells, suitable for hashing.
+     *
+     * @return The 81 characters of the canonical form.
+     */
+    public String getCanonicalKey() {
+        byte[] key = new byte[81];
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            key[cellIndex] = (byte) ('0' + best[cellIndex]);
+        }
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Applies the transform of the last canonicalized puzzle to a grid, e.g. to its solution.
+     *
+     * @param values      An array of 81 integers in the frame of the puzzle, -1 for empty cells.
+     * @param destination The array receiving the 81 values in the canonical frame.
+     */
+    public void toCanonical(int[] values, int[] destination) {
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            int value = values[getSourceCell(cellIndex)];
+            destination[cellIndex] = value > 0 ? bestLabels[value] : -1;
+        }
+    }
+
+    /**
+     * Applies the inverse transform of the last canonicalized puzzle to a grid.
+     *
+     * @param values      An array of 81 integers in the canonical frame, -1 for empty cells.
+     * @param destination The array receiving the 81 values in the frame of the puzzle.
+     */
+    public void fromCanonical(int[] values, int[] destination) {
+        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
+            int value = values[cellIndex];
+            destination[getSourceCell(cellIndex)] = value > 0 ? bestDigits[value] : -1;
+        }
+    }
+
+    /**
+     * Gets the cell of the puzzle moved to a cell of the canonical form.
+     *
+     * @param cellIndex The cell index in the canonical frame (0-80).
+     * @return The cell index in the frame of the puzzle.
+     */
+    private int getSourceCell(int cellIndex) {
+        int row = bestRowMap[cellIndex / 9];
+        int column = bestColumnMap[cellIndex % 9];
+        return bestTransposed ? column * 9 + row : row * 9 + column;
+    }
+}
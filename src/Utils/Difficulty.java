@@ -9,6 +9,7 @@ public enum Difficulty {
     EASY,
     MEDIUM,
     HARD,
+    SEARCH,
     USER,
     IMPOSSIBLE
 }
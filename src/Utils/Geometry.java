@@ -0,0 +1,330 @@
+package Utils;
+
+import java.util.Arrays;
+
+/**
+ * Shape of a Sudoku board made of boxSize x boxSize boxes, e.g. 9x9 for 3x3 boxes or 16x16 for 4x4 boxes.
+ * <p>
+ * A geometry holds the lookup tables of its board: the cells of each unit, the peers of each cell,
+ * and the units of each cell with the position of the cell within them. Units 0 to size-1 are the rows,
+ * size to 2*size-1 the columns and 2*size to 3*size-1 the boxes. Candidate and position masks have one bit
+ * per value or position and must fit in an int, which limits boards to 25x25. Geometries are immutable
+ * and shared: there is a single instance per box size.
+ */
+public final class Geometry {
+
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5; // 25 values, the largest square board whose masks fit in an int
+
+    /**
+     * The 9x9 board of the standard Sudoku.
+     */
+    public static final Geometry STANDARD = new Geometry(3);
+
+    private static final Geometry[] GEOMETRIES = new Geometry[MAX_BOX_SIZE + 1];
+
+    static {
+        GEOMETRIES[3] = STANDARD;
+    }
+
+    private final int boxSize;
+    private final int size;
+    private final int cellCount;
+    private final int unitCount;
+    private final int allCandidates;
+    private final int[][] unitIndices;
+    private final int[][] peerIndices;
+    private final int[][] cellUnits; // Row, column and box unit of each cell
+    private final int[][] cellUnitPositions; // Position of the cell within those units
+    private final int[] boxRowMasks; // Positions of each local row within a box
+    private final int[] boxColumnMasks; // Positions of each local column within a box
+    private final int[][] maskValues; // Values of each candidate mask, only up to 9 values
+    private final byte[] symbolValues = new byte[256]; // Value of each input character, -1 for an empty cell
+
+    /**
+     * Builds the tables of a board.
+     *
+     * @param boxSize The number of rows and columns of a box.
+     */
+    private Geometry(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        this.cellCount = size * size;
+        this.unitCount = 3 * size;
+        this.allCandidates = (1 << size) - 1;
+
+        unitIndices = new int[unitCount][size];
+        cellUnits = new int[cellCount][];
+        cellUnitPositions = new int[cellCount][];
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int row = cellIndex / size;
+            int column = cellIndex % size;
+            int box = getBoxIndex(row, column);
+            int boxPosition = (row % boxSize) * boxSize + (column % boxSize);
+            unitIndices[row][column] = cellIndex;
+            unitIndices[size + column][row] = cellIndex;
+            unitIndices[2 * size + box][boxPosition] = cellIndex;
+            cellUnits[cellIndex] = new int[]{row, size + column, 2 * size + box};
+            cellUnitPositions[cellIndex] = new int[]{column, row, boxPosition};
+        }
+
+        // Peers are the other cells sharing a row, column or box with the cell
+        int peerCount = 3 * (size - 1) - 2 * (boxSize - 1);
+        peerIndices = new int[cellCount][peerCount];
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int row = cellIndex / size;
+            int column = cellIndex % size;
+            int box = getBoxIndex(row, column);
+            int count = 0;
+            for (int other = 0; other < cellCount; other++) {
+                int otherRow = other / size;
+                int otherColumn = other % size;
+                boolean sameBox = getBoxIndex(otherRow, otherColumn) == box;
+                if (other != cellIndex && (otherRow == row || otherColumn == column || sameBox)) {
+                    peerIndices[cellIndex][count++] = other;
+                }
+            }
+        }
+
+        boxRowMasks = new int[boxSize];
+        boxColumnMasks = new int[boxSize];
+        for (int position = 0; position < size; position++) {
+            boxRowMasks[position / boxSize] |= 1 << position;
+            boxColumnMasks[position % boxSize] |= 1 << position;
+        }
+
+        if (size <= 9) {
+            maskValues = new int[allCandidates + 1][];
+            for (int mask = 0; mask <= allCandidates; mask++) {
+                maskValues[mask] = toValues(mask);
+            }
+        } else {
+            maskValues = null;
+        }
+
+        Arrays.fill(symbolValues, (byte) -1);
+        for (int value = 1; value <= size; value++) {
+            char symbol = getSymbol(value);
+            symbolValues[symbol] = (byte) value;
+            symbolValues[Character.toLowerCase(symbol)] = (byte) value;
+        }
+    }
+
+    /**
+     * Gets the geometry of a board with boxes of the given size.
+     *
+     * @param boxSize The number of rows and columns of a box (2-5).
+     * @return The shared geometry.
+     * @throws IllegalArgumentException If the box size is out of range.
+     */
+    public static synchronized Geometry of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and " + MAX_BOX_SIZE);
+        }
+        if (GEOMETRIES[boxSize] == null) {
+            GEOMETRIES[boxSize] = new Geometry(boxSize);
+        }
+        return GEOMETRIES[boxSize];
+    }
+
+    /**
+     * Gets the geometry of a board with the given number of rows.
+     *
+     * @param size The number of rows, columns and values of the board: 4, 9, 16 or 25.
+     * @return The shared geometry.
+     * @throws IllegalArgumentException If the board size is not supported.
+     */
+    public static Geometry ofSize(int size) {
+        int boxSize = (int) Math.round(Math.sqrt(size));
+        if (boxSize * boxSize != size || boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Board size must be 4, 9, 16 or 25");
+        }
+        return of(boxSize);
+    }
+
+    /**
+     * Gets the character standing for a value in puzzle files: 1-9, then A for 10, B for 11 and so on.
+     *
+     * @param value The value (1-25).
+     * @return The symbol of the value.
+     */
+    public static char getSymbol(int value) {
+        return value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    /**
+     * Gets the value a character of a puzzle file stands for. Letters are case-insensitive.
+     *
+     * @param symbol The character, as a byte.
+     * @return The value, or -1 if the character is not the symbol of a value of this board, i.e. an empty cell.
+     */
+    public int getSymbolValue(byte symbol) {
+        return symbolValues[symbol & 0xFF];
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    /**
+     * Gets the number of rows of the board, which is also its number of columns, boxes and values.
+     *
+     * @return The board size (4, 9, 16 or 25).
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * Gets the candidate mask with every value of the board set.
+     *
+     * @return The mask, bit 0 standing for value 1.
+     */
+    public int getAllCandidates() {
+        return allCandidates;
+    }
+
+    /**
+     * Returns the cell index given the row and column indices.
+     *
+     * @param row    Row index (0 to size-1)
+     * @param column Column index (0 to size-1)
+     * @return Cell index
+     */
+    public int getIndex(int row, int column) {
+        return row * size + column;
+    }
+
+    /**
+     * Returns the row index given the cell index.
+     *
+     * @param cellIndex Cell index
+     * @return Row index
+     */
+    public int getRowIndex(int cellIndex) {
+        return cellIndex / size;
+    }
+
+    /**
+     * Returns the column index given the cell index.
+     *
+     * @param cellIndex Cell index
+     * @return Column index
+     */
+    public int getColumnIndex(int cellIndex) {
+        return cellIndex % size;
+    }
+
+    /**
+     * Returns the index of the box (block) given the row and column indices.
+     *
+     * @param row    Row index
+     * @param column Column index
+     * @return Box index, boxes being numbered in row-major order
+     */
+    public int getBoxIndex(int row, int column) {
+        return (row / boxSize) * boxSize + (column / boxSize);
+    }
+
+    /**
+     * Returns the cell indices of a unit. The returned array is shared and must not be modified.
+     *
+     * @param unit Unit index: rows first, then columns, then boxes
+     * @return Array of cell indices in the unit, boxes in row-major order
+     */
+    public int[] getUnitIndices(int unit) {
+        return unitIndices[unit];
+    }
+
+    /**
+     * Returns the peers of a cell, i.e. the other cells sharing its row, column or box.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index
+     * @return Array of the peer cell indices
+     */
+    public int[] getPeerIndices(int cellIndex) {
+        return peerIndices[cellIndex];
+    }
+
+    /**
+     * Returns the three units (row, column and box, in that order) containing a cell.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index
+     * @return Array of the unit indices
+     */
+    public int[] getCellUnits(int cellIndex) {
+        return cellUnits[cellIndex];
+    }
+
+    /**
+     * Returns the position of a cell within each of the units returned by {@link #getCellUnits(int)}.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index
+     * @return Array of the positions of the cell within its row, column and box
+     */
+    public int[] getCellUnitPositions(int cellIndex) {
+        return cellUnitPositions[cellIndex];
+    }
+
+    /**
+     * Returns the positions of a local row of a box, as a mask over the positions of the box.
+     *
+     * @param localRow The row within the box (0 to boxSize-1).
+     * @return The position mask.
+     */
+    public int getBoxRowMask(int localRow) {
+        return boxRowMasks[localRow];
+    }
+
+    /**
+     * Returns the positions of a local column of a box, as a mask over the positions of the box.
+     *
+     * @param localColumn The column within the box (0 to boxSize-1).
+     * @return The position mask.
+     */
+    public int getBoxColumnMask(int localColumn) {
+        return boxColumnMasks[localColumn];
+    }
+
+    /**
+     * Returns the values whose bits are set in a candidate mask, in ascending order.
+     * Up to 9 values, the returned array is shared and must not be modified; larger boards get a new array.
+     *
+     * @param mask Candidate mask (bit 0 is value 1)
+     * @return Array of the values in the mask
+     */
+    public int[] getMaskValues(int mask) {
+        return maskValues != null ? maskValues[mask] : toValues(mask);
+    }
+
+    /**
+     * Lists the values whose bits are set in a candidate mask.
+     *
+     * @param mask Candidate mask (bit 0 is value 1)
+     * @return A new array of the values in the mask
+     */
+    private static int[] toValues(int mask) {
+        int[] values = new int[Integer.bitCount(mask)];
+        int index = 0;
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            values[index++] = Integer.numberOfTrailingZeros(remaining) + 1;
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size;
+    }
+}
@@ -6,37 +6,194 @@ import Iterators.GridIterator;
 import Iterators.GridRowIterator;
 
 import java.util.Arrays;
-import java.util.BitSet;
 import java.util.Iterator;
 import java.util.function.Consumer;
 
-import static Utils.Utilities.*;
+import static Utils.Utilities.hasNoDuplicate;
 
 /**
  * Represents a Sudoku grid and provides methods for manipulating and querying the grid.
- * Each cell in the grid can hold a value from 1 to 9 or be empty (represented by -1).
- * The grid also maintains possible candidate values for each cell.
+ * The shape of the grid is given by its {@link Geometry}: the standard 9x9 board by default,
+ * or a 4x4, 16x16 or 25x25 board. Each cell can hold a value from 1 to the board size or be empty
+ * (represented by -1). The grid also maintains possible candidate values for each cell as a bit mask,
+ * where bit 0 stands for value 1 and bit 8 for value 9.
+ * For each unit (row, column or box) and value, it also keeps a mask of the positions
+ * within the unit where the value can still go, updated incrementally as candidates are removed.
+ * Every cell and unit whose candidates change is recorded in a worklist of changes.
+ * <p>
+ * All modifications are also pushed onto an undo trail, so a search can backtrack to an
+ * earlier state with {@link #undo(int)} instead of copying the grid.
  */
 public class Grid implements Iterable<Integer> {
 
-    private final int[] cells = new int[81]; // Grid cells, -1 represents an empty cell
-    private final BitSet[] possibleValues = new BitSet[81]; // Possible values for each cell
+    private final Geometry geometry;
+    private final int size; // Number of values, also the number of cells of a unit
+    private final int cellCount;
+    private final int allCandidates;
+    private final int[][] peerIndices; // Tables of the geometry, kept here for the hot paths
+    private final int[][] cellUnits;
+    private final int[][] cellUnitPositions;
+
+    private final int[] cells; // Grid cells, -1 represents an empty cell
+    private final int[] possibleValues; // Candidate mask for each cell
+    private final int[] unitPositions; // Position mask for each unit and value
+    private final int[] unitValues; // Mask of the values placed in each unit
+    private final Worklist changes; // Cells and units changed since last collected
+
+    // Trail entries are (cellIndex << CODE_BITS) | code, where code 0 is a placement, 1 to 25 a removed candidate
+    // and CONTRADICTION_ENTRY the contradiction flag being raised. Each candidate is removed at most once
+    // and each cell is set at most once, so the trail can never hold more than cellCount * (size + 1) + 1 entries.
+    private static final int CODE_BITS = 5;
+    private static final int CODE_MASK = (1 << CODE_BITS) - 1;
+    private static final int CONTRADICTION_ENTRY = CODE_MASK;
+    private final int[] trail;
+    private int trailSize;
+    private int filledCells;
+    private boolean contradiction;
 
     /**
-     * Initializes an empty Sudoku grid with all cells empty and all possible values (1-9) for each cell.
+     * Initializes an empty 9x9 Sudoku grid with all cells empty and all possible values (1-9) for each cell.
      */
     public Grid() {
-        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
-            cells[cellIndex] = -1; // Initialize cells as empty
-            possibleValues[cellIndex] = new BitSet(9);
-            possibleValues[cellIndex].set(0, 9); // All values (1-9) are possible initially
+        this(Geometry.STANDARD);
+    }
+
+    /**
+     * Initializes an empty Sudoku grid of the given shape, with all cells empty and all values possible.
+     *
+     * @param geometry The shape of the board.
+     */
+    public Grid(Geometry geometry) {
+        this.geometry = geometry;
+        this.size = geometry.getSize();
+        this.cellCount = geometry.getCellCount();
+        this.allCandidates = geometry.getAllCandidates();
+        this.peerIndices = new int[cellCount][];
+        this.cellUnits = new int[cellCount][];
+        this.cellUnitPositions = new int[cellCount][];
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            peerIndices[cellIndex] = geometry.getPeerIndices(cellIndex);
+            cellUnits[cellIndex] = geometry.getCellUnits(cellIndex);
+            cellUnitPositions[cellIndex] = geometry.getCellUnitPositions(cellIndex);
         }
+        this.cells = new int[cellCount];
+        this.possibleValues = new int[cellCount];
+        this.unitPositions = new int[geometry.getUnitCount() * size];
+        this.unitValues = new int[geometry.getUnitCount()];
+        this.changes = new Worklist(geometry);
+        this.trail = new int[cellCount * (size + 1) + 1];
+        reset();
+    }
+
+    /**
+     * Gets the shape of the grid.
+     *
+     * @return The geometry of the board.
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Resets the grid to its initial state: all cells empty and all values possible.
+     * This allows a single grid to be reused for many puzzles without reallocating it.
+     */
+    public void reset() {
+        Arrays.fill(cells, -1);
+        Arrays.fill(possibleValues, allCandidates);
+        Arrays.fill(unitPositions, allCandidates);
+        Arrays.fill(unitValues, 0);
+        changes.markAll();
+        trailSize = 0;
+        filledCells = 0;
+        contradiction = false;
+    }
+
+    /**
+     * Loads the values of all cells at once, e.g. a known solution, deriving the candidates and position masks
+     * in a single pass instead of placing the values one by one. The grid ends in the same state as after
+     * a reset followed by a setValue for each filled cell, except that the undo trail starts from the loaded state.
+     *
+     * @param values An array of one value per cell, -1 for empty cells.
+     */
+    public void load(int[] values) {
+        Arrays.fill(unitPositions, 0);
+        Arrays.fill(unitValues, 0);
+        filledCells = 0;
+        contradiction = false;
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int value = values[cellIndex];
+            cells[cellIndex] = value;
+            if (value == -1) {
+                continue;
+            }
+            filledCells++;
+            int bit = 1 << (value - 1);
+            for (int unit : cellUnits[cellIndex]) {
+                if ((unitValues[unit] & bit) != 0) {
+                    contradiction = true; // The value is placed twice in this unit
+                }
+                unitValues[unit] |= bit;
+            }
+        }
+
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            int[] units = cellUnits[cellIndex];
+            int candidates = 0;
+            if (cells[cellIndex] == -1) {
+                candidates = allCandidates & ~(unitValues[units[0]] | unitValues[units[1]] | unitValues[units[2]]);
+                if (candidates == 0) {
+                    contradiction = true; // An empty cell has no candidate left
+                }
+            }
+            possibleValues[cellIndex] = candidates;
+            int[] positions = cellUnitPositions[cellIndex];
+            for (int remaining = candidates; remaining != 0; remaining &= remaining - 1) {
+                int bit = Integer.numberOfTrailingZeros(remaining);
+                for (int i = 0; i < 3; i++) {
+                    unitPositions[units[i] * size + bit] |= 1 << positions[i];
+                }
+            }
+        }
+
+        for (int unit = 0; unit < unitValues.length; unit++) {
+            for (int bit = 0; bit < size; bit++) {
+                if (unitPositions[unit * size + bit] == 0 && (unitValues[unit] & (1 << bit)) == 0) {
+                    contradiction = true; // The value has no place left in this unit
+                }
+            }
+        }
+        changes.markAll();
+        trailSize = 0;
+    }
+
+    /**
+     * Copies the whole state of another grid of the same shape into this one, including its undo trail,
+     * so the copy can be undone to any mark taken on the original. The worklist of changes is cleared.
+     * Only the used part of the trail is copied, which makes this much cheaper than replaying the moves.
+     *
+     * @param other The grid to copy.
+     * @throws IllegalArgumentException If the grids do not have the same geometry.
+     */
+    public void copyFrom(Grid other) {
+        if (other.geometry != geometry) {
+            throw new IllegalArgumentException("Cannot copy a " + other.geometry + " grid into a " + geometry + " grid");
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cellCount);
+        System.arraycopy(other.possibleValues, 0, possibleValues, 0, cellCount);
+        System.arraycopy(other.unitPositions, 0, unitPositions, 0, unitPositions.length);
+        System.arraycopy(other.unitValues, 0, unitValues, 0, unitValues.length);
+        System.arraycopy(other.trail, 0, trail, 0, other.trailSize);
+        trailSize = other.trailSize;
+        filledCells = other.filledCells;
+        contradiction = other.contradiction;
+        changes.clear();
     }
 
     /**
      * Gets the value of the cell at the specified index.
      *
-     * @param cellIndex The cell index (0-80).
+     * @param cellIndex The cell index (0-80 on a 9x9 board).
      * @return The value of the cell, or -1 if the cell is empty.
      */
     public int getValue(int cellIndex) {
@@ -51,7 +208,17 @@ public class Grid implements Iterable<Integer> {
      * @return The value of the cell, or -1 if the cell is empty.
      */
     public int getValue(int row, int column) {
-        return cells[getIndex(row, column)];
+        return cells[geometry.getIndex(row, column)];
+    }
+
+    /**
+     * Copies the values of all cells into an array, -1 standing for empty cells.
+     *
+     * @param destination The array receiving one value per cell.
+     * @param offset      The position in the array of the first cell.
+     */
+    public void copyValues(int[] destination, int offset) {
+        System.arraycopy(cells, 0, destination, offset, cellCount);
     }
 
     /**
@@ -61,7 +228,7 @@ public class Grid implements Iterable<Integer> {
      * @param value     The candidate value to remove (1-9).
      */
     public void removePossibleValue(int cellIndex, int value) {
-        possibleValues[cellIndex].clear(value - 1);
+        clearCandidates(cellIndex, 1 << (value - 1));
     }
 
     /**
@@ -72,7 +239,7 @@ public class Grid implements Iterable<Integer> {
      * @param value  The candidate value to remove (1-9).
      */
     public void removePossibleValue(int row, int column, int value) {
-        removePossibleValue(getIndex(row, column), value);
+        removePossibleValue(geometry.getIndex(row, column), value);
     }
 
     /**
@@ -93,7 +260,7 @@ public class Grid implements Iterable<Integer> {
      * @return True if the value is a possible candidate; false otherwise.
      */
     public boolean isPossibleValue(int cellIndex, int value) {
-        return possibleValues[cellIndex].get(value - 1);
+        return (possibleValues[cellIndex] & (1 << (value - 1))) != 0;
     }
 
     /**
@@ -105,7 +272,7 @@ public class Grid implements Iterable<Integer> {
      * @return True if the value is a possible candidate; false otherwise.
      */
     public boolean isPossibleValue(int row, int column, int value) {
-        return isPossibleValue(getIndex(row, column), value);
+        return isPossibleValue(geometry.getIndex(row, column), value);
     }
 
     /**
@@ -117,27 +284,136 @@ public class Grid implements Iterable<Integer> {
      */
     public void setValue(int cellIndex, int value) {
         cells[cellIndex] = value;
-        possibleValues[cellIndex].clear(); // Clear possible values for this cell
+        filledCells++;
+        trail[trailSize++] = cellIndex << CODE_BITS;
+
+        int bit = 1 << (value - 1);
+        for (int unit : cellUnits[cellIndex]) {
+            if ((unitValues[unit] & bit) != 0) {
+                raiseContradiction(); // The value is already placed in this unit
+            }
+            unitValues[unit] |= bit;
+        }
 
-        int cellRow = getRowIndex(cellIndex);
-        int cellColumn = getColumnIndex(cellIndex);
-        int cellBox = getBoxIndex(cellIndex);
+        clearCandidates(cellIndex, allCandidates); // Clear possible values for this cell
 
         // Remove the value from possible candidates in the same row, column, and box
-        for (int i = 0; i < 81; i++) {
-            if (i == cellIndex) {
-                continue;
+        for (int peer : peerIndices[cellIndex]) {
+            clearCandidates(peer, bit);
+        }
+    }
+
+    /**
+     * Clears candidate bits from a cell and removes the cell from the position masks
+     * of its three units for every value actually cleared.
+     *
+     * @param cellIndex The cell index (0-80).
+     * @param mask      The candidate bits to clear.
+     */
+    private void clearCandidates(int cellIndex, int mask) {
+        int removed = possibleValues[cellIndex] & mask;
+        if (removed == 0) {
+            return;
+        }
+        possibleValues[cellIndex] ^= removed;
+
+        int[] units = cellUnits[cellIndex];
+        changes.markCell(cellIndex);
+        changes.markUnit(units[0]);
+        changes.markUnit(units[1]);
+        changes.markUnit(units[2]);
+        int[] positions = cellUnitPositions[cellIndex];
+        if (possibleValues[cellIndex] == 0 && cells[cellIndex] == -1) {
+            raiseContradiction(); // An empty cell has no candidate left
+        }
+
+        while (removed != 0) {
+            int bit = Integer.numberOfTrailingZeros(removed);
+            removed &= removed - 1;
+            trail[trailSize++] = (cellIndex << CODE_BITS) | (bit + 1);
+            for (int i = 0; i < 3; i++) {
+                int index = units[i] * size + bit;
+                unitPositions[index] &= ~(1 << positions[i]);
+                if (unitPositions[index] == 0 && (unitValues[units[i]] & (1 << bit)) == 0) {
+                    raiseContradiction(); // The value has no place left in this unit
+                }
             }
-            int row = getRowIndex(i);
-            int column = getColumnIndex(i);
-            int box = getBoxIndex(i);
+        }
+    }
+
+    /**
+     * Marks the grid as contradictory, recording the change on the trail so it can be undone.
+     */
+    private void raiseContradiction() {
+        if (!contradiction) {
+            contradiction = true;
+            trail[trailSize++] = CONTRADICTION_ENTRY;
+        }
+    }
 
-            if (row == cellRow || column == cellColumn || box == cellBox) {
-                possibleValues[i].clear(value - 1);
+    /**
+     * Checks if the grid has reached a contradiction: a value placed twice in a unit, an empty cell
+     * without candidates, or a value that can no longer be placed in some unit.
+     * A contradictory grid can never be completed into a valid solution.
+     *
+     * @return True if the grid is contradictory; false otherwise.
+     */
+    public boolean hasContradiction() {
+        return contradiction;
+    }
+
+    /**
+     * Gets the current position on the undo trail, to be passed to {@link #undo(int)} later.
+     *
+     * @return The current trail mark.
+     */
+    public int getTrailMark() {
+        return trailSize;
+    }
+
+    /**
+     * Reverts every modification made since the given trail mark was taken.
+     * Undone modifications are not recorded as changes: callers are expected to return to a state
+     * the deduction rules had already fully processed and to discard any pending work.
+     *
+     * @param mark A trail mark obtained from {@link #getTrailMark()}.
+     */
+    public void undo(int mark) {
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            int cellIndex = entry >>> CODE_BITS;
+            int code = entry & CODE_MASK;
+
+            if (code == CONTRADICTION_ENTRY) {
+                contradiction = false;
+            } else if (code == 0) {
+                int bit = 1 << (cells[cellIndex] - 1);
+                for (int unit : cellUnits[cellIndex]) {
+                    unitValues[unit] &= ~bit;
+                }
+                cells[cellIndex] = -1;
+                filledCells--;
+            } else {
+                int bit = code - 1;
+                possibleValues[cellIndex] |= 1 << bit;
+                int[] units = cellUnits[cellIndex];
+                int[] positions = cellUnitPositions[cellIndex];
+                for (int i = 0; i < 3; i++) {
+                    unitPositions[units[i] * size + bit] |= 1 << positions[i];
+                }
             }
         }
     }
 
+    /**
+     * Gets the number of cells that hold a value.
+     *
+     * @return The number of filled cells (0-81 on a 9x9 board).
+     */
+    public int getFilledCellCount() {
+        return filledCells;
+    }
+
     /**
      * Returns an iterator over the values in the specified row.
      *
@@ -170,18 +446,55 @@ public class Grid implements Iterable<Integer> {
 
     /**
      * Gets all possible candidate values for the cell at the specified index.
+     * On boards of up to 9 values, the returned array is shared between grids and must not be modified.
      *
      * @param cellIndex The cell index (0-80).
-     * @return An array of possible candidate values.
+     * @return An array of possible candidate values, in ascending order.
      */
     public int[] getPossibleValues(int cellIndex) {
-        BitSet bitSet = possibleValues[cellIndex];
-        int[] candidates = new int[bitSet.cardinality()];
-        int index = 0;
-        for (int bit = bitSet.nextSetBit(0); bit >= 0; bit = bitSet.nextSetBit(bit + 1)) {
-            candidates[index++] = bit + 1;
-        }
-        return candidates;
+        return geometry.getMaskValues(possibleValues[cellIndex]);
+    }
+
+    /**
+     * Gets the candidate mask of the cell at the specified index.
+     *
+     * @param cellIndex The cell index (0-80).
+     * @return The candidate mask, where bit 0 stands for value 1 and bit 8 for value 9.
+     */
+    public int getCandidateMask(int cellIndex) {
+        return possibleValues[cellIndex];
+    }
+
+    /**
+     * Gets the positions within a unit where a value is still a possible candidate.
+     * Bit i of the result corresponds to the cell {@code getUnitIndices(unit)[i]}.
+     *
+     * @param unit  The unit index (rows 0-8, columns 9-17, boxes 18-26 on a 9x9 board).
+     * @param value The candidate value (1-9).
+     * @return The position mask of the value within the unit.
+     */
+    public int getUnitPositions(int unit, int value) {
+        return unitPositions[unit * size + value - 1];
+    }
+
+    /**
+     * Gets the cells and units whose candidates changed since the worklist was last cleared.
+     * The worklist is owned by the grid; consumers copy what they need and then clear it.
+     *
+     * @return The worklist of changes.
+     */
+    public Worklist getChanges() {
+        return changes;
+    }
+
+    /**
+     * Gets the number of possible candidate values for the cell at the specified index.
+     *
+     * @param cellIndex The cell index (0-80).
+     * @return The number of candidates.
+     */
+    public int getCandidateCount(int cellIndex) {
+        return Integer.bitCount(possibleValues[cellIndex]);
     }
 
     /**
@@ -223,7 +536,7 @@ public class Grid implements Iterable<Integer> {
      * @return True if the grid is valid; false otherwise.
      */
     public boolean isValid() {
-        for (int index = 0; index < 9; index++) {
+        for (int index = 0; index < size; index++) {
             if (!isRowValid(index) || !isColumnValid(index) || !isBoxValid(index)) {
                 return false;
             }
@@ -237,36 +550,36 @@ public class Grid implements Iterable<Integer> {
      * @return True if the puzzle is solved; false otherwise.
      */
     public boolean isSolved() {
-        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
-            if (cells[cellIndex] == -1) {
-                return false;
-            }
+        if (filledCells < cellCount) {
+            return false;
         }
         return isValid();
     }
 
     /**
      * Returns a string representation of the grid, displaying the current values.
+     * Values above 9 are displayed as letters, A standing for 10.
      *
      * @return A string representation of the grid.
      */
     @Override
     public String toString() {
+        int boxSize = geometry.getBoxSize();
         StringBuilder sb = new StringBuilder();
-        String horizontalSeparator = "+-----------+-----------+-----------+\n";
+        String horizontalSeparator = getHorizontalSeparator("+", 3 * boxSize + 2);
         sb.append(horizontalSeparator);
-        for (int row = 0; row < 9; row++) {
+        for (int row = 0; row < size; row++) {
             sb.append("| ");
-            for (int column = 0; column < 9; column++) {
-                int cellIndex = getIndex(row, column);
+            for (int column = 0; column < size; column++) {
+                int cellIndex = geometry.getIndex(row, column);
                 int value = cells[cellIndex];
-                sb.append(value == -1 ? "   " : " " + value + " ");
-                if ((column + 1) % 3 == 0) {
+                sb.append(value == -1 ? "   " : " " + Geometry.getSymbol(value) + " ");
+                if ((column + 1) % boxSize == 0) {
                     sb.append("| ");
                 }
             }
             sb.append("\n");
-            if ((row + 1) % 3 == 0) {
+            if ((row + 1) % boxSize == 0) {
                 sb.append(horizontalSeparator);
             }
         }
@@ -275,27 +588,36 @@ public class Grid implements Iterable<Integer> {
 
     /**
      * Returns a string representation of the grid with row and column labels.
+     * Rows are labeled with letters from A, columns with the symbols of the values.
      *
      * @return A string representation of the grid.
      */
     public String toStringWithLabels() {
+        int boxSize = geometry.getBoxSize();
         StringBuilder sb = new StringBuilder();
-        String horizontalSeparator = "  +-------+-------+-------+\n";
-        sb.append("    1 2 3   4 5 6   7 8 9\n");
+        String horizontalSeparator = getHorizontalSeparator("  +", 2 * boxSize + 1);
+        sb.append("    ");
+        for (int column = 0; column < size; column++) {
+            sb.append(Geometry.getSymbol(column + 1));
+            if (column + 1 < size) {
+                sb.append((column + 1) % boxSize == 0 ? "   " : " ");
+            }
+        }
+        sb.append("\n");
         sb.append(horizontalSeparator);
-        for (int row = 0; row < 9; row++) {
+        for (int row = 0; row < size; row++) {
             sb.append((char) ('A' + row)).append(" | ");
-            for (int column = 0; column < 9; column++) {
-                int cellIndex = getIndex(row, column);
+            for (int column = 0; column < size; column++) {
+                int cellIndex = geometry.getIndex(row, column);
                 int value = cells[cellIndex];
-                sb.append(value == -1 ? " " : value);
+                sb.append(value == -1 ? ' ' : Geometry.getSymbol(value));
                 sb.append(" ");
-                if ((column + 1) % 3 == 0) {
+                if ((column + 1) % boxSize == 0) {
                     sb.append("| ");
                 }
             }
             sb.append("\n");
-            if ((row + 1) % 3 == 0) {
+            if ((row + 1) % boxSize == 0) {
                 sb.append(horizontalSeparator);
             }
         }
@@ -308,48 +630,65 @@ public class Grid implements Iterable<Integer> {
      * @return A string representation of the grid with possible values.
      */
     public String getPossibleValuesGrid() {
+        int boxSize = geometry.getBoxSize();
+        int cellWidth = size + boxSize + 2; // Candidates, spaces between their groups, brackets and a space
         StringBuilder sb = new StringBuilder("Possible values:\n");
-        String horizontalSeparator = "+-------------------------------------------+-------------------------------------------+-------------------------------------------+\n";
+        String horizontalSeparator = getHorizontalSeparator("+", boxSize * cellWidth + 1);
+        String leftPadding = " ".repeat((cellWidth - 1) / 2);
+        String rightPadding = " ".repeat(cellWidth - 1 - leftPadding.length());
         sb.append(horizontalSeparator);
 
-        for (int row = 0; row < 9; row++) {
+        for (int row = 0; row < size; row++) {
             sb.append("| ");
-            for (int column = 0; column < 9; column++) {
-                int cellIndex = getIndex(row, column);
+            for (int column = 0; column < size; column++) {
+                int cellIndex = geometry.getIndex(row, column);
                 int value = getValue(cellIndex);
 
                 if (value != -1) {
                     // Cell has a value, display it in green
-                    sb.append("\u001B[32m      ").append(value).append("       \u001B[0m");
+                    sb.append("\u001B[32m").append(leftPadding).append(Geometry.getSymbol(value))
+                            .append(rightPadding).append("\u001B[0m");
                 } else {
                     // Cell is empty, display possible candidates in blue
-                    BitSet cellPossibleValues = possibleValues[cellIndex];
+                    int cellPossibleValues = possibleValues[cellIndex];
                     sb.append("[");
-                    for (int k = 0; k < 9; k++) {
-                        if (cellPossibleValues.get(k)) {
-                            sb.append("\u001B[34m").append(k + 1).append("\u001B[0m");
+                    for (int k = 0; k < size; k++) {
+                        if ((cellPossibleValues & (1 << k)) != 0) {
+                            sb.append("\u001B[34m").append(Geometry.getSymbol(k + 1)).append("\u001B[0m");
                         } else {
                             sb.append(" ");
                         }
-                        if ((k + 1) % 3 == 0 && k != 8) {
+                        if ((k + 1) % boxSize == 0 && k != size - 1) {
                             sb.append(" ");
                         }
                     }
                     sb.append("] ");
                 }
 
-                if ((column + 1) % 3 == 0) {
+                if ((column + 1) % boxSize == 0) {
                     sb.append("| ");
                 }
             }
             sb.append("\n");
-            if ((row + 1) % 3 == 0) {
+            if ((row + 1) % boxSize == 0) {
                 sb.append(horizontalSeparator);
             }
         }
         return sb.toString();
     }
 
+    /**
+     * Builds the line separating two rows of boxes.
+     *
+     * @param start    The beginning of the line, up to its first corner.
+     * @param boxWidth The number of dashes across a box.
+     * @return The line, ending with a line break.
+     */
+    private String getHorizontalSeparator(String start, int boxWidth) {
+        String box = "-".repeat(boxWidth) + "+";
+        return start + box.repeat(geometry.getBoxSize()) + "\n";
+    }
+
     /**
      * Returns an iterator over the cell values in the grid.
      *
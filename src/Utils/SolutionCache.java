@@ -0,0 +1,159 @@
+package Utils;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of results keyed on the canonical form of the puzzles (see {@link Canonicalizer}),
+ * so that puzzles equivalent up to symmetry are only solved once.
+ * <p>
+ * The entries are spread over stripes by key hash; each stripe is a small LRU map guarded by its own lock,
+ * so worker threads rarely contend. When a stripe is full, its least recently used entry is evicted.
+ */
+public class SolutionCache {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a SolutionCache.
+     *
+     * @param maxSize The maximum number of cached results.
+     */
+    public SolutionCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The cache size must be at least 1");
+        }
+        int stripeSize = Math.max(1, (maxSize + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * Gets the result cached for a canonical puzzle, counting the lookup as a hit or a miss.
+     *
+     * @param key The canonical key of the puzzle.
+     * @return The cached result, or null if the puzzle is not cached.
+     */
+    public CachedSolution get(String key) {
+        Stripe stripe = getStripe(key);
+        CachedSolution solution;
+        synchronized (stripe) {
+            solution = stripe.get(key);
+        }
+        if (solution != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return solution;
+    }
+
+    /**
+     * Caches the result of a canonical puzzle, evicting the least recently used result of its stripe if full.
+     *
+     * @param key      The canonical key of the puzzle.
+     * @param solution The result, in the canonical frame.
+     */
+    public void put(String key, CachedSolution solution) {
+        Stripe stripe = getStripe(key);
+        synchronized (stripe) {
+            stripe.put(key, solution);
+        }
+    }
+
+    /**
+     * Gets the stripe holding a key.
+     *
+     * @param key The canonical key.
+     * @return The stripe of the key.
+     */
+    private Stripe getStripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ hash >>> 16) & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets the number of lookups that found a cached result.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found no cached result.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups that found a cached result.
+     *
+     * @return The hit rate between 0 and 1, or 0 if there was no lookup.
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Result of a puzzle in the canonical frame.
+     *
+     * @param values     The 81 values of the final grid, 0 for empty cells.
+     * @param difficulty The difficulty of the puzzle.
+     * @param solved     Whether the puzzle was solved.
+     */
+    public record CachedSolution(byte[] values, Difficulty difficulty, boolean solved) {
+    }
+
+    /**
+     * LRU map of one stripe, kept in access order so its first entry is the least recently used.
+     */
+    private static class Stripe {
+
+        private final LinkedHashMap<String, CachedSolution> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxSize;
+
+        /**
+         * Constructs a Stripe.
+         *
+         * @param maxSize The maximum number of entries of the stripe.
+         */
+        Stripe(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Gets the result cached for a key, marking it as the most recently used.
+         *
+         * @param key The canonical key of the puzzle.
+         * @return The cached result, or null if the key is not cached.
+         */
+        CachedSolution get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * Caches a result, evicting the least recently used entry if the stripe is full.
+         *
+         * @param key      The canonical key of the puzzle.
+         * @param solution The result, in the canonical frame.
+         */
+        void put(String key, CachedSolution solution) {
+            entries.put(key, solution);
+            if (entries.size() > maxSize) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+}
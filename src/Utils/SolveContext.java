@@ -0,0 +1,190 @@
+package Utils;
+
+import Events.StateChangeEvent;
+import Rules.RulePropagator;
+import States.SolverState;
+import States.SolverStateFactory;
+import States.SolverStateFactory.StateType;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds all the mutable state of a solve: the grid, the pending work of the deduction rules,
+ * the current solver state and the scratch buffers of the search.
+ * <p>
+ * Rules and solver states are immutable and shared, so a context is the only thing a thread needs
+ * of its own. A context is reused from one puzzle to the next through {@link #load(int[])} and must
+ * not be used by several threads at once.
+ */
+public class SolveContext {
+
+    private final Grid grid;
+    private final RulePropagator propagator;
+    private final boolean userHelp;
+    private final boolean searchEnabled;
+    private final ForkJoinPool searchPool;
+
+    // Search stacks, one entry per depth; a search never goes deeper than the number of cells
+    private final int[] searchCells;
+    private final int[] searchCandidates;
+    private final int[] searchMarks;
+
+    private SolverState solverState;
+    private StateType solverStateType;
+
+    /**
+     * Constructs a SolveContext with an empty 9x9 grid, in the deduction state.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     */
+    public SolveContext(boolean userHelp, boolean searchEnabled) {
+        this(userHelp, searchEnabled, Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs a SolveContext with an empty grid of the given shape, in the deduction state.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     * @param geometry      The shape of the grid.
+     */
+    public SolveContext(boolean userHelp, boolean searchEnabled, Geometry geometry) {
+        this(userHelp, searchEnabled, geometry, null);
+    }
+
+    /**
+     * Constructs a SolveContext with an empty grid of the given shape, in the deduction state, whose search
+     * splits the tree of each puzzle across the threads of a fork-join pool.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     * @param geometry      The shape of the grid.
+     * @param searchPool    The pool running the search, or null to search on the calling thread.
+     */
+    public SolveContext(boolean userHelp, boolean searchEnabled, Geometry geometry, ForkJoinPool searchPool) {
+        this.searchPool = searchPool;
+        this.grid = new Grid(geometry);
+        this.propagator = new RulePropagator(geometry);
+        this.userHelp = userHelp;
+        this.searchEnabled = searchEnabled;
+        this.searchCells = new int[geometry.getCellCount()];
+        this.searchCandidates = new int[geometry.getCellCount()];
+        this.searchMarks = new int[geometry.getCellCount()];
+        setSolverState(StateType.DEDUCTION);
+    }
+
+    /**
+     * Resets the context for a new puzzle and places its given values.
+     * Cells with a value of -1 are considered empty.
+     *
+     * @param values An array of one value per cell of the grid.
+     */
+    public void load(int[] values) {
+        grid.reset();
+        propagator.reset();
+        setSolverState(StateType.DEDUCTION);
+        int cellCount = grid.getGeometry().getCellCount();
+        for (int cellIndex = 0; cellIndex < cellCount; cellIndex++) {
+            if (values[cellIndex] != -1) {
+                grid.setValue(cellIndex, values[cellIndex]);
+            }
+        }
+    }
+
+    /**
+     * Changes the current solver state to the shared instance of the given type.
+     * A switch to another type is recorded as a Flight Recorder event.
+     *
+     * @param stateType The type of the new solver state to switch to.
+     */
+    public void changeSolverState(StateType stateType) {
+        if (stateType != solverStateType) {
+            StateChangeEvent event = new StateChangeEvent();
+            if (event.shouldCommit()) {
+                event.from = solverStateType.name();
+                event.to = stateType.name();
+                event.commit();
+            }
+        }
+        setSolverState(stateType);
+    }
+
+    /**
+     * Sets the current solver state without recording a switch, e.g. when a new puzzle is loaded.
+     *
+     * @param stateType The type of the solver state.
+     */
+    private void setSolverState(StateType stateType) {
+        this.solverState = SolverStateFactory.getSolverState(stateType);
+        this.solverStateType = stateType;
+    }
+
+    public SolverState getSolverState() {
+        return solverState;
+    }
+
+    public StateType getSolverStateType() {
+        return solverStateType;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Gets the rule propagator, which keeps the pending work of each deduction rule for the grid.
+     *
+     * @return The rule propagator.
+     */
+    public RulePropagator getPropagator() {
+        return propagator;
+    }
+
+    public boolean isUserHelp() {
+        return userHelp;
+    }
+
+    public boolean isSearchEnabled() {
+        return searchEnabled;
+    }
+
+    /**
+     * Gets the pool the search of this context runs on.
+     *
+     * @return The fork-join pool, or null if the search runs on the calling thread.
+     */
+    public ForkJoinPool getSearchPool() {
+        return searchPool;
+    }
+
+    /**
+     * Gets the stack of cells chosen at each search depth.
+     *
+     * @return An array of one entry per cell.
+     */
+    public int[] getSearchCells() {
+        return searchCells;
+    }
+
+    /**
+     * Gets the stack of candidates still to try at each search depth.
+     *
+     * @return An array of one entry per cell.
+     */
+    public int[] getSearchCandidates() {
+        return searchCandidates;
+    }
+
+    /**
+     * Gets the stack of grid trail marks taken at each search depth.
+     *
+     * @return An array of one entry per cell.
+     */
+    public int[] getSearchMarks() {
+        return searchMarks;
+    }
+}
@@ -1,67 +1,210 @@
 package Utils;
 
 import IO.Logger;
-import States.SolverStateFactory;
-import States.SolverState;
+import Metrics.SolverMetrics;
+import States.ParallelSearchState;
+import States.SearchRun;
+import States.SearchState;
 import States.StateResult;
 import States.SolverStateFactory.StateType;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Handles the Sudoku solving process by managing the grid and solver states.
+ * <p>
+ * A handler only holds its configuration; the grid and the solver state live in a {@link SolveContext}
+ * owned by each calling thread and reused across puzzles. A single handler can therefore be shared by
+ * many threads calling {@link #solve(int[])} without locking. The grid of a returned SolverResult belongs
+ * to the calling thread's context and is overwritten by that thread's next puzzle.
  */
 public class SudokuHandler {
 
-    private SolverState solverState;
-    private Grid grid;
-    public boolean userHelp;
+    private final boolean userHelp;
+    private final boolean searchEnabled;
+    private final Geometry geometry;
+    private final ThreadLocal<SolveContext> contexts;
 
     /**
-     * Initializes the SudokuHandler with a new grid and sets the initial solver state using the factory.
+     * Initializes the SudokuHandler. Puzzles the deduction rules cannot finish are reported as impossible.
+     *
+     * @param userHelp Whether to ask the user for a value when the deduction rules are stuck.
      */
     public SudokuHandler(boolean userHelp) {
-        this.grid = new Grid();
-        changeSolverState(StateType.DEDUCTION);
+        this(userHelp, false);
+    }
+
+    /**
+     * Initializes the SudokuHandler for 9x9 puzzles.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     */
+    public SudokuHandler(boolean userHelp, boolean searchEnabled) {
+        this(userHelp, searchEnabled, Geometry.STANDARD);
+    }
+
+    /**
+     * Initializes the SudokuHandler for puzzles of the given shape.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     * @param geometry      The shape of the puzzles.
+     */
+    public SudokuHandler(boolean userHelp, boolean searchEnabled, Geometry geometry) {
+        this(userHelp, searchEnabled, geometry, null);
+    }
+
+    /**
+     * Initializes the SudokuHandler for puzzles of the given shape, splitting the search of each puzzle across
+     * the threads of a fork-join pool. This cuts the latency of puzzles needing a long search, e.g. on large
+     * boards, while {@link #solve(int[])} still returns a single result on the calling thread.
+     *
+     * @param userHelp      Whether to ask the user for a value when the deduction rules are stuck.
+     * @param searchEnabled Whether to fall back to a backtracking search when the deduction rules are stuck
+     *                      and user help is disabled.
+     * @param geometry      The shape of the puzzles.
+     * @param searchPool    The pool running the search, or null to search on the calling thread.
+     */
+    public SudokuHandler(boolean userHelp, boolean searchEnabled, Geometry geometry, ForkJoinPool searchPool) {
         this.userHelp = userHelp;
+        this.searchEnabled = searchEnabled;
+        this.geometry = geometry;
+        this.contexts =
+                ThreadLocal.withInitial(() -> new SolveContext(userHelp, searchEnabled, geometry, searchPool));
     }
 
     /**
-     * Changes the current solver state using the factory.
+     * Gets the shape of the puzzles the handler solves.
+     *
+     * @return The geometry of the grids.
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Checks if the user is asked for help when the deduction rules are stuck.
+     *
+     * @return True if user help is enabled; false otherwise.
+     */
+    public boolean isUserHelp() {
+        return userHelp;
+    }
+
+    /**
+     * Checks if the backtracking search fallback is enabled.
+     *
+     * @return True if the search is used when the deduction rules are stuck; false otherwise.
+     */
+    public boolean isSearchEnabled() {
+        return searchEnabled;
+    }
+
+    /**
+     * Gets the solve context of the calling thread, creating it on first use.
+     *
+     * @return The context of the calling thread.
+     */
+    public SolveContext getContext() {
+        return contexts.get();
+    }
+
+    /**
+     * Changes the solver state of the calling thread's context.
      *
      * @param stateType The type of the new solver state to switch to.
      */
     public void changeSolverState(StateType stateType) {
-        this.solverState = SolverStateFactory.createSolverState(stateType, this);
+        getContext().changeSolverState(stateType);
     }
 
     /**
-     * Initializes the grid with the given values.
+     * Initializes the calling thread's grid with the given values.
      * Cells with a value of -1 are considered empty.
+     * The grid is reset in place, so a result returned by a previous call to solve() is overwritten.
      *
-     * @param values An array of 81 integers representing the Sudoku grid.
+     * @param values An array of one integer per cell representing the Sudoku grid.
      */
     public void initGrid(int[] values) {
-        grid = new Grid();
-        for (int cellIndex = 0; cellIndex < 81; cellIndex++) {
-            if (values[cellIndex] != -1) {
-                grid.setValue(cellIndex, values[cellIndex]);
-            }
-        }
+        getContext().load(values);
     }
 
     /**
-     * Solves the Sudoku puzzle using the current solver state.
+     * Solves the puzzle loaded by {@link #initGrid(int[])} on the calling thread.
      *
      * @return A SolverResult containing the final grid and the determined difficulty level.
      */
     public SolverResult solve() {
+        return solve(getContext());
+    }
+
+    /**
+     * Loads and solves a puzzle using the calling thread's context.
+     *
+     * @param values An array of one integer per cell representing the Sudoku grid, -1 for empty cells.
+     * @return A SolverResult containing the final grid and the determined difficulty level.
+     */
+    public SolverResult solve(int[] values) {
+        SolveContext context = getContext();
+        context.load(values);
+        return solve(context);
+    }
+
+    /**
+     * Counts the solutions of a puzzle on the calling thread's context, stopping as soon as the limit is reached.
+     * The givens are propagated with the deduction rules, then the search branches on the cell with the fewest
+     * candidates, exploring the tree on the bit masks of the grid and backtracking through its undo trail,
+     * so nothing is allocated per node. The search runs on the pool if the handler has one, and whether
+     * the search is enabled for {@link #solve(int[])} does not matter. The calling thread's grid is overwritten.
+     *
+     * @param values An array of one integer per cell representing the puzzle, -1 for empty cells.
+     * @param limit  The maximum number of solutions to look for, e.g. 2 to check that the solution is unique.
+     * @return The number of solutions found, at most the limit: 0 if the puzzle has no solution.
+     * @throws IllegalArgumentException If the limit is below 1.
+     */
+    public int countSolutions(int[] values, int limit) {
+        SearchRun run = new SearchRun(limit);
+        SolveContext context = getContext();
+        context.load(values);
+        Grid grid = context.getGrid();
+        if (!grid.hasContradiction()) {
+            context.getPropagator().propagate(grid);
+        }
+        if (grid.hasContradiction()) {
+            return 0;
+        }
+
+        if (context.getSearchPool() != null) {
+            ParallelSearchState.search(context, run);
+        } else {
+            SearchState.search(context, run);
+        }
+        return (int) run.getSolutionCount();
+    }
+
+    /**
+     * Solves the puzzle of a context using its current solver state.
+     *
+     * @param context The solve context.
+     * @return A SolverResult containing the final grid and the determined difficulty level.
+     */
+    private static SolverResult solve(SolveContext context) {
+        Grid grid = context.getGrid();
         Difficulty difficulty = Difficulty.UNKNOWN;
         int iteration = 0;
+        boolean measured = SolverMetrics.isEnabled();
+        long startTime = measured ? System.nanoTime() : 0;
 
         // Limit iterations to prevent infinite loops in case of unsolvable puzzles.
         while (!grid.isSolved() && iteration < 1000) {
-            Logger.trace("Iteration: %d Difficulty: %s\n%s", iteration, difficulty, grid.getPossibleValuesGrid());
+            if (Logger.isTraceEnabled()) {
+                Logger.trace("Iteration: %d Difficulty: %s\n%s", iteration, difficulty, grid.getPossibleValuesGrid());
+            }
 
-            StateResult result = solverState.run(grid);
+            StateResult result = measured ? runMeasured(context) : context.getSolverState().run(context);
 
             // Update the highest difficulty encountered.
             if (result.difficulty().ordinal() > difficulty.ordinal()) {
@@ -71,6 +214,7 @@ public class SudokuHandler {
             if (!result.used()) {
                 break;
             }
+            iteration++;
         }
 
         // Determine if the puzzle is solved or impossible.
@@ -78,16 +222,35 @@ public class SudokuHandler {
             difficulty = Difficulty.IMPOSSIBLE;
         }
 
+        if (measured) {
+            SolverMetrics.recordSolve(difficulty, System.nanoTime() - startTime, iteration);
+            context.getPropagator().recordSolve(difficulty);
+        }
         return new SolverResult(grid, difficulty);
     }
 
     /**
-     * Returns the string representation of the current grid.
+     * Runs the current solver state of a context and records the run and any state transition in the metrics.
+     *
+     * @param context The solve context.
+     * @return The result of the state.
+     */
+    private static StateResult runMeasured(SolveContext context) {
+        StateType stateType = context.getSolverStateType();
+        long startTime = System.nanoTime();
+        StateResult result = context.getSolverState().run(context);
+        SolverMetrics.recordStateRun(stateType, System.nanoTime() - startTime, result.used(),
+                context.getSolverStateType());
+        return result;
+    }
+
+    /**
+     * Returns the string representation of the calling thread's current grid.
      *
      * @return The grid as a formatted string.
      */
     @Override
     public String toString() {
-        return grid.toString();
+        return getContext().getGrid().toString();
     }
 }
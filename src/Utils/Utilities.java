@@ -3,10 +3,19 @@ package Utils;
 import Iterators.GridIterator;
 
 /**
- * Utility class providing helper methods for Sudoku grid manipulation.
+ * Utility class providing helper methods for the standard 9x9 Sudoku grid.
+ * The lookup tables are those of {@link Geometry#STANDARD}; code handling other board sizes
+ * uses the {@link Geometry} of its grid instead.
  */
 public final class Utilities {
 
+    /**
+     * Bit mask with all nine candidate bits set (bit 0 is value 1, bit 8 is value 9).
+     */
+    public static final int ALL_CANDIDATES = 0x1FF;
+
+    private static final Geometry STANDARD = Geometry.STANDARD;
+
     // Private constructor to prevent instantiation
     private Utilities() {
     }
@@ -19,7 +28,7 @@ public final class Utilities {
      * @return Box index (0-8)
      */
     public static int getBoxIndex(int row, int column) {
-        return (row / 3) * 3 + (column / 3);
+        return STANDARD.getBoxIndex(row, column);
     }
 
     /**
@@ -66,68 +75,111 @@ public final class Utilities {
     }
 
     /**
-     * Returns an array of cell indices for the specified row.
+     * Returns the cell indices for the specified row.
+     * The returned array is shared and must not be modified.
      *
      * @param row Row index (0-8)
      * @return Array of cell indices in the row
      */
     public static int[] getRowIndices(int row) {
-        int[] indices = new int[9];
-        int startIndex = row * 9;
-        for (int i = 0; i < 9; i++) {
-            indices[i] = startIndex + i;
-        }
-        return indices;
+        return STANDARD.getUnitIndices(row);
     }
 
     /**
-     * Returns an array of cell indices for the specified column.
+     * Returns the cell indices for the specified column.
+     * The returned array is shared and must not be modified.
      *
      * @param column Column index (0-8)
      * @return Array of cell indices in the column
      */
     public static int[] getColumnIndices(int column) {
-        int[] indices = new int[9];
-        for (int i = 0; i < 9; i++) {
-            indices[i] = i * 9 + column;
-        }
-        return indices;
+        return STANDARD.getUnitIndices(9 + column);
     }
 
     /**
-     * Returns an array of cell indices for the specified box (block).
+     * Returns the cell indices for the specified box (block), in row-major order.
+     * The returned array is shared and must not be modified.
      *
      * @param boxIndex Box index (0-8)
      * @return Array of cell indices in the box
      */
     public static int[] getBoxIndices(int boxIndex) {
-        int[] indices = new int[9];
-        int startRow = (boxIndex / 3) * 3;
-        int startColumn = (boxIndex % 3) * 3;
-        int count = 0;
-        for (int row = startRow; row < startRow + 3; row++) {
-            for (int column = startColumn; column < startColumn + 3; column++) {
-                indices[count++] = getIndex(row, column);
-            }
-        }
-        return indices;
+        return STANDARD.getUnitIndices(18 + boxIndex);
+    }
+
+    /**
+     * Returns the cell indices for the specified unit.
+     * Units 0-8 are the rows, 9-17 the columns and 18-26 the boxes.
+     * The returned array is shared and must not be modified.
+     *
+     * @param unit Unit index (0-26)
+     * @return Array of cell indices in the unit
+     */
+    public static int[] getUnitIndices(int unit) {
+        return STANDARD.getUnitIndices(unit);
+    }
+
+    /**
+     * Returns the 20 peers of a cell, i.e. the other cells sharing its row, column or box.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index (0-80)
+     * @return Array of the peer cell indices
+     */
+    public static int[] getPeerIndices(int cellIndex) {
+        return STANDARD.getPeerIndices(cellIndex);
+    }
+
+    /**
+     * Returns the three units (row, column and box, in that order) containing a cell.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index (0-80)
+     * @return Array of the unit indices (0-26)
+     */
+    public static int[] getCellUnits(int cellIndex) {
+        return STANDARD.getCellUnits(cellIndex);
+    }
+
+    /**
+     * Returns the position (0-8) of a cell within each of the units returned by {@link #getCellUnits(int)}.
+     * The returned array is shared and must not be modified.
+     *
+     * @param cellIndex Cell index (0-80)
+     * @return Array of the positions of the cell within its row, column and box
+     */
+    public static int[] getCellUnitPositions(int cellIndex) {
+        return STANDARD.getCellUnitPositions(cellIndex);
+    }
+
+    /**
+     * Returns the values (1-9) whose bits are set in a candidate mask, in ascending order.
+     * The returned array is shared and must not be modified.
+     *
+     * @param mask Candidate mask (bit 0 is value 1)
+     * @return Array of the values in the mask
+     */
+    public static int[] getMaskValues(int mask) {
+        return STANDARD.getMaskValues(mask);
     }
 
     /**
      * Checks if the provided sequence of values contains no duplicates (excluding -1).
+     * Values of boards of any size are accepted.
      *
      * @param values Iterator over the values to check
      * @return True if all values are unique (excluding -1); false otherwise
      */
     public static boolean hasNoDuplicate(GridIterator values) {
-        boolean[] seen = new boolean[9]; // indices 0-8 correspond to numbers 1-9
+        int seen = 0; // Bit 0 corresponds to value 1
         while (values.hasNext()) {
             int value = values.next();
             if (value != -1) {
-                if (seen[value - 1]) {
+                int bit = 1 << (value - 1);
+                if ((seen & bit) != 0) {
                     return false; // Duplicate found
                 }
-                seen[value - 1] = true;
+                seen |= bit;
             }
         }
         return true;
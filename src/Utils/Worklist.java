@@ -0,0 +1,206 @@
+package Utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of dirty cells and dirty units, used as a deduplicating work queue by the deduction rules.
+ * Cells 0-127 are stored as two 64-bit words and the cells beyond, on 16x16 and 25x25 boards, in an
+ * array of words; units (rows, then columns, then boxes, at most 75) as two 64-bit words. The 81 cells
+ * and 27 units of a 9x9 board thus live in fields, and marking and polling never allocate.
+ * Entries are polled in ascending index order.
+ */
+public final class Worklist {
+
+    private final long allLowCells; // Bits of lowCells, highCells and each extra word standing for cells
+    private final long allHighCells;
+    private final long[] allExtraCells;
+    private final long allLowUnits; // Bits of lowUnits and highUnits standing for units
+    private final long allHighUnits;
+
+    private long lowCells; // Cells 0-63
+    private long highCells; // Cells 64-127, shifted down by 64
+    private final long[] extraCells; // Cells 128 and up, 64 per word
+    private long lowUnits; // Units 0-63
+    private long highUnits; // Units 64-127, shifted down by 64
+
+    /**
+     * Constructs an empty Worklist for the standard 9x9 board.
+     */
+    public Worklist() {
+        this(Geometry.STANDARD);
+    }
+
+    /**
+     * Constructs an empty Worklist for the cells and units of a board.
+     *
+     * @param geometry The shape of the board.
+     */
+    public Worklist(Geometry geometry) {
+        int cellCount = geometry.getCellCount();
+        int unitCount = geometry.getUnitCount();
+        allLowCells = wordMask(cellCount);
+        allHighCells = wordMask(cellCount - 64);
+        extraCells = new long[Math.max(0, (cellCount - 128 + 63) >> 6)];
+        allExtraCells = new long[extraCells.length];
+        for (int i = 0; i < extraCells.length; i++) {
+            allExtraCells[i] = wordMask(cellCount - 128 - (i << 6));
+        }
+        allLowUnits = wordMask(unitCount);
+        allHighUnits = wordMask(unitCount - 64);
+    }
+
+    /**
+     * Gets the bits of a word standing for entries, given the number of entries from the start of the word.
+     *
+     * @param count The number of entries from the first bit of the word, possibly negative or over 64.
+     * @return The mask of the bits of the word in use.
+     */
+    private static long wordMask(int count) {
+        return count <= 0 ? 0 : count >= 64 ? -1L : (1L << count) - 1;
+    }
+
+    /**
+     * Marks a cell as dirty.
+     *
+     * @param cellIndex The cell index (0-80 on a 9x9 board).
+     */
+    public void markCell(int cellIndex) {
+        if (cellIndex < 64) {
+            lowCells |= 1L << cellIndex;
+        } else if (cellIndex < 128) {
+            highCells |= 1L << cellIndex;
+        } else {
+            extraCells[(cellIndex - 128) >>> 6] |= 1L << cellIndex;
+        }
+    }
+
+    /**
+     * Marks a unit as dirty.
+     *
+     * @param unit The unit index (0-26 on a 9x9 board).
+     */
+    public void markUnit(int unit) {
+        if (unit < 64) {
+            lowUnits |= 1L << unit;
+        } else {
+            highUnits |= 1L << unit;
+        }
+    }
+
+    /**
+     * Marks every cell and every unit as dirty.
+     */
+    public void markAll() {
+        lowCells = allLowCells;
+        highCells = allHighCells;
+        System.arraycopy(allExtraCells, 0, extraCells, 0, extraCells.length);
+        lowUnits = allLowUnits;
+        highUnits = allHighUnits;
+    }
+
+    /**
+     * Adds all the dirty cells and units of another worklist, of the same board, to this one.
+     *
+     * @param other The worklist to merge in.
+     */
+    public void addAll(Worklist other) {
+        lowCells |= other.lowCells;
+        highCells |= other.highCells;
+        for (int i = 0; i < extraCells.length; i++) {
+            extraCells[i] |= other.extraCells[i];
+        }
+        lowUnits |= other.lowUnits;
+        highUnits |= other.highUnits;
+    }
+
+    /**
+     * Removes every entry from the worklist.
+     */
+    public void clear() {
+        lowCells = 0;
+        highCells = 0;
+        Arrays.fill(extraCells, 0);
+        lowUnits = 0;
+        highUnits = 0;
+    }
+
+    /**
+     * Checks if the worklist has no dirty cell and no dirty unit.
+     *
+     * @return True if the worklist is empty; false otherwise.
+     */
+    public boolean isEmpty() {
+        return (lowCells | highCells | lowUnits | highUnits) == 0 && firstExtraWord() == -1;
+    }
+
+    /**
+     * Counts the dirty cells.
+     *
+     * @return The number of dirty cells.
+     */
+    public int getCellCount() {
+        int count = Long.bitCount(lowCells) + Long.bitCount(highCells);
+        for (long word : extraCells) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Removes and returns the lowest dirty cell.
+     *
+     * @return The cell index, or -1 if there is no dirty cell.
+     */
+    public int pollCell() {
+        if (lowCells != 0) {
+            int cellIndex = Long.numberOfTrailingZeros(lowCells);
+            lowCells &= lowCells - 1;
+            return cellIndex;
+        }
+        if (highCells != 0) {
+            int cellIndex = Long.numberOfTrailingZeros(highCells);
+            highCells &= highCells - 1;
+            return cellIndex + 64;
+        }
+        int i = firstExtraWord();
+        if (i != -1) {
+            long word = extraCells[i];
+            extraCells[i] = word & (word - 1);
+            return 128 + (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    /**
+     * Removes and returns the lowest dirty unit.
+     *
+     * @return The unit index, or -1 if there is no dirty unit.
+     */
+    public int pollUnit() {
+        if (lowUnits != 0) {
+            int unit = Long.numberOfTrailingZeros(lowUnits);
+            lowUnits &= lowUnits - 1;
+            return unit;
+        }
+        if (highUnits != 0) {
+            int unit = Long.numberOfTrailingZeros(highUnits);
+            highUnits &= highUnits - 1;
+            return unit + 64;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first word of the cells beyond 127 with a dirty cell.
+     *
+     * @return The index of the word, or -1 if none of those cells is dirty.
+     */
+    private int firstExtraWord() {
+        for (int i = 0; i < extraCells.length; i++) {
+            if (extraCells[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}